@@ -12,6 +12,8 @@ javac -d build/classes \
     src/main/java/com/gameengine/math/Vector2.java \
     src/main/java/com/gameengine/input/InputManager.java \
     src/main/java/com/gameengine/core/Component.java \
+    src/main/java/com/gameengine/core/ComponentType.java \
+    src/main/java/com/gameengine/core/ComponentStorage.java \
     src/main/java/com/gameengine/core/GameObject.java \
     src/main/java/com/gameengine/components/TransformComponent.java \
     src/main/java/com/gameengine/components/PhysicsComponent.java \
@@ -22,18 +24,50 @@ javac -d build/classes \
     src/main/java/com/gameengine/components/MovementComponent.java \
     src/main/java/com/gameengine/components/ProjectileComponent.java \
     src/main/java/com/gameengine/graphics/Renderer.java \
+    src/main/java/com/gameengine/graphics/SwingRenderer.java \
+    src/main/java/com/gameengine/graphics/NullRenderer.java \
     src/main/java/com/gameengine/scene/GridSystem.java \
+    src/main/java/com/gameengine/scene/SceneQuery.java \
+    src/main/java/com/gameengine/scene/SpatialIndex.java \
     src/main/java/com/gameengine/scene/Scene.java \
+    src/main/java/com/gameengine/physics/CollisionSystem.java \
+    src/main/java/com/gameengine/recording/RecordingReader.java \
+    src/main/java/com/gameengine/recording/RecordingIndex.java \
     src/main/java/com/gameengine/recording/RecordingStorage.java \
     src/main/java/com/gameengine/recording/FileRecordingStorage.java \
+    src/main/java/com/gameengine/recording/BinaryRecordingFormat.java \
+    src/main/java/com/gameengine/recording/BinaryRecordingEncoder.java \
+    src/main/java/com/gameengine/recording/BinaryRecordingDecoder.java \
+    src/main/java/com/gameengine/recording/BinaryRecordingStorage.java \
+    src/main/java/com/gameengine/recording/RecordingCodec.java \
+    src/main/java/com/gameengine/recording/GzipRecordingCodec.java \
+    src/main/java/com/gameengine/recording/DeflateRecordingCodec.java \
+    src/main/java/com/gameengine/recording/RecordingCodecs.java \
+    src/main/java/com/gameengine/recording/CompressedRecordingStorage.java \
+    src/main/java/com/gameengine/recording/RecordingStorages.java \
     src/main/java/com/gameengine/recording/RecordingConfig.java \
+    src/main/java/com/gameengine/recording/RecordingRingBuffer.java \
+    src/main/java/com/gameengine/recording/FixedPointWriter.java \
     src/main/java/com/gameengine/recording/RecordingJson.java \
+    src/main/java/com/gameengine/recording/JsonTokenizer.java \
+    src/main/java/com/gameengine/recording/ReplayKeyframe.java \
+    src/main/java/com/gameengine/recording/KeyframeParser.java \
+    src/main/java/com/gameengine/recording/MappedRecordingReader.java \
+    src/main/java/com/gameengine/recording/KeyframeWindow.java \
+    src/main/java/com/gameengine/recording/PlaybackController.java \
+    src/main/java/com/gameengine/recording/ReplayScript.java \
     src/main/java/com/gameengine/recording/RecordingService.java \
+    src/main/java/com/gameengine/recording/RecordingConverter.java \
+    src/main/java/com/gameengine/recording/RecordingAnalyzer.java \
     src/main/java/com/gameengine/net/NetState.java \
     src/main/java/com/gameengine/net/NioServer.java \
     src/main/java/com/gameengine/net/NioClient.java \
     src/main/java/com/gameengine/net/NetworkBuffer.java \
+    src/main/java/com/gameengine/net/WireProtocol.java \
+    src/main/java/com/gameengine/net/BufferPool.java \
     src/main/java/com/gameengine/entities/EntityFactory.java \
+    src/main/java/com/gameengine/match/Match.java \
+    src/main/java/com/gameengine/match/MatchManager.java \
     src/main/java/com/gameengine/core/GameEngine.java \
     src/main/java/com/gameengine/core/GameLogic.java \
     src/main/java/com/gameengine/actor/Message.java \
@@ -41,10 +75,12 @@ javac -d build/classes \
     src/main/java/com/gameengine/actor/ActorSystem.java \
     src/main/java/com/gameengine/actor/messages/GameStateSnapshotMessage.java \
     src/main/java/com/gameengine/actor/actors/NetworkBroadcastActor.java \
+    src/main/java/com/gameengine/example/ResimulationReplay.java \
     src/main/java/com/gameengine/example/ReplayScene.java \
     src/main/java/com/gameengine/example/ClientScene.java \
     src/main/java/com/gameengine/example/ClientLauncher.java \
     src/main/java/com/gameengine/example/StressTest.java \
+    src/main/java/com/gameengine/example/ServerScene.java \
     src/main/java/com/gameengine/example/ServerLauncher.java \
     src/main/java/com/gameengine/example/GameExample.java
 
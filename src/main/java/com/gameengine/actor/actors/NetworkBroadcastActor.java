@@ -3,20 +3,19 @@ package com.gameengine.actor.actors;
 import com.gameengine.actor.Actor;
 import com.gameengine.actor.Message;
 import com.gameengine.actor.messages.GameStateSnapshotMessage;
-import com.gameengine.components.RenderComponent;
-import com.gameengine.components.TransformComponent;
-import com.gameengine.core.GameObject;
-import com.gameengine.math.Vector2;
+import com.gameengine.net.NetState;
+import com.gameengine.net.NetworkBuffer;
 
-import java.util.List;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * 网络广播Actor
- * 负责将游戏状态序列化并广播给所有客户端
+ * 负责在Actor线程上采集游戏状态快照，交给NioServer广播给所有客户端
  */
 public class NetworkBroadcastActor extends Actor {
     
-    private long lastBroadcastTime = 0;
+    private final Map<NetState, Long> lastBroadcastTimes = new IdentityHashMap<>();  // 每个对局单独限流
     private final long broadcastInterval = 50; // 50ms = 20Hz
     
     public NetworkBroadcastActor() {
@@ -32,57 +31,17 @@ public class NetworkBroadcastActor extends Actor {
     
     private void handleGameStateSnapshot(GameStateSnapshotMessage msg) {
         long now = System.currentTimeMillis();
+        NetState target = msg.getNetState();
         
-        // 限流：确保广播间隔不小于50ms
-        if (now - lastBroadcastTime < broadcastInterval) {
+        // 限流：确保同一对局的广播间隔不小于50ms
+        Long lastBroadcastTime = lastBroadcastTimes.get(target);
+        if (lastBroadcastTime != null && now - lastBroadcastTime < broadcastInterval) {
             return;
         }
-        lastBroadcastTime = now;
+        lastBroadcastTimes.put(target, now);
         
-        // 序列化游戏状态为JSON
-        String json = serializeGameState(msg.getGameObjects(), msg.getGameState());
-        
-        // 更新到NetState（由NioServer读取并广播）
-        com.gameengine.net.NetState.setLastKeyframeJson(json);
-    }
-    
-    private String serializeGameState(List<GameObject> objects, String gameState) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\"type\":\"kf\",\"t\":").append(System.currentTimeMillis())
-          .append(",\"state\":\"").append(gameState).append("\",\"entities\":[");
-        
-        boolean first = true;
-        for (GameObject obj : objects) {
-            if (!obj.isActive()) continue;
-            
-            TransformComponent tc = obj.getComponent(TransformComponent.class);
-            RenderComponent rc = obj.getComponent(RenderComponent.class);
-            
-            if (tc == null) continue;
-            
-            if (!first) sb.append(',');
-            
-            Vector2 pos = tc.getPosition();
-            sb.append("{\"id\":\"").append(obj.getName()).append("#").append(obj.getInstanceId())
-              .append("\",\"x\":").append(pos.x)
-              .append(",\"y\":").append(pos.y);
-            
-            // 颜色信息
-            if (rc != null) {
-                RenderComponent.Color color = rc.getColor();
-                sb.append(",\"color\":[")
-                  .append(color.r).append(',')
-                  .append(color.g).append(',')
-                  .append(color.b).append(',')
-                  .append(color.a).append(']');
-            }
-            
-            sb.append('}');
-            first = false;
-        }
-        
-        sb.append("]}");
-        return sb.toString();
+        // 采集快照并更新到对局的NetState（由NioServer编码并广播）
+        target.setLastKeyframe(NetworkBuffer.Keyframe.capture(msg.getGameObjects(), msg.getGameState()));
     }
     
     @Override
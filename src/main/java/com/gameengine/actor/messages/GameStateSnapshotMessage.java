@@ -2,6 +2,7 @@ package com.gameengine.actor.messages;
 
 import com.gameengine.actor.Message;
 import com.gameengine.core.GameObject;
+import com.gameengine.net.NetState;
 
 import java.util.List;
 
@@ -11,11 +12,13 @@ import java.util.List;
 public class GameStateSnapshotMessage extends Message {
     private final List<GameObject> gameObjects;
     private final String gameState;
+    private final NetState netState;  // 快照所属对局的网络状态
     
-    public GameStateSnapshotMessage(List<GameObject> gameObjects, String gameState) {
+    public GameStateSnapshotMessage(List<GameObject> gameObjects, String gameState, NetState netState) {
         super("GameLogicActor");
         this.gameObjects = gameObjects;
         this.gameState = gameState;
+        this.netState = netState;
     }
     
     public List<GameObject> getGameObjects() {
@@ -25,4 +28,8 @@ public class GameStateSnapshotMessage extends Message {
     public String getGameState() {
         return gameState;
     }
+    
+    public NetState getNetState() {
+        return netState;
+    }
 }
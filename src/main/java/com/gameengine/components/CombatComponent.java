@@ -5,8 +5,6 @@ import com.gameengine.core.GameObject;
 import com.gameengine.math.Vector2;
 import com.gameengine.scene.Scene;
 
-import java.util.List;
-
 /**
  * 战斗组件，处理攻击逻辑
  */
@@ -84,37 +82,11 @@ public class CombatComponent extends Component<CombatComponent> {
         
         if (myTransform == null || myTeam == null) return null;
         
-        Vector2 myPos = myTransform.getPosition();
-        GameObject closestEnemy = null;
-        float closestDistance = Float.MAX_VALUE;
-        
-        // 遍历场景中所有对象
-        List<GameObject> allObjects = scene.getGameObjects();
-        for (GameObject obj : allObjects) {
-            if (obj == owner || !obj.isActive()) continue;
-            
-            TeamComponent objTeam = obj.getComponent(TeamComponent.class);
-            TransformComponent objTransform = obj.getComponent(TransformComponent.class);
-            HealthComponent objHealth = obj.getComponent(HealthComponent.class);
-            
-            // 检查是否是敌人且存活
-            if (objTeam != null && myTeam.isEnemy(objTeam) && 
-                objTransform != null && objHealth != null && objHealth.isAlive()) {
-                
-                Vector2 objPos = objTransform.getPosition();
-                float distance = myPos.distance(objPos);
-                
-                // 将像素距离转换为格子单位（假设每格80像素）
-                float gridDistance = distance / 80.0f;
-                
-                if (gridDistance <= attackRange && distance < closestDistance) {
-                    closestEnemy = obj;
-                    closestDistance = distance;
-                }
-            }
-        }
-        
-        return closestEnemy;
+        // 通过场景空间索引查找范围内最近的存活敌人
+        // 将格子单位转换为像素距离（假设每格80像素）
+        float pixelRange = attackRange * 80.0f;
+        return scene.getSpatialIndex().findNearest(myTransform.getX(), myTransform.getY(),
+                pixelRange, myTeam.getTeam().opponent(), owner);
     }
     
     /**
@@ -202,6 +174,10 @@ public class CombatComponent extends Component<CombatComponent> {
         this.attackCallback = callback;
     }
     
+    public boolean hasAttackCallback() {
+        return attackCallback != null;
+    }
+    
     @Override
     public Class<CombatComponent> getComponentType() {
         return CombatComponent.class;
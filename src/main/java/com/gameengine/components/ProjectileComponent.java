@@ -4,8 +4,14 @@ import com.gameengine.core.Component;
 import com.gameengine.core.GameObject;
 import com.gameengine.math.Vector2;
 
+import java.util.Arrays;
+
 /**
- * 子弹组件，处理子弹飞行和碰撞
+ * 子弹组件，处理子弹飞行
+ * 命中判定由 physics.CollisionSystem 每帧批量处理：
+ *   - 默认：只命中自己的目标，目标消失时子弹销毁
+ *   - 穿透（pierceCount > 0）：沿途命中目标阵营的任意对象，每个对象只命中一次
+ *   - 范围伤害（splashRadius > 0）：命中时对半径内所有目标阵营对象造成伤害
  */
 public class ProjectileComponent extends Component<ProjectileComponent> {
     private float speed;            // 子弹速度（像素/秒）
@@ -15,6 +21,12 @@ public class ProjectileComponent extends Component<ProjectileComponent> {
     private float maxDistance;      // 最大飞行距离
     private float traveledDistance; // 已飞行距离
     private Vector2 startPosition;  // 起始位置
+    private float hitRadius;        // 碰撞半径
+    private int pierceCount;        // 可额外穿透的对象数量（0表示不穿透）
+    private float splashRadius;     // 范围伤害半径（0表示单体伤害）
+    private TeamComponent.Team targetTeam;  // 可命中的阵营
+    private GameObject[] hitObjects;        // 穿透子弹已命中的对象
+    private int hitCount;
     
     /**
      * 构造函数
@@ -28,6 +40,10 @@ public class ProjectileComponent extends Component<ProjectileComponent> {
         this.damage = damage;
         this.maxDistance = 1000.0f;  // 默认最大飞行距离
         this.traveledDistance = 0;
+        this.hitRadius = 20.0f;
+        this.pierceCount = 0;
+        this.splashRadius = 0;
+        this.hitCount = 0;
         this.name = "ProjectileComponent";
     }
     
@@ -56,6 +72,14 @@ public class ProjectileComponent extends Component<ProjectileComponent> {
         if (direction == null) {
             direction = new Vector2(1, 0);  // 默认向右
         }
+        
+        // 可命中的阵营取目标所在阵营
+        if (targetTeam == null && target != null) {
+            TeamComponent team = target.getComponent(TeamComponent.class);
+            if (team != null) {
+                targetTeam = team.getTeam();
+            }
+        }
     }
     
     @Override
@@ -81,19 +105,9 @@ public class ProjectileComponent extends Component<ProjectileComponent> {
             return;
         }
         
-        // 检查与目标的碰撞
-        if (target != null && target.isActive()) {
-            if (checkCollision(target)) {
-                // 击中目标，造成伤害
-                HealthComponent targetHealth = target.getComponent(HealthComponent.class);
-                if (targetHealth != null && targetHealth.isAlive()) {
-                    targetHealth.takeDamage(damage);
-                }
-                // 销毁子弹
-                owner.destroy();
-            }
-        } else {
-            // 目标已被销毁，销毁子弹
+        // 非穿透子弹的目标已被销毁，销毁子弹
+        // （碰撞由CollisionSystem统一检测）
+        if (!isPassThrough() && (target == null || !target.isActive())) {
             owner.destroy();
         }
     }
@@ -114,14 +128,41 @@ public class ProjectileComponent extends Component<ProjectileComponent> {
         
         if (myTransform == null || targetTransform == null) return false;
         
-        Vector2 myPos = myTransform.getPosition();
-        Vector2 targetPos = targetTransform.getPosition();
-        
         // 简单的圆形碰撞检测
-        float collisionDistance = 20.0f;  // 碰撞半径
-        float distance = myPos.distance(targetPos);
-        
-        return distance <= collisionDistance;
+        float dx = myTransform.getX() - targetTransform.getX();
+        float dy = myTransform.getY() - targetTransform.getY();
+        return dx * dx + dy * dy <= hitRadius * hitRadius;
+    }
+    
+    /**
+     * 是否为穿透子弹
+     */
+    public boolean isPassThrough() {
+        return pierceCount > 0;
+    }
+    
+    /**
+     * 穿透子弹是否已命中过该对象
+     */
+    public boolean hasHit(GameObject obj) {
+        for (int i = 0; i < hitCount; i++) {
+            if (hitObjects[i] == obj) return true;
+        }
+        return false;
+    }
+    
+    /**
+     * 记录一次命中
+     * @return 子弹是否已用尽（应当销毁）
+     */
+    public boolean recordHit(GameObject obj) {
+        if (hitObjects == null) {
+            hitObjects = new GameObject[Math.max(1, pierceCount + 1)];
+        } else if (hitCount == hitObjects.length) {
+            hitObjects = Arrays.copyOf(hitObjects, hitCount * 2);
+        }
+        hitObjects[hitCount++] = obj;
+        return hitCount > pierceCount;
     }
     
     // Getters and Setters
@@ -165,6 +206,38 @@ public class ProjectileComponent extends Component<ProjectileComponent> {
         this.maxDistance = maxDistance;
     }
     
+    public float getHitRadius() {
+        return hitRadius;
+    }
+    
+    public void setHitRadius(float hitRadius) {
+        this.hitRadius = hitRadius;
+    }
+    
+    public int getPierceCount() {
+        return pierceCount;
+    }
+    
+    public void setPierceCount(int pierceCount) {
+        this.pierceCount = Math.max(0, pierceCount);
+    }
+    
+    public float getSplashRadius() {
+        return splashRadius;
+    }
+    
+    public void setSplashRadius(float splashRadius) {
+        this.splashRadius = Math.max(0, splashRadius);
+    }
+    
+    public TeamComponent.Team getTargetTeam() {
+        return targetTeam;
+    }
+    
+    public void setTargetTeam(TeamComponent.Team targetTeam) {
+        this.targetTeam = targetTeam;
+    }
+    
     @Override
     public Class<ProjectileComponent> getComponentType() {
         return ProjectileComponent.class;
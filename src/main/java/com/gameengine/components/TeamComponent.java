@@ -12,7 +12,14 @@ public class TeamComponent extends Component<TeamComponent> {
      */
     public enum Team {
         FRIENDLY,  // 友军（葫芦娃）
-        ENEMY      // 敌军（妖精）
+        ENEMY;     // 敌军（妖精）
+        
+        /**
+         * 获取敌对阵营
+         */
+        public Team opponent() {
+            return this == FRIENDLY ? ENEMY : FRIENDLY;
+        }
     }
     
     private Team team;
@@ -16,6 +16,11 @@ public class TransformComponent extends Component<TransformComponent> {
     private boolean isMoving;
     private float moveSpeed = 400.0f; // 像素/秒
     
+    // 上一个模拟步开始时的位置（用于渲染插值）
+    private float previousX;
+    private float previousY;
+    private boolean hasPrevious;
+    
     public TransformComponent() {
         this.position = new Vector2();
         this.targetPosition = new Vector2();
@@ -89,6 +94,32 @@ public class TransformComponent extends Component<TransformComponent> {
         this.position = new Vector2(target);
         this.targetPosition = new Vector2(target);
         this.isMoving = false;
+        this.hasPrevious = false;  // 瞬移不做插值
+    }
+    
+    /**
+     * 记录当前位置作为插值起点（在每个模拟步之前调用）
+     */
+    public void savePrevious() {
+        this.previousX = position.x;
+        this.previousY = position.y;
+        this.hasPrevious = true;
+    }
+    
+    /**
+     * 获取插值后的X坐标
+     * @param alpha 0表示上一个模拟步的位置，1表示当前位置
+     */
+    public float getInterpolatedX(float alpha) {
+        return hasPrevious ? previousX + (position.x - previousX) * alpha : position.x;
+    }
+    
+    /**
+     * 获取插值后的Y坐标
+     * @param alpha 0表示上一个模拟步的位置，1表示当前位置
+     */
+    public float getInterpolatedY(float alpha) {
+        return hasPrevious ? previousY + (position.y - previousY) * alpha : position.y;
     }
     
     /**
@@ -132,12 +163,37 @@ public class TransformComponent extends Component<TransformComponent> {
         return new Vector2(position);
     }
     
+    /**
+     * 获取X坐标（不分配新对象）
+     */
+    public float getX() {
+        return position.x;
+    }
+    
+    /**
+     * 获取Y坐标（不分配新对象）
+     */
+    public float getY() {
+        return position.y;
+    }
+    
     public void setPosition(Vector2 position) {
         this.position = new Vector2(position);
         this.targetPosition = new Vector2(position);
         this.isMoving = false;
     }
     
+    /**
+     * 设置位置（原地修改，不分配新对象）
+     */
+    public void setPosition(float x, float y) {
+        position.x = x;
+        position.y = y;
+        targetPosition.x = x;
+        targetPosition.y = y;
+        isMoving = false;
+    }
+    
     public boolean isMoving() {
         return isMoving;
     }
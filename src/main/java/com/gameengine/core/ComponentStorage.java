@@ -0,0 +1,100 @@
+package com.gameengine.core;
+
+import java.util.Arrays;
+
+/**
+ * 组件存储
+ * 组件按添加顺序存放在紧凑数组中（用于遍历更新），
+ * 同时按类型ID建立直接索引表（用于O(1)查找），并维护组件签名位掩码
+ */
+public final class ComponentStorage {
+    private static final Component<?>[] EMPTY = new Component<?>[0];
+
+    private Component<?>[] dense;   // 按添加顺序
+    private int size;
+    private Component<?>[] byType;  // 类型ID -> 组件
+    private long[] mask;            // 组件签名
+
+    public ComponentStorage() {
+        this.dense = new Component<?>[4];
+        this.size = 0;
+        this.byType = EMPTY;
+        this.mask = new long[1];
+    }
+
+    /**
+     * 添加组件，并登记到自身类型及所有父类型下（同类型保留最先添加的）
+     */
+    public void add(Component<?> component) {
+        if (size == dense.length) {
+            dense = Arrays.copyOf(dense, size * 2);
+        }
+        dense[size++] = component;
+
+        for (int id : ComponentType.hierarchyIdsOf(component.getClass())) {
+            if (id >= byType.length) {
+                byType = Arrays.copyOf(byType, Math.max(id + 1, ComponentType.count()));
+            }
+            if (byType[id] == null) {
+                byType[id] = component;
+            }
+            int word = id >>> 6;
+            if (word >= mask.length) {
+                mask = Arrays.copyOf(mask, word + 1);
+            }
+            mask[word] |= 1L << id;
+        }
+    }
+
+    /**
+     * 按类型ID获取组件
+     */
+    public Component<?> get(int typeId) {
+        return typeId < byType.length ? byType[typeId] : null;
+    }
+
+    /**
+     * 是否包含指定类型ID的组件
+     */
+    public boolean has(int typeId) {
+        int word = typeId >>> 6;
+        return word < mask.length && (mask[word] & (1L << typeId)) != 0;
+    }
+
+    /**
+     * 是否包含签名中的所有组件类型
+     */
+    public boolean matches(long[] required) {
+        for (int i = 0; i < required.length; i++) {
+            long own = i < mask.length ? mask[i] : 0L;
+            if ((own & required[i]) != required[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 组件数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 按添加顺序获取组件，越界（例如遍历中被清空）时返回null
+     */
+    public Component<?> at(int index) {
+        return index < size ? dense[index] : null;
+    }
+
+    /**
+     * 清空所有组件
+     */
+    public void clear() {
+        Arrays.fill(dense, 0, size, null);
+        size = 0;
+        Arrays.fill(byType, null);
+        Arrays.fill(mask, 0L);
+    }
+}
@@ -0,0 +1,89 @@
+package com.gameengine.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 组件类型注册表
+ * 为每个组件类分配一个小整数ID，GameObject按ID直接索引组件，
+ * Scene按ID组成的位掩码匹配组件签名
+ */
+public final class ComponentType {
+    private static final Object lock = new Object();
+    private static final Map<Class<?>, Integer> registered = new HashMap<>();
+    private static volatile int count = 0;
+
+    // 类 -> 类型ID（ClassValue查找不需要哈希和装箱比较）
+    private static final ClassValue<Integer> ID = new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            synchronized (lock) {
+                Integer id = registered.get(type);
+                if (id == null) {
+                    id = count;
+                    registered.put(type, id);
+                    count = id + 1;
+                }
+                return id;
+            }
+        }
+    };
+
+    // 具体组件类 -> 自身及所有父类（不含Component）的类型ID，用于保持isInstance语义
+    private static final ClassValue<int[]> HIERARCHY = new ClassValue<int[]>() {
+        @Override
+        protected int[] computeValue(Class<?> type) {
+            List<Integer> ids = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Component.class && c != Object.class; c = c.getSuperclass()) {
+                ids.add(idOf(c));
+            }
+            int[] out = new int[ids.size()];
+            for (int i = 0; i < out.length; i++) {
+                out[i] = ids.get(i);
+            }
+            return out;
+        }
+    };
+
+    private ComponentType() {}
+
+    /**
+     * 获取组件类的类型ID（首次访问时分配）
+     */
+    public static int idOf(Class<?> componentClass) {
+        return ID.get(componentClass);
+    }
+
+    /**
+     * 获取组件类及其父类的类型ID列表
+     */
+    static int[] hierarchyIdsOf(Class<?> componentClass) {
+        return HIERARCHY.get(componentClass);
+    }
+
+    /**
+     * 已分配的类型ID数量
+     */
+    public static int count() {
+        return count;
+    }
+
+    /**
+     * 根据组件类型构建签名位掩码
+     */
+    public static long[] maskOf(Class<?>... componentTypes) {
+        int maxId = 0;
+        int[] ids = new int[componentTypes.length];
+        for (int i = 0; i < componentTypes.length; i++) {
+            ids[i] = idOf(componentTypes[i]);
+            maxId = Math.max(maxId, ids[i]);
+        }
+        long[] mask = new long[(maxId >>> 6) + 1];
+        for (int id : ids) {
+            mask[id >>> 6] |= 1L << id;
+        }
+        return mask;
+    }
+}
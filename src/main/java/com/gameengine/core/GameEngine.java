@@ -3,30 +3,36 @@ package com.gameengine.core;
 import com.gameengine.graphics.Renderer;
 import com.gameengine.input.InputManager;
 import com.gameengine.scene.Scene;
-import javax.swing.Timer;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 游戏引擎
+ * 游戏逻辑在独立的模拟线程上以固定步长运行（累加器 + 追帧上限），
+ * 渲染由渲染器自己的渲染循环驱动（SwingRenderer 使用Swing定时器），并在最近两个模拟步之间插值。
+ * 模拟步和场景渲染通过 frameLock 互斥，实际绘制（paint）在锁外进行。
+ * 引擎不依赖具体的界面库：渲染器由调用方创建并传入，停止渲染循环和关闭窗口由渲染器在自己的线程上完成。
  */
 public class GameEngine {
+    private static final int MAX_CATCH_UP_STEPS = 5;  // 每轮最多追赶的模拟步数，防止死亡螺旋
+    
     private Renderer renderer;
     private InputManager inputManager;
-    private Scene currentScene;
-    private boolean running;
+    private volatile Scene currentScene;
+    private volatile boolean running;
     private float targetFPS;
-    private float deltaTime;
-    private long lastTime;
+    private volatile float fixedDeltaTime;
     private String title;
-    private Timer gameTimer;
+    private Thread simulationThread;
+    private final Object frameLock = new Object();
+    private volatile long simulatedUntil;  // 模拟已推进到的真实时间（纳秒）
     
-    public GameEngine(int width, int height, String title) {
-        this.title = title;
-        this.renderer = new Renderer(width, height, title);
+    public GameEngine(Renderer renderer) {
+        this.title = renderer.getTitle();
+        this.renderer = renderer;
         this.inputManager = InputManager.getInstance();
         this.running = false;
         this.targetFPS = 60.0f;
-        this.deltaTime = 0.0f;
-        this.lastTime = System.nanoTime();
+        this.fixedDeltaTime = 1.0f / 60.0f;
     }
     
     /**
@@ -52,32 +58,70 @@ public class GameEngine {
             currentScene.initialize();
         }
         
-        // 创建游戏循环定时器
-        gameTimer = new Timer((int) (1000 / targetFPS), e -> {
-            if (running) {
-                update();
-                render();
-            }
-        });
+        // 模拟线程
+        simulationThread = new Thread(this::runSimulation, "game-simulation");
+        simulationThread.start();
         
-        gameTimer.start();
+        // 渲染循环（在渲染器的线程上），无界面渲染器不启动
+        renderer.startRenderLoop(targetFPS, this::renderFrame);
+    }
+    
+    private void renderFrame() {
+        if (running) {
+            render();
+        }
     }
     
     /**
-     * 更新游戏逻辑
+     * 固定步长模拟循环
      */
-    private void update() {
-        // 计算时间间隔
-        long currentTime = System.nanoTime();
-        deltaTime = (currentTime - lastTime) / 1_000_000_000.0f; // 转换为秒
-        lastTime = currentTime;
+    private void runSimulation() {
+        long previous = System.nanoTime();
+        long accumulator = 0;
+        simulatedUntil = previous;
         
+        while (running) {
+            long stepNanos = (long) (fixedDeltaTime * 1_000_000_000L);
+            long now = System.nanoTime();
+            accumulator += now - previous;
+            previous = now;
+            
+            int steps = 0;
+            while (running && accumulator >= stepNanos && steps < MAX_CATCH_UP_STEPS) {
+                synchronized (frameLock) {
+                    try {
+                        update();
+                    } catch (RuntimeException ex) {
+                        ex.printStackTrace();
+                    }
+                }
+                accumulator -= stepNanos;
+                steps++;
+            }
+            
+            // 追赶不上时丢弃多余的时间，避免越落越多
+            if (accumulator >= stepNanos) {
+                accumulator %= stepNanos;
+            }
+            simulatedUntil = now - accumulator;
+            
+            LockSupport.parkNanos(stepNanos - accumulator);
+        }
+    }
+    
+    /**
+     * 推进一个固定步长的游戏逻辑
+     */
+    private void update() {
         // 处理事件（必须在update之前，确保输入状态是最新的）
         renderer.pollEvents();
+        inputManager.pollEvents();
         
         // 更新场景（游戏逻辑可以读取输入）
-        if (currentScene != null) {
-            currentScene.update(deltaTime);
+        Scene scene = currentScene;
+        if (scene != null) {
+            scene.savePreviousTransforms();
+            scene.update(fixedDeltaTime);
         }
         
         // 更新输入（清空JustPressed状态，必须在场景update之后）
@@ -85,15 +129,13 @@ public class GameEngine {
         
         // 检查退出条件
         if (inputManager.isKeyPressed(27)) { // ESC键
-            running = false;
-            gameTimer.stop();
+            stop();
             renderer.cleanup();
         }
         
         // 检查窗口是否关闭
         if (renderer.shouldClose()) {
-            running = false;
-            gameTimer.stop();
+            stop();
         }
     }
     
@@ -101,23 +143,33 @@ public class GameEngine {
      * 渲染游戏
      */
     private void render() {
-        renderer.beginFrame();
+        // 插值系数：距离最近一个模拟步过去了多少个步长
+        float alpha = (System.nanoTime() - simulatedUntil) / (fixedDeltaTime * 1_000_000_000.0f);
+        alpha = Math.max(0.0f, Math.min(1.0f, alpha));
         
-        // 渲染场景
-        if (currentScene != null) {
-            currentScene.render();
+        synchronized (frameLock) {
+            renderer.setInterpolationAlpha(alpha);
+            renderer.beginFrame();
+            
+            // 渲染场景
+            Scene scene = currentScene;
+            if (scene != null) {
+                scene.render();
+            }
+            
+            renderer.endFrame();
         }
-        
-        renderer.endFrame();
     }
     
     /**
      * 设置当前场景
      */
     public void setScene(Scene scene) {
-        this.currentScene = scene;
-        if (scene != null && running) {
-            scene.initialize();
+        synchronized (frameLock) {
+            this.currentScene = scene;
+            if (scene != null && running) {
+                scene.initialize();
+            }
         }
     }
     
@@ -133,9 +185,7 @@ public class GameEngine {
      */
     public void stop() {
         running = false;
-        if (gameTimer != null) {
-            gameTimer.stop();
-        }
+        renderer.stopRenderLoop();
     }
     
     /**
@@ -163,19 +213,26 @@ public class GameEngine {
     }
     
     /**
-     * 获取时间间隔
+     * 获取时间间隔（固定模拟步长）
      */
     public float getDeltaTime() {
-        return deltaTime;
+        return fixedDeltaTime;
+    }
+    
+    /**
+     * 设置模拟频率（每秒模拟步数）
+     */
+    public void setSimulationRate(float stepsPerSecond) {
+        this.fixedDeltaTime = 1.0f / stepsPerSecond;
     }
     
     /**
-     * 设置目标帧率
+     * 设置目标帧率（渲染频率）
      */
     public void setTargetFPS(float fps) {
         this.targetFPS = fps;
-        if (gameTimer != null) {
-            gameTimer.setDelay((int) (1000 / fps));
+        if (running) {
+            renderer.startRenderLoop(fps, this::renderFrame);
         }
     }
     
@@ -4,13 +4,18 @@ import com.gameengine.components.*;
 import com.gameengine.entities.EntityFactory;
 import com.gameengine.input.InputManager;
 import com.gameengine.math.Vector2;
+import com.gameengine.physics.CollisionSystem;
 import com.gameengine.scene.GridSystem;
 import com.gameengine.scene.Scene;
+import com.gameengine.scene.SceneQuery;
 
 import java.util.List;
+import java.util.Random;
 
 /**
  * 游戏逻辑类，处理具体的游戏规则
+ * 所有随机数来自以种子初始化的生成器，输入来自构造时指定的InputManager：
+ * 相同的种子、相同的初始布置和逐步相同的输入，以固定步长推进得到完全相同的对局（用于确定性回放）
  */
 public class GameLogic {
     private Scene scene;
@@ -38,11 +43,61 @@ public class GameLogic {
     // 选中的葫芦娃
     private GameObject selectedHuluwa = null;
     
+    // 场景查询视图（由Scene增量维护）
+    private final SceneQuery combatants;   // Combat + Team + Transform
+    private final SceneQuery mortals;      // Health
+    private final SceneQuery teamMembers;  // Team + Transform
+    
+    private final CollisionSystem collisionSystem;
+    
+    // 随机数（妖精类型与出生行）
+    private final long seed;
+    private final Random random;
+    
+    /**
+     * 使用全局输入和随机种子创建
+     */
     public GameLogic(Scene scene, GridSystem gridSystem, EntityFactory entityFactory) {
+        this(scene, gridSystem, entityFactory, InputManager.getInstance(), new Random().nextLong());
+    }
+    
+    /**
+     * @param inputManager 读取输入的管理器（回放时使用 InputManager.detached()）
+     * @param seed 随机种子
+     */
+    public GameLogic(Scene scene, GridSystem gridSystem, EntityFactory entityFactory,
+                     InputManager inputManager, long seed) {
         this.scene = scene;
         this.gridSystem = gridSystem;
         this.entityFactory = entityFactory;
-        this.inputManager = InputManager.getInstance();
+        this.inputManager = inputManager;
+        this.seed = seed;
+        this.random = new Random(seed);
+        this.combatants = scene.query(CombatComponent.class, TeamComponent.class, TransformComponent.class);
+        this.mortals = scene.query(HealthComponent.class);
+        this.teamMembers = scene.query(TeamComponent.class, TransformComponent.class);
+        scene.alignSpatialIndex(gridSystem);
+        this.collisionSystem = new CollisionSystem(scene);
+    }
+    
+    /**
+     * 开局布置：七个葫芦娃放置在中间行
+     */
+    public void placeInitialHuluwas() {
+        GameObject[] huluwas = {
+            entityFactory.createDawa(2, 1),    // 大娃
+            entityFactory.createErwa(2, 2),    // 二娃
+            entityFactory.createSanwa(2, 3),   // 三娃
+            entityFactory.createSiwa(2, 4),    // 四娃
+            entityFactory.createWuwa(2, 5),    // 五娃
+            entityFactory.createLiuwa(2, 6),   // 六娃
+            entityFactory.createQiwa(2, 7)     // 七娃
+        };
+        for (int i = 0; i < huluwas.length; i++) {
+            scene.addGameObject(huluwas[i]);
+            gridSystem.placeObject(2, i + 1, huluwas[i]);
+        }
+        System.out.println("已放置7个葫芦娃：大娃、二娃、三娃、四娃、五娃、六娃、七娃");
     }
     
     /**
@@ -78,7 +133,7 @@ public class GameLogic {
     public void handlePlayerInput() {
         // 1. 鼠标左键点击选中葫芦娃
         if (inputManager.isMouseButtonJustPressed(1)) {  // 左键
-            Vector2 mousePos = inputManager.getMousePosition();
+            Vector2 mousePos = inputManager.getMousePressPosition();
             int[] gridPos = gridSystem.worldToGrid(mousePos.x, mousePos.y);
             
             if (gridPos != null) {
@@ -176,8 +231,8 @@ public class GameLogic {
      * 生成一只随机类型的妖精
      */
     private void spawnRandomMonster() {
-        int randomRow = gridSystem.getRandomRow();
-        int monsterType = (int)(Math.random() * 5);  // 0-4随机选择妖精类型
+        int randomRow = gridSystem.getRandomRow(random);
+        int monsterType = random.nextInt(5);  // 0-4随机选择妖精类型
         
         GameObject monster;
         String monsterName;
@@ -217,14 +272,19 @@ public class GameLogic {
      * 处理战斗逻辑
      */
     private void handleCombat() {
-        List<CombatComponent> combatComponents = scene.getComponents(CombatComponent.class);
-        
-        for (CombatComponent combat : combatComponents) {
+        CombatComponent[] combatColumn = combatants.column(CombatComponent.class);
+        TeamComponent[] teamColumn = combatants.column(TeamComponent.class);
+        for (int i = 0; i < combatants.size(); i++) {
+            GameObject owner = combatants.get(i);
+            if (!owner.isActive()) continue;
+            
+            CombatComponent combat = combatColumn[i];
+            // 场景引用和攻击回调只需绑定一次
+            if (combat.hasAttackCallback()) continue;
             combat.setScene(scene);  // 设置场景引用
             
             // 为葫芦娃设置攻击回调（发射子弹）
-            GameObject owner = combat.getOwner();
-            TeamComponent team = owner.getComponent(TeamComponent.class);
+            TeamComponent team = teamColumn[i];
             
             if (team != null && team.isFriendly()) {
                 combat.setAttackCallback((attacker, target) -> {
@@ -281,15 +341,17 @@ public class GameLogic {
      * 更新子弹
      */
     private void updateProjectiles() {
-        // 子弹由ProjectileComponent自己的update处理碰撞和移动
+        // 子弹移动由ProjectileComponent处理，命中由碰撞系统批量检测
+        collisionSystem.update();
     }
     
     /**
      * 清理死亡实体
      */
     private void cleanupDeadEntities() {
-        List<HealthComponent> healthComponents = scene.getComponents(HealthComponent.class);
-        for (HealthComponent health : healthComponents) {
+        HealthComponent[] healthColumn = mortals.column(HealthComponent.class);
+        for (int i = 0; i < mortals.size(); i++) {
+            HealthComponent health = healthColumn[i];
             if (health.isDead()) {
                 GameObject owner = health.getOwner();
                 if (owner != null && owner.isActive()) {  // 确保对象还在激活状态
@@ -316,18 +378,16 @@ public class GameLogic {
      */
     private GameState checkGameOver() {
         // 检查是否有妖精到达最左列（游戏失败）
-        for (GameObject obj : scene.getGameObjects()) {
-            if (!obj.isActive()) continue;
+        TeamComponent[] teamColumn = teamMembers.column(TeamComponent.class);
+        TransformComponent[] transformColumn = teamMembers.column(TransformComponent.class);
+        for (int i = 0; i < teamMembers.size(); i++) {
+            if (!teamMembers.get(i).isActive()) continue;
             
-            TeamComponent team = obj.getComponent(TeamComponent.class);
-            if (team != null && team.isEnemy()) {
-                TransformComponent transform = obj.getComponent(TransformComponent.class);
-                if (transform != null) {
-                    Vector2 pos = transform.getPosition();
-                    int[] gridPos = gridSystem.worldToGrid(pos.x, pos.y);
-                    if (gridPos != null && gridPos[1] <= 0) {
-                        return GameState.DEFEAT;
-                    }
+            if (teamColumn[i].isEnemy()) {
+                Vector2 pos = transformColumn[i].getPosition();
+                int[] gridPos = gridSystem.worldToGrid(pos.x, pos.y);
+                if (gridPos != null && gridPos[1] <= 0) {
+                    return GameState.DEFEAT;
                 }
             }
         }
@@ -353,6 +413,13 @@ public class GameLogic {
         this.gameState = state;
     }
     
+    /**
+     * 随机种子（录制到文件头，用于确定性回放）
+     */
+    public long getSeed() {
+        return seed;
+    }
+    
     public GameObject getSelectedHuluwa() {
         return selectedHuluwa;
     }
@@ -399,41 +466,14 @@ public class GameLogic {
             return new java.util.ArrayList<>();
         }
         
-        Vector2 attackerPos = attackerTransform.getPosition();
-        List<GameObject> enemies = new java.util.ArrayList<>();
+        List<GameObject> enemies = new java.util.ArrayList<>(maxCount);
         
         // 将格子范围转换为像素距离（每格80像素）
         float pixelRange = range * 80.0f;
         
-        // 找到所有范围内的敌人
-        for (GameObject obj : scene.getGameObjects()) {
-            if (!obj.isActive()) continue;
-            
-            TeamComponent objTeam = obj.getComponent(TeamComponent.class);
-            if (objTeam == null || !objTeam.isEnemy()) continue;
-            
-            HealthComponent objHealth = obj.getComponent(HealthComponent.class);
-            if (objHealth == null || objHealth.isDead()) continue;
-            
-            TransformComponent objTransform = obj.getComponent(TransformComponent.class);
-            if (objTransform == null) continue;
-            
-            float distance = attackerPos.distance(objTransform.getPosition());
-            if (distance <= pixelRange) {
-                enemies.add(obj);
-            }
-        }
-        
-        // 按距离排序，取最近的N个
-        enemies.sort((a, b) -> {
-            TransformComponent ta = a.getComponent(TransformComponent.class);
-            TransformComponent tb = b.getComponent(TransformComponent.class);
-            float da = attackerPos.distance(ta.getPosition());
-            float db = attackerPos.distance(tb.getPosition());
-            return Float.compare(da, db);
-        });
-        
-        // 返回最多maxCount个
-        return enemies.subList(0, Math.min(maxCount, enemies.size()));
+        // 通过场景空间索引查找范围内最近的N个存活敌人（已按距离排序）
+        scene.getSpatialIndex().findNearest(attackerTransform.getX(), attackerTransform.getY(),
+                pixelRange, TeamComponent.Team.ENEMY, maxCount, enemies);
+        return enemies;
     }
 }
@@ -1,24 +1,23 @@
 package com.gameengine.core;
 
-import com.gameengine.math.Vector2;
-import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 游戏对象基类，使用泛型组件系统
  */
 public class GameObject {
-    private static int nextInstanceId = 1;
+    private static final AtomicInteger nextInstanceId = new AtomicInteger(1);  // 多个对局可能并发创建对象
     
     protected boolean active;
     protected String name;
-    protected final List<Component<?>> components;
+    protected final ComponentStorage components;
     private final int instanceId;
     
     public GameObject() {
         this.active = true;
         this.name = "GameObject";
-        this.components = new ArrayList<>();
-        this.instanceId = nextInstanceId++;
+        this.components = new ComponentStorage();
+        this.instanceId = nextInstanceId.getAndIncrement();
     }
     
     public GameObject(String name) {
@@ -57,8 +56,8 @@ public class GameObject {
     public void destroy() {
         this.active = false;
         // 销毁所有组件
-        for (Component<?> component : components) {
-            component.destroy();
+        for (int i = 0; i < components.size(); i++) {
+            components.at(i).destroy();
         }
         components.clear();
     }
@@ -78,34 +77,39 @@ public class GameObject {
      */
     @SuppressWarnings("unchecked")
     public <T extends Component<T>> T getComponent(Class<T> componentType) {
-        for (Component<?> component : components) {
-            if (componentType.isInstance(component)) {
-                return (T) component;
-            }
-        }
-        return null;
+        return (T) components.get(ComponentType.idOf(componentType));
+    }
+    
+    /**
+     * 按类型ID获取组件（见ComponentType.idOf）
+     */
+    public Component<?> getComponent(int typeId) {
+        return components.get(typeId);
     }
     
     /**
      * 检查是否有指定类型的组件
      */
     public <T extends Component<T>> boolean hasComponent(Class<T> componentType) {
-        for (Component<?> component : components) {
-            if (componentType.isInstance(component)) {
-                return true;
-            }
-        }
-        return false;
+        return components.has(ComponentType.idOf(componentType));
+    }
+    
+    /**
+     * 检查是否包含签名中的所有组件类型（见ComponentType.maskOf）
+     */
+    public boolean hasComponents(long[] componentMask) {
+        return components.matches(componentMask);
     }
     
     /**
      * 更新所有组件
      */
     public void updateComponents(float deltaTime) {
-        // 创建副本以避免并发修改异常
-        java.util.List<Component<?>> componentsCopy = new java.util.ArrayList<>(components);
-        for (Component<?> component : componentsCopy) {
-            if (component.isEnabled()) {
+        // 只遍历开始时已有的组件；组件在更新中销毁对象时at()返回null
+        int count = components.size();
+        for (int i = 0; i < count; i++) {
+            Component<?> component = components.at(i);
+            if (component != null && component.isEnabled()) {
                 component.update(deltaTime);
             }
         }
@@ -115,10 +119,10 @@ public class GameObject {
      * 渲染所有组件
      */
     public void renderComponents() {
-        // 创建副本以避免并发修改异常
-        java.util.List<Component<?>> componentsCopy = new java.util.ArrayList<>(components);
-        for (Component<?> component : componentsCopy) {
-            if (component.isEnabled()) {
+        int count = components.size();
+        for (int i = 0; i < count; i++) {
+            Component<?> component = components.at(i);
+            if (component != null && component.isEnabled()) {
                 component.render();
             }
         }
@@ -517,6 +517,61 @@ public class EntityFactory {
         return bullet;
     }
     
+    /**
+     * 创建穿透子弹（沿飞行方向穿过多个妖精，默认的葫芦娃攻击不使用）
+     * @param pierceCount 命中目标后最多再穿过的妖精数
+     */
+    public GameObject createPiercingBullet(Vector2 startPos, GameObject target, float damage, int pierceCount) {
+        GameObject bullet = new GameObject("PiercingBullet");
+        
+        TransformComponent transform = new TransformComponent();
+        transform.setPosition(startPos);
+        bullet.addComponent(transform);
+        
+        // 穿透子弹：橙色小圆形
+        RenderComponent render = new RenderComponent(
+            RenderComponent.RenderType.CIRCLE,
+            new Vector2(6, 6),
+            new RenderComponent.Color(1.0f, 0.6f, 0.0f, 1.0f)  // 橙色
+        );
+        render.setRenderer(renderer);
+        bullet.addComponent(render);
+        
+        // 目标消失后继续飞行，直到用尽穿透次数或超出射程
+        ProjectileComponent projectile = new ProjectileComponent(BULLET_SPEED, target, damage);
+        projectile.setPierceCount(pierceCount);
+        bullet.addComponent(projectile);
+        
+        return bullet;
+    }
+    
+    /**
+     * 创建爆炸子弹（命中时对周围妖精造成范围伤害，默认的葫芦娃攻击不使用）
+     * @param splashRadius 爆炸半径（像素）
+     */
+    public GameObject createExplosiveBullet(Vector2 startPos, GameObject target, float damage, float splashRadius) {
+        GameObject bullet = new GameObject("ExplosiveBullet");
+        
+        TransformComponent transform = new TransformComponent();
+        transform.setPosition(startPos);
+        bullet.addComponent(transform);
+        
+        // 爆炸子弹：深红色大圆形
+        RenderComponent render = new RenderComponent(
+            RenderComponent.RenderType.CIRCLE,
+            new Vector2(10, 10),
+            new RenderComponent.Color(0.8f, 0.1f, 0.1f, 1.0f)  // 深红色
+        );
+        render.setRenderer(renderer);
+        bullet.addComponent(render);
+        
+        ProjectileComponent projectile = new ProjectileComponent(BULLET_SPEED, target, damage);
+        projectile.setSplashRadius(splashRadius);
+        bullet.addComponent(projectile);
+        
+        return bullet;
+    }
+    
     /**
      * 创建妖精子弹（紫色，速度较慢，射程较近）
      * @param startPos 起始位置
@@ -1,15 +1,19 @@
 package com.gameengine.example;
 
 import com.gameengine.core.GameEngine;
+import com.gameengine.graphics.SwingRenderer;
 import com.gameengine.net.NioClient;
 
 /**
  * 客户端启动器 - 连接到服务器并观看游戏
+ *
+ * 用法: java -cp build/classes com.gameengine.example.ClientLauncher [主机] [端口] [对局ID]
  */
 public class ClientLauncher {
     public static void main(String[] args) {
         String host = "localhost";
         int port = 7777;
+        String matchId = null;
         
         // 如果提供了命令行参数，使用自定义服务器地址
         if (args.length >= 1) {
@@ -22,11 +26,14 @@ public class ClientLauncher {
                 System.err.println("无效的端口号，使用默认端口 7777");
             }
         }
+        if (args.length >= 3) {
+            matchId = args[2];
+        }
         
         System.out.println("======================");
         System.out.println("葫芦娃大战妖精 - 客户端");
         System.out.println("======================");
-        System.out.println("连接到: " + host + ":" + port);
+        System.out.println("连接到: " + host + ":" + port + (matchId != null ? "，对局: " + matchId : ""));
         
         // 创建NIO客户端并连接
         NioClient client = new NioClient();
@@ -39,7 +46,7 @@ public class ClientLauncher {
         System.out.println("✓ 已连接到服务器");
         
         // 发送JOIN消息
-        if (!client.join("Client_" + System.currentTimeMillis())) {
+        if (!client.join("Client_" + System.currentTimeMillis(), matchId)) {
             System.err.println("✗ 加入失败！");
             return;
         }
@@ -52,8 +59,8 @@ public class ClientLauncher {
         
         try {
             // 创建游戏引擎并运行客户端场景
-            GameEngine engine = new GameEngine(800, 600, "葫芦娃大战妖精 [客户端]");
-            ClientScene clientScene = new ClientScene(engine);
+            GameEngine engine = new GameEngine(new SwingRenderer(800, 600, "葫芦娃大战妖精 [客户端]"));
+            ClientScene clientScene = new ClientScene(engine, client);
             engine.setScene(clientScene);
             
             System.out.println("✓ 客户端场景已启动");
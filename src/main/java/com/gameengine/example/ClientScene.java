@@ -8,6 +8,7 @@ import com.gameengine.entities.EntityFactory;
 import com.gameengine.graphics.Renderer;
 import com.gameengine.math.Vector2;
 import com.gameengine.net.NetworkBuffer;
+import com.gameengine.net.NioClient;
 import com.gameengine.scene.GridSystem;
 import com.gameengine.scene.Scene;
 
@@ -16,14 +17,16 @@ import com.gameengine.scene.Scene;
  */
 public class ClientScene extends Scene {
     private final GameEngine engine;
+    private final NioClient client;
     private Renderer renderer;
     private GridSystem gridSystem;
     private EntityFactory entityFactory;
     private String currentGameState = "PLAYING"; // 当前游戏状态
 
-    public ClientScene(GameEngine engine) {
+    public ClientScene(GameEngine engine, NioClient client) {
         super("ClientScene");
         this.engine = engine;
+        this.client = client;
     }
 
     @Override
@@ -41,7 +44,7 @@ public class ClientScene extends Scene {
         super.update(deltaTime);
         
         // 从网络缓冲区采样插值后的位置
-        NetworkBuffer.Keyframe kf = NetworkBuffer.sampleKeyframe();
+        NetworkBuffer.Keyframe kf = client.getNetworkBuffer().sampleKeyframe();
         if (kf == null) return;
         
         // 更新游戏状态
@@ -104,7 +107,7 @@ public class ClientScene extends Scene {
         
         // 绘制客户端提示
         renderer.drawText("CLIENT MODE - Viewing Server", 10, 10, 16, 0.5f, 1.0f, 0.5f, 1.0f);
-        renderer.drawText("Connected clients: " + com.gameengine.net.NetState.getClientCount(), 10, 30, 14, 0.8f, 0.8f, 0.8f, 1.0f);
+        renderer.drawText("Received: " + client.getBytesReceived() / 1024 + " KB", 10, 30, 14, 0.8f, 0.8f, 0.8f, 1.0f);
         renderer.drawText("State: " + currentGameState, 10, 50, 14, 0.8f, 0.8f, 0.8f, 1.0f);
     }
     
@@ -6,11 +6,14 @@ import com.gameengine.core.GameEngine;
 import com.gameengine.core.GameLogic;
 import com.gameengine.entities.EntityFactory;
 import com.gameengine.graphics.Renderer;
+import com.gameengine.graphics.SwingRenderer;
 import com.gameengine.math.Vector2;
 import com.gameengine.recording.RecordingConfig;
 import com.gameengine.recording.RecordingService;
 import com.gameengine.scene.GridSystem;
 import com.gameengine.scene.Scene;
+import com.gameengine.net.NetState;
+import com.gameengine.net.NetworkBuffer;
 import com.gameengine.net.NioServer;
 import com.gameengine.actor.ActorSystem;
 import com.gameengine.actor.actors.NetworkBroadcastActor;
@@ -42,7 +45,8 @@ public class GameExample {
         System.out.println("启动葫芦娃大战妖精...");
         
         // 启动网络服务器（监听7777端口）
-        NioServer networkServer = new NioServer(7777);
+        NetState netState = new NetState();
+        NioServer networkServer = new NioServer(7777, netState);
         networkServer.start();
         System.out.println("✓ 网络服务器已启动（端口: 7777）");
         System.out.println("  客户端可以连接到此服务器观看游戏");
@@ -60,7 +64,7 @@ public class GameExample {
         try {
             // 创建游戏引擎
             String title = ACTOR_ENABLED ? "葫芦娃大战妖精 [Actor优化]" : "葫芦娃大战妖精 [原始版本]";
-            GameEngine engine = new GameEngine(800, 600, title);
+            GameEngine engine = new GameEngine(new SwingRenderer(800, 600, title));
             
             // 创建游戏场景
             Scene gameScene = new Scene("BattleScene") {
@@ -119,14 +123,12 @@ public class GameExample {
                     for (GameObject obj : getGameObjects()) {
                         obj.setActive(false);
                     }
-                    getGameObjects().clear();
+                    clear();
                     gridSystem.clear();
                     
-                    // 创建初始葫芦娃
-                    createInitialHuluwas();
-                    
-                    // 重置游戏逻辑
+                    // 重置游戏逻辑（新的随机种子），创建初始葫芦娃
                     gameLogic = new GameLogic(this, gridSystem, entityFactory);
+                    gameLogic.placeInitialHuluwas();
                     
                     // 初始化录制服务
                     recordingService = new RecordingService(RecordingConfig.createDefault());
@@ -134,9 +136,9 @@ public class GameExample {
                     // 切换到游戏状态
                     gameState = GameState.PLAYING;
                     
-                    // 开始录制
+                    // 开始录制（记录种子和步长，可以由输入重新模拟）
                     try {
-                        recordingService.start(this, 800, 600);
+                        recordingService.start(this, 800, 600, gameLogic.getSeed(), engine.getDeltaTime());
                         System.out.println("已开始录制游戏...");
                     } catch (Exception e) {
                         System.err.println("录制启动失败: " + e.getMessage());
@@ -151,39 +153,6 @@ public class GameExample {
                     System.out.println("- 消灭所有妖精获胜！");
                 }
                 
-                /**
-                 * 创建初始葫芦娃（7个葫芦娃）
-                 */
-                private void createInitialHuluwas() {
-                    // 创建七个葫芦娃，放置在中间行
-                    GameObject dawa = entityFactory.createDawa(2, 1);    // 大娃
-                    GameObject erwa = entityFactory.createErwa(2, 2);    // 二娃
-                    GameObject sanwa = entityFactory.createSanwa(2, 3);  // 三娃
-                    GameObject siwa = entityFactory.createSiwa(2, 4);    // 四娃
-                    GameObject wuwa = entityFactory.createWuwa(2, 5);    // 五娃
-                    GameObject liuwa = entityFactory.createLiuwa(2, 6);  // 六娃
-                    GameObject qiwa = entityFactory.createQiwa(2, 7);    // 七娃
-                    
-                    addGameObject(dawa);
-                    addGameObject(erwa);
-                    addGameObject(sanwa);
-                    addGameObject(siwa);
-                    addGameObject(wuwa);
-                    addGameObject(liuwa);
-                    addGameObject(qiwa);
-                    
-                    // 在网格中标记占用
-                    gridSystem.placeObject(2, 1, dawa);
-                    gridSystem.placeObject(2, 2, erwa);
-                    gridSystem.placeObject(2, 3, sanwa);
-                    gridSystem.placeObject(2, 4, siwa);
-                    gridSystem.placeObject(2, 5, wuwa);
-                    gridSystem.placeObject(2, 6, liuwa);
-                    gridSystem.placeObject(2, 7, qiwa);
-                    
-                    System.out.println("已放置7个葫芦娃：大娃、二娃、三娃、四娃、五娃、六娃、七娃");
-                }
-                
                 @Override
                 public void update(float deltaTime) {
                     super.update(deltaTime);
@@ -203,7 +172,7 @@ public class GameExample {
                                 recordingService.update(deltaTime, this, engine.getInputManager());
                             }
                             
-                            // 网络广播：生成JSON关键帧并设置到NetState
+                            // 网络广播：生成快照并设置到NetState
                             broadcastNetworkKeyframe();
                             
                             // 检查R键切换录制状态
@@ -311,56 +280,17 @@ public class GameExample {
                 }
                 
                 /**
-                 * 网络广播：生成JSON关键帧（支持Actor优化开关）
+                 * 网络广播：生成快照（支持Actor优化开关）
                  */
                 private void broadcastNetworkKeyframe() {
                     if (ACTOR_ENABLED) {
                         // Actor优化版 - 异步处理
                         java.util.List<GameObject> snapshot = new java.util.ArrayList<>(getGameObjects());
-                        GameStateSnapshotMessage msg = new GameStateSnapshotMessage(snapshot, gameState.name());
+                        GameStateSnapshotMessage msg = new GameStateSnapshotMessage(snapshot, gameState.name(), netState);
                         ActorSystem.getInstance().send("NetworkBroadcast", msg);
                     } else {
                         // 原始版 - 同步处理
-                        StringBuilder js = new StringBuilder();
-                        js.append('{').append("\"type\":\"kf\",")
-                          .append("\"t\":").append(System.currentTimeMillis()/1000.0).append(',')
-                          .append("\"state\":\"").append(gameState.name()).append("\",")
-                          .append("\"entities\":[");
-                        
-                        boolean first = true;
-                        for (GameObject obj : getGameObjects()) {
-                            if (!obj.isActive()) continue;
-                            
-                            TransformComponent tc = obj.getComponent(TransformComponent.class);
-                            RenderComponent rc = obj.getComponent(RenderComponent.class);
-                            if (tc == null) continue;
-                            
-                            Vector2 p = tc.getPosition();
-                            if (!first) js.append(',');
-                            
-                            String id = obj.getName() + "#" + obj.getInstanceId();
-                            js.append('{')
-                              .append("\"id\":\"").append(id).append("\",")
-                              .append("\"x\":").append((int)p.x).append(',')
-                              .append("\"y\":").append((int)p.y);
-                            
-                            // 添加颜色信息
-                            if (rc != null) {
-                                RenderComponent.Color color = rc.getColor();
-                                js.append(",\"color\":[")
-                                  .append(color.r).append(',')
-                                  .append(color.g).append(',')
-                                  .append(color.b).append(',')
-                                  .append(color.a).append(']');
-                            }
-                            
-                            js.append('}');
-                            first = false;
-                        }
-                        js.append(']').append('}');
-                        
-                        String jsonStr = js.toString();
-                        com.gameengine.net.NetState.setLastKeyframeJson(jsonStr);
+                        netState.setLastKeyframe(NetworkBuffer.Keyframe.capture(getGameObjects(), gameState.name()));
                     }
                 }
                 
@@ -531,7 +461,8 @@ public class GameExample {
                         TransformComponent transform = obj.getComponent(TransformComponent.class);
                         
                         if (health != null && transform != null) {
-                            Vector2 pos = transform.getPosition();
+                            float t = renderer.getInterpolationAlpha();
+                            Vector2 pos = new Vector2(transform.getInterpolatedX(t), transform.getInterpolatedY(t));
                             float healthPercent = health.getHealthPercentage();
                             
                             // 血条位置（在单位上方）
@@ -565,7 +496,8 @@ public class GameExample {
                     if (selected != null && selected.isActive()) {
                         TransformComponent transform = selected.getComponent(TransformComponent.class);
                         if (transform != null) {
-                            Vector2 pos = transform.getPosition();
+                            float t = renderer.getInterpolationAlpha();
+                            Vector2 pos = new Vector2(transform.getInterpolatedX(t), transform.getInterpolatedY(t));
                             float size = 25; // 高亮框大小
                             
                             // 绘制黄色高亮框（闪烁效果）
@@ -7,17 +7,28 @@ import com.gameengine.core.GameObject;
 import com.gameengine.graphics.Renderer;
 import com.gameengine.input.InputManager;
 import com.gameengine.math.Vector2;
-import com.gameengine.recording.FileRecordingStorage;
-import com.gameengine.recording.RecordingJson;
+import com.gameengine.recording.KeyframeWindow;
+import com.gameengine.recording.PlaybackController;
+import com.gameengine.recording.RecordingIndex;
 import com.gameengine.recording.RecordingStorage;
+import com.gameengine.recording.RecordingStorages;
+import com.gameengine.recording.ReplayKeyframe;
+import com.gameengine.recording.ReplayScript;
 import com.gameengine.scene.GridSystem;
 import com.gameengine.scene.Scene;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
 
 /**
  * 回放场景 - 用于播放录制的游戏
+ * 后台线程按录制索引流式解码播放位置附近的关键帧，打开后立即开始播放，
+ * 内存占用与录制长度无关，可以跳转到任意时间
+ * 以种子录制的对局由种子和输入重新模拟（见 ResimulationReplay），关键帧只用于校验；
+ * 启动参数 -Dreplay.mode=keyframes 时仍按关键帧插值播放
+ * 播放控制见 PlaybackController：空格暂停，上下键调速（0.25x–16x），R 倒放，逗号/句号单步，
+ * 左右键或拖动进度条跳转。重新模拟只能向前推进，倒放或跳转时改为关键帧播放。
  */
 public class ReplayScene extends Scene {
     private final GameEngine engine;
@@ -26,22 +37,28 @@ public class ReplayScene extends Scene {
     private InputManager input;
     private float time;
     private GridSystem gridSystem;
+    private PlaybackController playback;
+    private boolean buffering;                     // 所需的段尚未解码，暂停推进
+    private boolean scrubbing;                     // 正在拖动进度条
+    private RecordingStorage storage;
 
-    // 关键帧数据结构
-    private static class Keyframe {
-        static class EntityInfo {
-            Vector2 pos;
-            String rt; // RECTANGLE/CIRCLE
-            float w, h;
-            float r = 1.0f, g = 1.0f, b = 1.0f, a = 1.0f; // 默认白色
-            String id;
-        }
-        double t;
-        List<EntityInfo> entities = new ArrayList<>();
-    }
+    private static final float SEEK_STEP = 5.0f;  // 左右键跳转的秒数
+    private static final float BAR_MARGIN = 40f;  // 进度条左右边距
+    private static final float BAR_HEIGHT = 8f;
+    private static final boolean KEYFRAMES_ONLY = "keyframes".equals(System.getProperty("replay.mode"));
+
+    private KeyframeWindow window;                 // 后台解码的关键帧窗口
+    private ResimulationReplay resim;              // 重新模拟（录制有种子时）
+    private double resimTarget;                    // 上一帧重新模拟到的播放时间
+    private final ReplayKeyframe[] pair = new ReplayKeyframe[2];
+    private final Map<String, Binding> bindings = new HashMap<>();  // 按ID管理对象（只含当前两帧中的实体）
 
-    private final List<Keyframe> keyframes = new ArrayList<>();
-    private final Map<String, GameObject> objectMap = new HashMap<>();  // 按ID管理对象
+    // 当前插值的两帧及其实体对应关系（换帧时计算一次，之后每帧直接使用）
+    private ReplayKeyframe boundA, boundB;
+    private Binding[] boundObjects = new Binding[0];   // b 中各实体的对象
+    private int[] boundLinks = new int[0];             // b 中各实体在 a 中的下标（-1 表示 a 中没有）
+    private int boundCount;
+    private int bindStamp;
 
     // 文件选择模式
     private List<File> recordingFiles;
@@ -67,13 +84,23 @@ public class ReplayScene extends Scene {
         
         // 重置状态
         this.time = 0f;
-        this.keyframes.clear();
-        this.objectMap.clear();
+        this.playback = new PlaybackController();
+        this.buffering = false;
+        this.scrubbing = false;
+        this.bindings.clear();
+        this.boundA = null;
+        this.boundB = null;
+        this.boundCount = 0;
+        this.resim = null;
+        this.resimTarget = 0.0;
+        if (window != null) {
+            window.close();
+            window = null;
+        }
         
         if (recordingPath != null) {
-            // 加载录制文件
+            // 打开录制文件（对象在解码出第一帧后按需创建）
             loadRecording(recordingPath);
-            buildObjectsFromFirstKeyframe();
         } else {
             // 进入文件选择模式
             this.recordingFiles = null;
@@ -97,35 +124,47 @@ public class ReplayScene extends Scene {
             return;
         }
 
-        if (keyframes.isEmpty()) return;
-        
-        // 更新时间
-        time += deltaTime;
-        
-        // 限制在最后关键帧处停止
-        double lastT = keyframes.get(keyframes.size() - 1).t;
-        if (time > lastT) {
-            time = (float) lastT;
-        }
-
-        // 查找当前时间所在的关键帧区间
-        Keyframe a = keyframes.get(0);
-        Keyframe b = keyframes.get(keyframes.size() - 1);
-        for (int i = 0; i < keyframes.size() - 1; i++) {
-            Keyframe k1 = keyframes.get(i);
-            Keyframe k2 = keyframes.get(i + 1);
-            if (time >= k1.t && time <= k2.t) {
-                a = k1;
-                b = k2;
-                break;
+        double end = resim != null ? resim.getScriptEnd()
+            : window != null && window.getIndex() != null ? window.getIndex().getLastTime() : -1;
+        if (end < 0 || (resim == null && window.getIndex().getKeyframeCount() == 0)) return;
+        playback.setEnd(end);
+
+        boolean jumped = handlePlaybackInput();
+        float target = (float) playback.advance(buffering ? 0 : deltaTime);
+
+        if (resim != null) {
+            // 与上一帧的播放时间比较：模拟时间按整步取整，会略早于播放时间
+            if (!jumped && !playback.isReverse() && target >= resimTarget) {
+                // 重新模拟到目标时间（高倍速时一帧推进多个模拟步）
+                playback.setStepSec(engine.getDeltaTime());
+                resim.advanceTo(target);
+                resimTarget = target;
+                time = (float) resim.getTime();
+                return;
             }
+            // 重新模拟只能从头开始，倒放和跳转改用关键帧
+            switchToKeyframes();
         }
+
+        window.setPlaybackRate(playback.getRate());
+        window.setPlayhead(target);
+
+        // 查找目标时间所在的关键帧区间，尚未解码时停在当前画面等待
+        buffering = !window.find(target, pair);
+        if (buffering) return;
+        time = target;
+        ReplayKeyframe a = pair[0];
+        ReplayKeyframe b = pair[1];
         
         // 计算插值参数
         double span = Math.max(1e-6, b.t - a.t);
         double u = Math.min(1.0, Math.max(0.0, (time - a.t) / span));
         
-        // 更新插值位置
+        // 换帧时重新绑定对象，然后原地更新插值位置
+        if (a != boundA || b != boundB) {
+            bind(a, b);
+            if (a != b) playback.setStepSec(span);
+        }
         updateInterpolatedPositions(a, b, (float) u);
     }
 
@@ -149,205 +188,249 @@ public class ReplayScene extends Scene {
         }
         
         // 渲染回放对象
-        super.render();
+        if (resim != null) {
+            resim.getScene().render();
+        } else {
+            super.render();
+        }
         
         // 绘制提示信息
-        String hint = "REPLAY: ESC to return";
-        float w = hint.length() * 12.0f;
-        renderer.drawText(hint, renderer.getWidth() / 2.0f - w / 2.0f, 30, 18, 
+        String hint = "SPACE pause  UP/DOWN speed  R reverse  ,/. step  LEFT/RIGHT seek  ESC return";
+        float w = hint.length() * 8.0f;
+        renderer.drawText(hint, renderer.getWidth() / 2.0f - w / 2.0f, renderer.getHeight() - 12, 14, 
             0.8f, 0.8f, 0.8f, 1.0f);
         
         // 绘制时间信息
-        if (!keyframes.isEmpty()) {
-            double lastT = keyframes.get(keyframes.size() - 1).t;
-            String timeInfo = String.format("Time: %.1fs / %.1fs", time, lastT);
+        RecordingIndex index = window != null ? window.getIndex() : null;
+        if (resim != null || (index != null && index.getKeyframeCount() > 0)) {
+            String mode = resim != null
+                ? String.format("re-simulated, %d checkpoints ok", resim.getVerifiedCheckpoints())
+                : (buffering ? "buffering" : "keyframes");
+            String timeInfo = String.format("Time: %.1fs / %.1fs  %s%sx%s  (%s)", time, playback.getEnd(),
+                playback.isReverse() ? "-" : "", formatSpeed(playback.getSpeed()),
+                playback.isPaused() ? "  PAUSED" : "", mode);
             renderer.drawText(timeInfo, 10, 30, 16, 0.7f, 0.7f, 0.7f, 1.0f);
+            if (resim != null && resim.getDesync() != null) {
+                renderer.drawText("DESYNC " + resim.getDesync(), 10, 54, 16, 1.0f, 0.4f, 0.3f, 1.0f);
+            }
+            renderSeekBar();
+        } else if (window != null) {
+            String status = window.getError() != null ? "Load failed: " + window.getError() : "Loading...";
+            renderer.drawText(status, 10, 30, 16, 0.7f, 0.7f, 0.7f, 1.0f);
         }
     }
 
     /**
-     * 加载录制文件
+     * 处理播放控制输入
+     * @return 是否发生了跳转（左右键、拖动进度条或后退一帧）
+     */
+    private boolean handlePlaybackInput() {
+        boolean jumped = false;
+        if (input.isKeyJustPressed(java.awt.event.KeyEvent.VK_SPACE)) {
+            playback.togglePause();
+        }
+        if (input.isKeyJustPressed(java.awt.event.KeyEvent.VK_UP)) {
+            playback.faster();
+        }
+        if (input.isKeyJustPressed(java.awt.event.KeyEvent.VK_DOWN)) {
+            playback.slower();
+        }
+        if (input.isKeyJustPressed(java.awt.event.KeyEvent.VK_R)) {
+            playback.toggleReverse();
+        }
+        if (input.isKeyJustPressed(java.awt.event.KeyEvent.VK_PERIOD)) {
+            playback.stepForward();
+        }
+        if (input.isKeyJustPressed(java.awt.event.KeyEvent.VK_COMMA)) {
+            playback.stepBackward();
+            jumped = true;
+        }
+        if (input.isKeyJustPressed(java.awt.event.KeyEvent.VK_LEFT)) {
+            playback.seek(time - SEEK_STEP);
+            jumped = true;
+        } else if (input.isKeyJustPressed(java.awt.event.KeyEvent.VK_RIGHT)) {
+            playback.seek(time + SEEK_STEP);
+            jumped = true;
+        }
+
+        // 按下进度条开始拖动，松开前一直跟随鼠标
+        float barY = renderer.getHeight() - BAR_MARGIN;
+        float barW = renderer.getWidth() - 2 * BAR_MARGIN;
+        if (input.isMouseButtonJustPressed(1)) {
+            scrubbing = Math.abs(input.getMouseY() - barY - BAR_HEIGHT / 2) <= 12;
+        } else if (!input.isMouseButtonPressed(1)) {
+            scrubbing = false;
+        }
+        if (scrubbing && barW > 0) {
+            double u = Math.min(1.0, Math.max(0.0, (input.getMouseX() - BAR_MARGIN) / barW));
+            playback.seek(u * playback.getEnd());
+            jumped = true;
+        }
+        return jumped;
+    }
+
+    /**
+     * 绘制进度条
+     */
+    private void renderSeekBar() {
+        float barY = renderer.getHeight() - BAR_MARGIN;
+        float barW = renderer.getWidth() - 2 * BAR_MARGIN;
+        double end = playback.getEnd();
+        float u = end > 0 ? (float) Math.min(1.0, time / end) : 0f;
+        renderer.drawRect(BAR_MARGIN, barY, barW, BAR_HEIGHT, 0.3f, 0.3f, 0.35f, 0.9f);
+        renderer.drawRect(BAR_MARGIN, barY, barW * u, BAR_HEIGHT, 0.4f, 0.7f, 1.0f, 0.9f);
+        renderer.drawRect(BAR_MARGIN + barW * u - 3, barY - 4, 6, BAR_HEIGHT + 8, 1.0f, 1.0f, 1.0f, 1.0f);
+    }
+
+    private static String formatSpeed(double speed) {
+        return speed == Math.rint(speed) ? String.valueOf((int) speed) : String.valueOf(speed);
+    }
+
+    /**
+     * 从重新模拟切换到关键帧播放（保留当前时间）
+     */
+    private void switchToKeyframes() {
+        resim = null;
+        System.out.println("回放改为关键帧播放");
+        window = new KeyframeWindow(storage, recordingPath);
+        window.setPlayhead(playback.getTime());
+        window.start();
+    }
+
+    /**
+     * 打开录制文件：有种子时重新模拟，否则启动后台解码
      */
     private void loadRecording(String path) {
-        keyframes.clear();
-        RecordingStorage storage = new FileRecordingStorage();
-        
-        try {
-            for (String line : storage.readLines(path)) {
-                if (line.contains("\"type\":\"keyframe\"")) {
-                    Keyframe kf = new Keyframe();
-                    kf.t = RecordingJson.parseDouble(RecordingJson.field(line, "t"));
-                    
-                    // 解析entities数组
-                    int idx = line.indexOf("\"entities\":[");
-                    if (idx >= 0) {
-                        int bracket = line.indexOf('[', idx);
-                        String arr = bracket >= 0 ? RecordingJson.extractArray(line, bracket) : "";
-                        String[] parts = RecordingJson.splitTopLevel(arr);
-                        
-                        for (String p : parts) {
-                            Keyframe.EntityInfo ei = new Keyframe.EntityInfo();
-                            ei.id = RecordingJson.stripQuotes(RecordingJson.field(p, "id"));
-                            double x = RecordingJson.parseDouble(RecordingJson.field(p, "x"));
-                            double y = RecordingJson.parseDouble(RecordingJson.field(p, "y"));
-                            ei.pos = new Vector2((float) x, (float) y);
-                            
-                            String rt = RecordingJson.stripQuotes(RecordingJson.field(p, "rt"));
-                            ei.rt = rt;
-                            ei.w = (float) RecordingJson.parseDouble(RecordingJson.field(p, "w"));
-                            ei.h = (float) RecordingJson.parseDouble(RecordingJson.field(p, "h"));
-                            
-                            // 解析颜色
-                            String colorArr = RecordingJson.field(p, "color");
-                            if (colorArr != null && colorArr.startsWith("[")) {
-                                String c = colorArr.substring(1, Math.max(1, colorArr.indexOf(']', 1)));
-                                String[] cs = c.split(",");
-                                if (cs.length >= 3) {
-                                    try {
-                                        ei.r = Float.parseFloat(cs[0].trim());
-                                        ei.g = Float.parseFloat(cs[1].trim());
-                                        ei.b = Float.parseFloat(cs[2].trim());
-                                        if (cs.length >= 4) ei.a = Float.parseFloat(cs[3].trim());
-                                    } catch (Exception ignored) {}
-                                }
-                            }
-                            
-                            kf.entities.add(ei);
-                        }
-                    }
-                    keyframes.add(kf);
+        storage = RecordingStorages.forPath(path);
+        if (!KEYFRAMES_ONLY) {
+            try {
+                ReplayScript script = ReplayScript.load(storage, path);
+                if (script != null) {
+                    resim = new ResimulationReplay(script, renderer);
+                    return;
                 }
-            }
-        } catch (Exception e) {
-            System.err.println("加载录制文件失败: " + e.getMessage());
-            e.printStackTrace();
-        }
-        
-        // 按时间排序
-        keyframes.sort(Comparator.comparingDouble(k -> k.t));
-        System.out.println("加载了 " + keyframes.size() + " 个关键帧");
-        if (!keyframes.isEmpty()) {
-            Keyframe first = keyframes.get(0);
-            System.out.println("第一帧包含 " + first.entities.size() + " 个实体");
-            for (Keyframe.EntityInfo ei : first.entities) {
-                System.out.println("  - " + ei.id + " at (" + ei.pos.x + ", " + ei.pos.y + ") " + ei.rt + " [" + ei.r + "," + ei.g + "," + ei.b + "]");
+            } catch (IOException e) {
+                System.err.println("读取回放脚本失败，按关键帧播放: " + e.getMessage());
             }
         }
+        window = new KeyframeWindow(storage, path);
+        window.setPlayhead(0);
+        window.start();
     }
 
     /**
-     * 从第一个关键帧构建对象
+     * 回放对象及其组件（绑定时查找一次）
      */
-    private void buildObjectsFromFirstKeyframe() {
-        if (keyframes.isEmpty()) return;
-        
-        Keyframe kf0 = keyframes.get(0);
-        objectMap.clear();
-        clear();
-        
-        for (int i = 0; i < kf0.entities.size(); i++) {
-            Keyframe.EntityInfo ei = kf0.entities.get(i);
-            GameObject obj = buildObjectFromEntity(ei, i);
-            addGameObject(obj);
-            objectMap.put(ei.id, obj);
+    private static final class Binding {
+        final GameObject obj;
+        final TransformComponent transform;
+        final RenderComponent render;
+        int stamp;
+
+        Binding(GameObject obj) {
+            this.obj = obj;
+            this.transform = obj.getComponent(TransformComponent.class);
+            this.render = obj.getComponent(RenderComponent.class);
         }
-        
-        time = 0f;
     }
 
     /**
-     * 更新插值位置（按ID匹配实体）
+     * 绑定新的一对关键帧：为两帧中的实体找到（或创建）对象，更新渲染信息，
+     * 隐藏不在两帧中的对象。只出现在一帧中的实体停在该帧的位置。
      */
-    private void updateInterpolatedPositions(Keyframe a, Keyframe b, float u) {
-        // 收集两帧中所有实体ID
-        Set<String> allIds = new HashSet<>();
-        Map<String, Keyframe.EntityInfo> mapA = new HashMap<>();
-        Map<String, Keyframe.EntityInfo> mapB = new HashMap<>();
-        
-        for (Keyframe.EntityInfo ei : a.entities) {
-            mapA.put(ei.id, ei);
-            allIds.add(ei.id);
+    private void bind(ReplayKeyframe a, ReplayKeyframe b) {
+        int n = b.entities.size();
+        int[] links = a == b ? null : b.indexIn(a);
+        if (a != b && links == null) {
+            // 两帧不是解码时相邻的帧（例如跳转后从不同段开始解码），按ID匹配
+            links = matchById(a, b);
         }
-        for (Keyframe.EntityInfo ei : b.entities) {
-            mapB.put(ei.id, ei);
-            allIds.add(ei.id);
+        if (boundObjects.length < n) {
+            boundObjects = new Binding[n];
+            boundLinks = new int[n];
         }
-        
-        // 逐个处理实体
-        for (String id : allIds) {
-            Keyframe.EntityInfo eiA = mapA.get(id);
-            Keyframe.EntityInfo eiB = mapB.get(id);
-            
-            // 如果对象不存在，创建它
-            if (!objectMap.containsKey(id)) {
-                // 使用eiA或eiB来创建（优先eiA）
-                Keyframe.EntityInfo template = eiA != null ? eiA : eiB;
-                if (template != null) {
-                    GameObject obj = buildObjectFromEntity(template, objectMap.size());
-                    addGameObject(obj);
-                    objectMap.put(id, obj);
-                }
-            }
-            
-            GameObject obj = objectMap.get(id);
-            if (obj == null) continue;
-            
-            // 选择要使用的EntityInfo（优先使用B帧以获取最新数据）
-            Keyframe.EntityInfo currentInfo = eiB != null ? eiB : eiA;
-            
-            // 如果实体在两帧中都存在，进行插值
-            if (eiA != null && eiB != null) {
-                float x = (1.0f - u) * eiA.pos.x + u * eiB.pos.x;
-                float y = (1.0f - u) * eiA.pos.y + u * eiB.pos.y;
-                
-                TransformComponent tc = obj.getComponent(TransformComponent.class);
-                if (tc != null) {
-                    tc.setPosition(new Vector2(x, y));
-                }
-                
-                // 更新渲染信息（颜色、大小）
-                updateRenderComponent(obj, currentInfo);
-                obj.setActive(true);
-            }
-            // 如果只在帧A中存在（正在消失）
-            else if (eiA != null) {
-                TransformComponent tc = obj.getComponent(TransformComponent.class);
-                if (tc != null) {
-                    tc.setPosition(new Vector2(eiA.pos));
-                }
-                
-                // 更新渲染信息
-                updateRenderComponent(obj, eiA);
-                obj.setActive(true);
-            }
-            // 如果只在帧B中存在（正在出现）
-            else if (eiB != null) {
-                TransformComponent tc = obj.getComponent(TransformComponent.class);
-                if (tc != null) {
-                    tc.setPosition(new Vector2(eiB.pos));
-                }
-                
-                // 更新渲染信息
-                updateRenderComponent(obj, eiB);
-                obj.setActive(true);
+        int stamp = ++bindStamp;
+        boolean[] linkedA = new boolean[a.entities.size()];
+        for (int i = 0; i < n; i++) {
+            ReplayKeyframe.EntityInfo ei = b.entities.get(i);
+            int j = links == null ? i : links[i];
+            Binding binding = bindingFor(ei, stamp);
+            boundObjects[i] = binding;
+            boundLinks[i] = j;
+            if (j >= 0) {
+                linkedA[j] = true;
+            } else {
+                binding.transform.setPosition(ei.pos.x, ei.pos.y);
             }
+            updateRenderComponent(binding, ei);
         }
-        
-        // 隐藏不在当前帧中的对象
-        for (Map.Entry<String, GameObject> entry : objectMap.entrySet()) {
-            if (!allIds.contains(entry.getKey())) {
-                entry.getValue().setActive(false);
+        for (int j = 0; j < linkedA.length; j++) {
+            if (linkedA[j]) continue;
+            // 只在帧A中存在（正在消失）
+            ReplayKeyframe.EntityInfo ei = a.entities.get(j);
+            Binding binding = bindingFor(ei, stamp);
+            binding.transform.setPosition(ei.pos.x, ei.pos.y);
+            updateRenderComponent(binding, ei);
+        }
+        // 隐藏不在这两帧中的对象（失活的对象由场景移除）
+        Iterator<Binding> it = bindings.values().iterator();
+        while (it.hasNext()) {
+            Binding binding = it.next();
+            if (binding.stamp != stamp) {
+                binding.obj.setActive(false);
+                it.remove();
             }
         }
+        boundA = a;
+        boundB = b;
+        boundCount = n;
+    }
+
+    private Binding bindingFor(ReplayKeyframe.EntityInfo ei, int stamp) {
+        Binding binding = bindings.get(ei.id);
+        if (binding == null) {
+            GameObject obj = buildObjectFromEntity(ei, bindings.size());
+            addGameObject(obj);
+            binding = new Binding(obj);
+            bindings.put(ei.id, binding);
+        }
+        binding.stamp = stamp;
+        return binding;
+    }
+
+    private static int[] matchById(ReplayKeyframe a, ReplayKeyframe b) {
+        Map<String, Integer> index = new HashMap<>(a.entities.size() * 2);
+        for (int j = 0; j < a.entities.size(); j++) {
+            index.put(a.entities.get(j).id, j);
+        }
+        int[] links = new int[b.entities.size()];
+        for (int i = 0; i < links.length; i++) {
+            Integer j = index.get(b.entities.get(i).id);
+            links[i] = j != null ? j : -1;
+        }
+        return links;
+    }
+
+    /**
+     * 更新插值位置（只处理两帧中都存在的实体，原地修改位置）
+     */
+    private void updateInterpolatedPositions(ReplayKeyframe a, ReplayKeyframe b, float u) {
+        for (int i = 0; i < boundCount; i++) {
+            int j = boundLinks[i];
+            if (j < 0) continue;
+            Vector2 pa = a.entities.get(j).pos;
+            Vector2 pb = b.entities.get(i).pos;
+            boundObjects[i].transform.setPosition((1.0f - u) * pa.x + u * pb.x, (1.0f - u) * pa.y + u * pb.y);
+        }
     }
 
     /**
      * 更新对象的渲染组件（颜色、大小等）
      */
-    private void updateRenderComponent(GameObject obj, Keyframe.EntityInfo ei) {
-        RenderComponent rc = obj.getComponent(RenderComponent.class);
+    private void updateRenderComponent(Binding binding, ReplayKeyframe.EntityInfo ei) {
+        RenderComponent rc = binding.render;
         if (rc == null) {
-            System.err.println("警告: 对象 " + obj.getName() + " 没有RenderComponent!");
+            System.err.println("警告: 对象 " + binding.obj.getName() + " 没有RenderComponent!");
             return;
         }
         
@@ -357,29 +440,19 @@ public class ReplayScene extends Scene {
         }
         
         // 更新颜色
-        rc.setColor(new RenderComponent.Color(ei.r, ei.g, ei.b, ei.a));
+        rc.setColor(ei.r, ei.g, ei.b, ei.a);
         
         // 更新大小
         float width = Math.max(1, ei.w > 0 ? ei.w : 30);
         float height = Math.max(1, ei.h > 0 ? ei.h : 30);
         rc.setSize(new Vector2(width, height));
-        
-        // 更新渲染类型（如果需要）
-        if (ei.rt != null) {
-            RenderComponent.RenderType newType = "CIRCLE".equals(ei.rt) 
-                ? RenderComponent.RenderType.CIRCLE 
-                : RenderComponent.RenderType.RECTANGLE;
-            if (rc.getRenderType() != newType) {
-                // 如果类型改变了，需要重新创建RenderComponent
-                // 这里简单处理，保持原类型
-            }
-        }
+        binding.obj.setActive(true);
     }
 
     /**
      * 从实体信息构建游戏对象
      */
-    private GameObject buildObjectFromEntity(Keyframe.EntityInfo ei, int index) {
+    private GameObject buildObjectFromEntity(ReplayKeyframe.EntityInfo ei, int index) {
         String name = ei.id != null ? ei.id : ("ReplayObj#" + index);
         GameObject obj = new GameObject(name);
         
@@ -430,8 +503,7 @@ public class ReplayScene extends Scene {
      */
     private void ensureFilesListed() {
         if (recordingFiles != null) return;
-        RecordingStorage storage = new FileRecordingStorage();
-        recordingFiles = storage.listRecordings();
+        recordingFiles = RecordingStorages.listRecordings();
     }
 
     /**
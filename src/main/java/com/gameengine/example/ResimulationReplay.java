@@ -0,0 +1,177 @@
+package com.gameengine.example;
+
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameLogic;
+import com.gameengine.core.GameObject;
+import com.gameengine.entities.EntityFactory;
+import com.gameengine.graphics.Renderer;
+import com.gameengine.input.InputManager;
+import com.gameengine.recording.FixedPointWriter;
+import com.gameengine.recording.ReplayKeyframe;
+import com.gameengine.recording.ReplayScript;
+import com.gameengine.scene.GridSystem;
+import com.gameengine.scene.Scene;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 由种子和输入重新模拟录制的对局
+ * 与游戏中相同的开局布置和 GameLogic，以录制时的固定步长推进，每步注入录制的输入；
+ * 模拟到校验点（录制的完整快照）时比较所有实体的位置，不一致时记录为不同步。
+ * 只能向前推进，向后跳转时从头重新模拟。
+ */
+public class ResimulationReplay {
+    private final ReplayScript script;
+    private final Renderer renderer;
+    private final FixedPointWriter fmt;
+
+    private Scene scene;
+    private GridSystem gridSystem;
+    private GameLogic logic;
+    private InputManager input;
+    private long tick;
+    private double elapsed;
+    private int nextInput;
+    private int nextCheckpoint;
+    private int verified;
+    private String desync;
+
+    public ResimulationReplay(ReplayScript script, Renderer renderer) {
+        this.script = script;
+        this.renderer = renderer;
+        this.fmt = new FixedPointWriter(script.getDecimals());
+        reset();
+    }
+
+    /**
+     * 回到对局开始
+     */
+    public void reset() {
+        scene = new Scene("Resimulation");
+        scene.initialize();
+        gridSystem = new GridSystem();
+        input = InputManager.detached();
+        logic = new GameLogic(scene, gridSystem, new EntityFactory(gridSystem, renderer), input, script.getSeed());
+        logic.placeInitialHuluwas();
+        tick = 0;
+        elapsed = 0.0;
+        nextInput = 0;
+        nextCheckpoint = 0;
+        verified = 0;
+        desync = null;
+    }
+
+    /**
+     * 推进到时间t之前的最后一个模拟步（早于当前时间时从头重新模拟）
+     */
+    public void advanceTo(double t) {
+        // 向下取整，不会越过t；加一点余量避免整步时间因浮点误差少算一步
+        long target = Math.max(0, (long) Math.floor(t / script.getStepSec() + 1e-6));
+        if (target < tick) {
+            reset();
+        }
+        while (tick < target) {
+            step();
+        }
+    }
+
+    /**
+     * 推进一个模拟步（顺序与 GameEngine 的模拟步一致）
+     */
+    public void step() {
+        tick++;
+        List<ReplayScript.Input> inputs = script.getInputs();
+        while (nextInput < inputs.size() && inputs.get(nextInput).tick <= tick) {
+            ReplayScript.Input in = inputs.get(nextInput++);
+            if (in.tick < tick) continue;
+            for (int key : in.keys) {
+                input.onKeyPressed(key);
+                input.onKeyReleased(key);
+            }
+            if (in.click) {
+                input.onMouseMoved(in.clickX, in.clickY);
+                input.onMousePressed(1);
+                input.onMouseReleased(1);
+            }
+        }
+        input.pollEvents();
+        scene.savePreviousTransforms();
+        scene.update(script.getStepSec());
+        logic.update(script.getStepSec());
+        input.update();
+        elapsed += script.getStepSec();
+        verifyCheckpoints();
+    }
+
+    /**
+     * 比较与当前模拟步对应的校验点（实体ID中的实例序号每次运行不同，只比较名称和位置）
+     */
+    private void verifyCheckpoints() {
+        List<ReplayKeyframe> checkpoints = script.getCheckpoints();
+        double half = script.getStepSec() / 2.0;
+        while (nextCheckpoint < checkpoints.size() && checkpoints.get(nextCheckpoint).t < elapsed + half) {
+            ReplayKeyframe kf = checkpoints.get(nextCheckpoint++);
+            if (kf.t < elapsed - half) continue;  // 录制开始前或已跳过的校验点
+            List<String> expected = new ArrayList<>(kf.entities.size());
+            for (ReplayKeyframe.EntityInfo ei : kf.entities) {
+                int hash = ei.id.lastIndexOf('#');
+                String name = hash >= 0 ? ei.id.substring(0, hash) : ei.id;
+                expected.add(name + "|" + fmt.format(ei.pos.x) + "|" + fmt.format(ei.pos.y));
+            }
+            List<String> actual = new ArrayList<>();
+            for (GameObject obj : scene.getGameObjects()) {
+                if (!obj.isActive()) continue;
+                TransformComponent tc = obj.getComponent(TransformComponent.class);
+                if (tc == null) continue;
+                actual.add(obj.getName() + "|" + fmt.format(tc.getX()) + "|" + fmt.format(tc.getY()));
+            }
+            Collections.sort(expected);
+            Collections.sort(actual);
+            if (expected.equals(actual)) {
+                verified++;
+            } else if (desync == null) {
+                desync = String.format("t=%.2f: expected %d entities, simulated %d",
+                    kf.t, expected.size(), actual.size());
+                System.err.println("回放不同步 " + desync);
+            }
+        }
+    }
+
+    /**
+     * 模拟的场景（渲染用）
+     */
+    public Scene getScene() {
+        return scene;
+    }
+
+    public GridSystem getGridSystem() {
+        return gridSystem;
+    }
+
+    public double getTime() {
+        return elapsed;
+    }
+
+    /**
+     * 录制的结束时间
+     */
+    public double getScriptEnd() {
+        return script.getLastTime();
+    }
+
+    /**
+     * 已通过的校验点数
+     */
+    public int getVerifiedCheckpoints() {
+        return verified;
+    }
+
+    /**
+     * 第一次不同步的描述，没有不同步时返回null
+     */
+    public String getDesync() {
+        return desync;
+    }
+}
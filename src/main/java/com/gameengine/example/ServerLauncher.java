@@ -1,42 +1,67 @@
 package com.gameengine.example;
 
-import com.gameengine.core.GameEngine;
+import com.gameengine.graphics.NullRenderer;
+import com.gameengine.graphics.Renderer;
+import com.gameengine.match.MatchManager;
 import com.gameengine.net.NioServer;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
- * 服务器启动器 - 运行游戏服务器并接受客户端连接
+ * 服务器启动器 - 无界面托管多个对局并接受客户端连接
+ * 不创建窗口，可以在没有显示环境的Linux服务器上运行。
+ * 客户端JOIN时指定对局ID（省略时进入默认对局），对局在首次加入时创建，没有客户端一段时间后回收。
+ * 客户端只能加入 -Dmatch.ids 列出的对局（逗号分隔，默认只有 default）。
+ *
+ * 用法: java [-Dmatch.ids=default,room1,...] -cp build/classes com.gameengine.example.ServerLauncher [工作线程数] [最大对局数] [网络I/O线程数]
  */
 public class ServerLauncher {
     public static void main(String[] args) {
+        int workers = Runtime.getRuntime().availableProcessors();
+        int maxMatches = 256;
+        int ioThreads = Integer.getInteger("net.reactors", Runtime.getRuntime().availableProcessors());
+        if (args.length >= 1) {
+            workers = Integer.parseInt(args[0]);
+        }
+        if (args.length >= 2) {
+            maxMatches = Integer.parseInt(args[1]);
+        }
+        if (args.length >= 3) {
+            ioThreads = Integer.parseInt(args[2]);
+        }
+        List<String> matchIds = new ArrayList<>();
+        for (String id : System.getProperty("match.ids", NioServer.DEFAULT_MATCH_ID).split(",")) {
+            if (!id.trim().isEmpty()) {
+                matchIds.add(id.trim());
+            }
+        }
+        
         System.out.println("======================");
         System.out.println("葫芦娃大战妖精 - 服务器");
         System.out.println("======================");
         
-        // 启动NIO服务器（端口7777）
-        NioServer server = new NioServer(7777);
+        // 所有对局共用一个无界面渲染器
+        Renderer renderer = new NullRenderer(800, 600, "葫芦娃大战妖精 [服务器]");
+        MatchManager matchManager = new MatchManager(workers, 1.0f / 60.0f, maxMatches, matchIds,
+                (matchId, netState) -> new ServerScene(renderer, netState));
+        System.out.println("✓ 对局管理器已启动（工作线程: " + workers + "，最大对局数: " + maxMatches + "）");
+        System.out.println("  开放的对局: " + matchIds);
+        
+        // 启动NIO服务器（端口7777），按JOIN中的对局ID路由客户端
+        NioServer server = new NioServer(7777, matchManager::resolve, ioThreads);
         server.start();
-        System.out.println("✓ 服务器已启动，监听端口: 7777");
+        System.out.println("✓ 服务器已启动，监听端口: 7777（网络I/O线程: " + ioThreads + "）");
         System.out.println("  等待客户端连接...");
         
+        Runtime.getRuntime().addShutdownHook(new Thread(matchManager::shutdown, "match-shutdown"));
+        
         try {
-            // 创建游戏引擎并运行游戏（直接使用GameExample的main逻辑）
-            GameEngine engine = new GameEngine(800, 600, "葫芦娃大战妖精 [服务器]");
-            
-            // 这里需要手动创建一个场景，暂时使用简单方式
-            // TODO: 将来可以提取GameExample的场景逻辑
-            System.out.println("✓ 游戏引擎已启动");
-            System.out.println();
-            System.out.println("操作说明：");
-            System.out.println("  - 请直接运行 GameExample 作为服务器");
-            System.out.println("  - 此启动器仅用于演示，实际使用时在GameExample启动时会自动启动服务器");
-            System.out.println();
-            
-            // 简单等待，不运行完整游戏
             System.out.println("服务器运行中，按Ctrl+C停止...");
-            Thread.sleep(Long.MAX_VALUE);
-        } catch (Exception e) {
-            System.err.println("服务器启动失败: " + e.getMessage());
-            e.printStackTrace();
+            matchManager.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } finally {
             server.stop();
             System.out.println("服务器已关闭");
@@ -0,0 +1,78 @@
+package com.gameengine.example;
+
+import com.gameengine.core.GameLogic;
+import com.gameengine.core.GameObject;
+import com.gameengine.entities.EntityFactory;
+import com.gameengine.graphics.Renderer;
+import com.gameengine.net.NetState;
+import com.gameengine.net.NetworkBuffer;
+import com.gameengine.scene.GridSystem;
+import com.gameengine.scene.Scene;
+
+/**
+ * 服务器场景
+ * 无界面运行权威的对战逻辑：自动开局、结束后自动重开，
+ * 并把快照写入本对局的NetState，由NioServer编码后广播给加入该对局的客户端
+ */
+public class ServerScene extends Scene {
+    private static final float BROADCAST_INTERVAL = 0.05f;  // 20Hz，与NioServer广播频率一致
+    private static final float RESTART_DELAY = 5.0f;        // 对局结束后重开的等待时间（秒）
+
+    private final Renderer renderer;
+    private final NetState netState;
+    private GridSystem gridSystem;
+    private EntityFactory entityFactory;
+    private GameLogic gameLogic;
+    private float broadcastTimer = 0;
+    private float restartTimer = 0;
+
+    public ServerScene(Renderer renderer, NetState netState) {
+        super("ServerScene");
+        this.renderer = renderer;
+        this.netState = netState;
+    }
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        this.gridSystem = new GridSystem();
+        this.entityFactory = new EntityFactory(gridSystem, renderer);
+        startNewGame();
+    }
+
+    /**
+     * 开始新的一局
+     */
+    private void startNewGame() {
+        for (GameObject obj : getGameObjects()) {
+            obj.setActive(false);
+        }
+        gridSystem.clear();
+
+        // 与单机模式相同的开局布置
+        gameLogic = new GameLogic(this, gridSystem, entityFactory);
+        gameLogic.placeInitialHuluwas();
+        restartTimer = 0;
+        System.out.println("[服务器] 新对局开始");
+    }
+
+    @Override
+    public void update(float deltaTime) {
+        super.update(deltaTime);
+
+        if (gameLogic.getGameState() == GameLogic.GameState.PLAYING) {
+            gameLogic.update(deltaTime);
+        } else {
+            restartTimer += deltaTime;
+            if (restartTimer >= RESTART_DELAY) {
+                startNewGame();
+            }
+        }
+
+        broadcastTimer += deltaTime;
+        if (broadcastTimer >= BROADCAST_INTERVAL) {
+            broadcastTimer = 0;
+            netState.setLastKeyframe(NetworkBuffer.Keyframe.capture(getGameObjects(), gameLogic.getGameState().name()));
+        }
+    }
+}
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 网络性能压力测试工具
@@ -22,6 +23,7 @@ public class StressTest {
     private static final AtomicInteger connectedCount = new AtomicInteger(0);
     private static final AtomicInteger failedCount = new AtomicInteger(0);
     private static final AtomicInteger totalFramesReceived = new AtomicInteger(0);
+    private static final AtomicLong totalBytesReceived = new AtomicLong(0);
     
     /**
      * 模拟客户端线程
@@ -29,10 +31,12 @@ public class StressTest {
     static class SimulatedClient implements Runnable {
         private final int clientId;
         private final boolean verbose;
+        private final String matchId;
         
-        public SimulatedClient(int clientId, boolean verbose) {
+        public SimulatedClient(int clientId, boolean verbose, String matchId) {
             this.clientId = clientId;
             this.verbose = verbose;
+            this.matchId = matchId;
         }
         
         @Override
@@ -51,7 +55,7 @@ public class StressTest {
                     return;
                 }
                 
-                boolean joined = client.join("StressClient" + clientId);
+                boolean joined = client.join("StressClient" + clientId, matchId);
                 
                 if (!joined) {
                     if (verbose) {
@@ -63,15 +67,23 @@ public class StressTest {
                 
                 connectedCount.incrementAndGet();
                 if (verbose) {
-                    System.out.println("[Client-" + clientId + "] 已连接");
+                    System.out.println("[Client-" + clientId + "] 已连接" + (matchId != null ? "（对局 " + matchId + "）" : ""));
                 }
                 
+                // 启动接收循环，关键帧写入该客户端自己的缓冲区
+                client.startReceiveLoop();
+                
                 // 持续接收数据
                 long startTime = System.currentTimeMillis();
                 int frameCount = 0;
+                long lastBytes = 0;
                 
                 while (true) {
-                    NetworkBuffer.Keyframe kf = NetworkBuffer.sampleKeyframe();
+                    long bytes = client.getBytesReceived();
+                    totalBytesReceived.addAndGet(bytes - lastBytes);
+                    lastBytes = bytes;
+                    
+                    NetworkBuffer.Keyframe kf = client.getNetworkBuffer().sampleKeyframe();
                     if (kf != null) {
                         frameCount++;
                         totalFramesReceived.incrementAndGet();
@@ -105,10 +117,13 @@ public class StressTest {
     static class MonitorThread implements Runnable {
         private final int totalClients;
         private final long startTime;
+        private long lastBytes;
+        private long lastTime;
         
         public MonitorThread(int totalClients) {
             this.totalClients = totalClients;
             this.startTime = System.currentTimeMillis();
+            this.lastTime = startTime;
         }
         
         @Override
@@ -121,14 +136,21 @@ public class StressTest {
                     int connected = connectedCount.get();
                     int failed = failedCount.get();
                     int totalFrames = totalFramesReceived.get();
+                    long now = System.currentTimeMillis();
+                    long bytes = totalBytesReceived.get();
+                    double kbPerSec = (bytes - lastBytes) / 1024.0 / Math.max(1e-3, (now - lastTime) / 1000.0);
+                    lastBytes = bytes;
+                    lastTime = now;
                     
                     System.out.println("\n========== 压力测试统计 (运行时间: " + elapsed + "秒) ==========");
                     System.out.println("目标客户端数: " + totalClients);
                     System.out.println("成功连接: " + connected);
                     System.out.println("连接失败: " + failed);
                     System.out.println("总接收帧数: " + totalFrames);
+                    System.out.printf("总接收流量: %.1f KB（最近 %.1f KB/s）%n", bytes / 1024.0, kbPerSec);
                     if (connected > 0) {
                         System.out.println("平均每客户端帧数: " + (totalFrames / connected));
+                        System.out.printf("平均每客户端流量: %.2f KB/s%n", kbPerSec / connected);
                     }
                     System.out.println("=======================================================\n");
                 }
@@ -143,6 +165,7 @@ public class StressTest {
         int numClients = 10; // 默认10个客户端
         boolean verbose = false;
         int delayMs = 100; // 客户端启动间隔（毫秒）
+        int numMatches = 0; // 客户端分散到的对局数（0表示都进入默认对局）
         
         for (int i = 0; i < args.length; i++) {
             switch (args[i]) {
@@ -162,6 +185,12 @@ public class StressTest {
                         delayMs = Integer.parseInt(args[++i]);
                     }
                     break;
+                case "-m":
+                case "--matches":
+                    if (i + 1 < args.length) {
+                        numMatches = Integer.parseInt(args[++i]);
+                    }
+                    break;
                 case "-h":
                 case "--help":
                     printUsage();
@@ -175,6 +204,7 @@ public class StressTest {
         System.out.println("服务器地址: " + SERVER_HOST + ":" + SERVER_PORT);
         System.out.println("客户端数量: " + numClients);
         System.out.println("启动间隔: " + delayMs + "ms");
+        System.out.println("对局数量: " + (numMatches > 0 ? numMatches : "默认对局"));
         System.out.println("详细输出: " + (verbose ? "开启" : "关闭"));
         System.out.println("========================================\n");
         
@@ -187,7 +217,8 @@ public class StressTest {
         // 逐个启动客户端
         List<SimulatedClient> clients = new ArrayList<>();
         for (int i = 0; i < numClients; i++) {
-            SimulatedClient client = new SimulatedClient(i + 1, verbose);
+            String matchId = numMatches > 0 ? "match-" + (i % numMatches) : null;
+            SimulatedClient client = new SimulatedClient(i + 1, verbose, matchId);
             clients.add(client);
             executor.submit(client);
             
@@ -220,6 +251,8 @@ public class StressTest {
         System.out.println("选项:");
         System.out.println("  -n, --clients <数量>   模拟客户端数量 (默认: 10)");
         System.out.println("  -d, --delay <毫秒>     客户端启动间隔 (默认: 100ms)");
+        System.out.println("  -m, --matches <数量>   把客户端轮流分配到多个对局 (默认: 全部进入默认对局)");
+        System.out.println("                         对局ID为 match-0 ... match-<数量-1>，服务器需用 -Dmatch.ids 开放");
         System.out.println("  -v, --verbose          显示详细输出");
         System.out.println("  -h, --help             显示此帮助信息");
         System.out.println();
@@ -0,0 +1,81 @@
+package com.gameengine.graphics;
+
+/**
+ * 空渲染器
+ * 不创建窗口、不绘制任何内容，用于无显示环境下运行的服务器
+ */
+public class NullRenderer implements Renderer {
+    private final int width;
+    private final int height;
+    private final String title;
+    private volatile boolean closed;
+
+    public NullRenderer(int width, int height, String title) {
+        this.width = width;
+        this.height = height;
+        this.title = title;
+        this.closed = false;
+    }
+
+    @Override
+    public void beginFrame() {
+    }
+
+    @Override
+    public void endFrame() {
+    }
+
+    @Override
+    public void drawRect(float x, float y, float width, float height, float r, float g, float b, float a) {
+    }
+
+    @Override
+    public void drawCircle(float x, float y, float radius, int segments, float r, float g, float b, float a) {
+    }
+
+    @Override
+    public void drawLine(float x1, float y1, float x2, float y2, float r, float g, float b, float a) {
+    }
+
+    @Override
+    public void drawText(String text, float x, float y, int fontSize, float r, float g, float b, float a) {
+    }
+
+    @Override
+    public boolean shouldClose() {
+        return closed;
+    }
+
+    @Override
+    public void pollEvents() {
+    }
+
+    @Override
+    public void cleanup() {
+        closed = true;
+    }
+
+    @Override
+    public void setInterpolationAlpha(float alpha) {
+    }
+
+    @Override
+    public float getInterpolationAlpha() {
+        return 1.0f;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+}
@@ -0,0 +1,363 @@
+package com.gameengine.graphics;
+
+import com.gameengine.input.InputManager;
+import com.gameengine.math.Vector2;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于Swing窗口的渲染器
+ * 渲染循环由Swing定时器驱动，在事件线程上绘制；停止和关闭窗口可以在任意线程调用，统一转到事件线程执行。
+ */
+public class SwingRenderer extends JFrame implements Renderer {
+    private int width;
+    private int height;
+    private String title;
+    private GamePanel gamePanel;
+    private InputManager inputManager;
+    private volatile float interpolationAlpha = 1.0f;  // 渲染插值系数
+    private Timer renderTimer;  // 渲染定时器（只在事件线程上访问）
+    
+    public SwingRenderer(int width, int height, String title) {
+        this.width = width;
+        this.height = height;
+        this.title = title;
+        this.inputManager = InputManager.getInstance();
+        
+        initialize();
+    }
+    
+    private void initialize() {
+        setTitle(title);
+        setSize(width, height);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+        setResizable(false);
+        
+        gamePanel = new GamePanel();
+        add(gamePanel);
+        
+        setupInput();
+        
+        setVisible(true);
+        
+        // 确保窗口获得焦点以接收键盘输入
+        setFocusable(true);
+        requestFocusInWindow();
+    }
+    
+    private void setupInput() {
+        // 键盘输入
+        addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                inputManager.onKeyPressed(e.getKeyCode());
+            }
+            
+            @Override
+            public void keyReleased(KeyEvent e) {
+                inputManager.onKeyReleased(e.getKeyCode());
+            }
+        });
+        
+        // 鼠标输入
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                inputManager.onMousePressed(e.getButton());
+            }
+            
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                inputManager.onMouseReleased(e.getButton());
+            }
+        });
+        
+        addMouseMotionListener(new MouseAdapter() {
+            @Override
+            public void mouseMoved(MouseEvent e) {
+                inputManager.onMouseMoved(e.getX(), e.getY());
+            }
+        });
+        
+        setFocusable(true);
+        requestFocusInWindow();
+    }
+    
+    /**
+     * 开始渲染帧
+     */
+    @Override
+    public void beginFrame() {
+        gamePanel.clear();
+    }
+    
+    /**
+     * 结束渲染帧
+     */
+    @Override
+    public void endFrame() {
+        gamePanel.repaint();
+    }
+    
+    /**
+     * 绘制矩形
+     */
+    @Override
+    public void drawRect(float x, float y, float width, float height, float r, float g, float b, float a) {
+        gamePanel.addDrawable(new RectDrawable(x, y, width, height, r, g, b, a));
+    }
+    
+    /**
+     * 绘制圆形
+     */
+    @Override
+    public void drawCircle(float x, float y, float radius, int segments, float r, float g, float b, float a) {
+        gamePanel.addDrawable(new CircleDrawable(x, y, radius, r, g, b, a));
+    }
+    
+    /**
+     * 绘制线条
+     */
+    @Override
+    public void drawLine(float x1, float y1, float x2, float y2, float r, float g, float b, float a) {
+        gamePanel.addDrawable(new LineDrawable(x1, y1, x2, y2, r, g, b, a));
+    }
+    
+    /**
+     * 绘制文字
+     */
+    @Override
+    public void drawText(String text, float x, float y, int fontSize, float r, float g, float b, float a) {
+        gamePanel.addDrawable(new TextDrawable(text, x, y, fontSize, r, g, b, a));
+    }
+    
+    /**
+     * 检查窗口是否应该关闭
+     */
+    @Override
+    public boolean shouldClose() {
+        return !isVisible();
+    }
+    
+    /**
+     * 处理事件
+     */
+    @Override
+    public void pollEvents() {
+        // Swing自动处理事件
+    }
+    
+    /**
+     * 开始渲染循环（Swing定时器）
+     */
+    @Override
+    public void startRenderLoop(float fps, Runnable frame) {
+        onEventThread(() -> {
+            if (renderTimer != null) {
+                renderTimer.stop();
+            }
+            renderTimer = new Timer((int) (1000 / fps), e -> frame.run());
+            renderTimer.start();
+        });
+    }
+    
+    /**
+     * 停止渲染循环
+     */
+    @Override
+    public void stopRenderLoop() {
+        onEventThread(() -> {
+            if (renderTimer != null) {
+                renderTimer.stop();
+                renderTimer = null;
+            }
+        });
+    }
+    
+    /**
+     * 清理资源（可以在模拟线程调用，窗口在Swing事件线程上关闭）
+     */
+    @Override
+    public void cleanup() {
+        stopRenderLoop();
+        onEventThread(this::dispose);
+    }
+    
+    /**
+     * 在事件线程上执行（已在事件线程时直接执行）
+     */
+    private static void onEventThread(Runnable task) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            task.run();
+        } else {
+            SwingUtilities.invokeLater(task);
+        }
+    }
+    
+    /**
+     * 设置本帧的插值系数（0为上一个模拟步，1为最新模拟步）
+     */
+    @Override
+    public void setInterpolationAlpha(float alpha) {
+        this.interpolationAlpha = alpha;
+    }
+    
+    /**
+     * 获取本帧的插值系数
+     */
+    @Override
+    public float getInterpolationAlpha() {
+        return interpolationAlpha;
+    }
+    
+    // Getters
+    @Override
+    public int getWidth() {
+        return width;
+    }
+    
+    @Override
+    public int getHeight() {
+        return height;
+    }
+    
+    @Override
+    public String getTitle() {
+        return title;
+    }
+    
+    /**
+     * 游戏面板类
+     */
+    private class GamePanel extends JPanel {
+        private List<Drawable> drawables = new ArrayList<>();
+        
+        public GamePanel() {
+            setPreferredSize(new Dimension(width, height));
+            setBackground(Color.BLACK);
+        }
+        
+        public void clear() {
+            drawables.clear();
+        }
+        
+        public void addDrawable(Drawable drawable) {
+            drawables.add(drawable);
+        }
+        
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            Graphics2D g2d = (Graphics2D) g;
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            
+            for (Drawable drawable : drawables) {
+                drawable.draw(g2d);
+            }
+        }
+    }
+    
+    /**
+     * 可绘制对象接口
+     */
+    private interface Drawable {
+        void draw(Graphics2D g);
+    }
+    
+    /**
+     * 矩形绘制类
+     */
+    private static class RectDrawable implements Drawable {
+        private float x, y, width, height;
+        private Color color;
+        
+        public RectDrawable(float x, float y, float width, float height, float r, float g, float b, float a) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.color = new Color(r, g, b, a);
+        }
+        
+        @Override
+        public void draw(Graphics2D g) {
+            g.setColor(color);
+            g.fillRect((int) x, (int) y, (int) width, (int) height);
+        }
+    }
+    
+    /**
+     * 圆形绘制类
+     */
+    private static class CircleDrawable implements Drawable {
+        private float x, y, radius;
+        private Color color;
+        
+        public CircleDrawable(float x, float y, float radius, float r, float g, float b, float a) {
+            this.x = x;
+            this.y = y;
+            this.radius = radius;
+            this.color = new Color(r, g, b, a);
+        }
+        
+        @Override
+        public void draw(Graphics2D g) {
+            g.setColor(color);
+            g.fillOval((int) (x - radius), (int) (y - radius), (int) (radius * 2), (int) (radius * 2));
+        }
+    }
+    
+    /**
+     * 线条绘制类
+     */
+    private static class LineDrawable implements Drawable {
+        private float x1, y1, x2, y2;
+        private Color color;
+        
+        public LineDrawable(float x1, float y1, float x2, float y2, float r, float g, float b, float a) {
+            this.x1 = x1;
+            this.y1 = y1;
+            this.x2 = x2;
+            this.y2 = y2;
+            this.color = new Color(r, g, b, a);
+        }
+        
+        @Override
+        public void draw(Graphics2D g) {
+            g.setColor(color);
+            g.drawLine((int) x1, (int) y1, (int) x2, (int) y2);
+        }
+    }
+    
+    /**
+     * 文字绘制类
+     */
+    private static class TextDrawable implements Drawable {
+        private String text;
+        private float x, y;
+        private int fontSize;
+        private Color color;
+        
+        public TextDrawable(String text, float x, float y, int fontSize, float r, float g, float b, float a) {
+            this.text = text;
+            this.x = x;
+            this.y = y;
+            this.fontSize = fontSize;
+            this.color = new Color(r, g, b, a);
+        }
+        
+        @Override
+        public void draw(Graphics2D g) {
+            g.setColor(color);
+            g.setFont(new Font("Microsoft YaHei", Font.BOLD, fontSize));
+            g.drawString(text, (int) x, (int) y);
+        }
+    }
+}
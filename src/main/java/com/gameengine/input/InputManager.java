@@ -8,6 +8,10 @@ import java.util.Set;
 
 /**
  * 输入管理器，处理键盘和鼠标输入
+ * 输入事件来自Swing事件线程，状态由模拟线程读取，所有方法都是同步的。
+ * 事件线程产生的"刚按下"先放入待处理集合，由 pollEvents() 在模拟步开始时生效，
+ * 这样在模拟步进行中到达的按键不会被该步结束时的 update() 清掉。
+ * 鼠标按下时的位置随"刚按下"状态一起生效，不受之后鼠标移动的影响。
  */
 public class InputManager {
     private static InputManager instance;
@@ -17,6 +21,10 @@ public class InputManager {
     private Vector2 mousePosition;
     private boolean[] mouseButtons;
     private boolean[] mouseButtonsJustPressed;
+    private Set<Integer> pendingJustPressedKeys;    // 尚未生效的刚按下按键
+    private boolean[] pendingMouseJustPressed;      // 尚未生效的刚按下鼠标按键
+    private Vector2 pressPosition;                  // 最近一次生效的鼠标按下位置
+    private Vector2 pendingPressPosition;           // 尚未生效的鼠标按下位置
     
     private InputManager() {
         pressedKeys = new HashSet<>();
@@ -25,19 +33,46 @@ public class InputManager {
         mousePosition = new Vector2();
         mouseButtons = new boolean[3]; // 左键、右键、中键
         mouseButtonsJustPressed = new boolean[3];
+        pendingJustPressedKeys = new HashSet<>();
+        pendingMouseJustPressed = new boolean[3];
+        pressPosition = new Vector2();
+        pendingPressPosition = new Vector2();
     }
     
-    public static InputManager getInstance() {
+    public static synchronized InputManager getInstance() {
         if (instance == null) {
             instance = new InputManager();
         }
         return instance;
     }
     
+    /**
+     * 创建不接收窗口事件的独立输入管理器（确定性回放时由录制的输入驱动）
+     */
+    public static InputManager detached() {
+        return new InputManager();
+    }
+    
+    /**
+     * 让待处理的"刚按下"状态生效（在模拟步开始时调用）
+     */
+    public synchronized void pollEvents() {
+        justPressedKeys.addAll(pendingJustPressedKeys);
+        pendingJustPressedKeys.clear();
+        for (int i = 0; i < pendingMouseJustPressed.length; i++) {
+            if (pendingMouseJustPressed[i]) {
+                mouseButtonsJustPressed[i] = true;
+                pendingMouseJustPressed[i] = false;
+                pressPosition.x = pendingPressPosition.x;
+                pressPosition.y = pendingPressPosition.y;
+            }
+        }
+    }
+    
     /**
      * 更新输入状态
      */
-    public void update() {
+    public synchronized void update() {
         justPressedKeys.clear();
         for (int i = 0; i < mouseButtonsJustPressed.length; i++) {
             mouseButtonsJustPressed[i] = false;
@@ -47,9 +82,9 @@ public class InputManager {
     /**
      * 处理键盘按下事件
      */
-    public void onKeyPressed(int keyCode) {
+    public synchronized void onKeyPressed(int keyCode) {
         if (!pressedKeys.contains(keyCode)) {
-            justPressedKeys.add(keyCode);
+            pendingJustPressedKeys.add(keyCode);
         }
         pressedKeys.add(keyCode);
         keyStates.put(keyCode, true);
@@ -58,7 +93,7 @@ public class InputManager {
     /**
      * 处理键盘释放事件
      */
-    public void onKeyReleased(int keyCode) {
+    public synchronized void onKeyReleased(int keyCode) {
         pressedKeys.remove(keyCode);
         keyStates.put(keyCode, false);
     }
@@ -66,7 +101,7 @@ public class InputManager {
     /**
      * 处理鼠标移动事件
      */
-    public void onMouseMoved(float x, float y) {
+    public synchronized void onMouseMoved(float x, float y) {
         mousePosition.x = x;
         mousePosition.y = y;
     }
@@ -74,12 +109,14 @@ public class InputManager {
     /**
      * 处理鼠标按下事件
      */
-    public void onMousePressed(int button) {
+    public synchronized void onMousePressed(int button) {
         // Java MouseEvent的button从1开始，需要减1映射到数组索引
         int index = button - 1;
         if (index >= 0 && index < mouseButtons.length) {
             if (!mouseButtons[index]) {
-                mouseButtonsJustPressed[index] = true;
+                pendingMouseJustPressed[index] = true;
+                pendingPressPosition.x = mousePosition.x;
+                pendingPressPosition.y = mousePosition.y;
             }
             mouseButtons[index] = true;
         }
@@ -88,7 +125,7 @@ public class InputManager {
     /**
      * 处理鼠标释放事件
      */
-    public void onMouseReleased(int button) {
+    public synchronized void onMouseReleased(int button) {
         // Java MouseEvent的button从1开始，需要减1映射到数组索引
         int index = button - 1;
         if (index >= 0 && index < mouseButtons.length) {
@@ -99,21 +136,21 @@ public class InputManager {
     /**
      * 检查按键是否被按下
      */
-    public boolean isKeyPressed(int keyCode) {
+    public synchronized boolean isKeyPressed(int keyCode) {
         return pressedKeys.contains(keyCode);
     }
     
     /**
      * 检查按键是否刚刚被按下（只在这一帧为true）
      */
-    public boolean isKeyJustPressed(int keyCode) {
+    public synchronized boolean isKeyJustPressed(int keyCode) {
         return justPressedKeys.contains(keyCode);
     }
     
     /**
      * 检查鼠标按键是否被按下
      */
-    public boolean isMouseButtonPressed(int button) {
+    public synchronized boolean isMouseButtonPressed(int button) {
         int index = button - 1;
         if (index >= 0 && index < mouseButtons.length) {
             return mouseButtons[index];
@@ -124,7 +161,7 @@ public class InputManager {
     /**
      * 检查鼠标按键是否刚刚被按下
      */
-    public boolean isMouseButtonJustPressed(int button) {
+    public synchronized boolean isMouseButtonJustPressed(int button) {
         int index = button - 1;
         if (index >= 0 && index < mouseButtons.length) {
             return mouseButtonsJustPressed[index];
@@ -135,28 +172,35 @@ public class InputManager {
     /**
      * 获取鼠标位置
      */
-    public Vector2 getMousePosition() {
+    public synchronized Vector2 getMousePosition() {
         return new Vector2(mousePosition);
     }
     
+    /**
+     * 获取最近一次鼠标按下时的位置（与 isMouseButtonJustPressed 同一步生效）
+     */
+    public synchronized Vector2 getMousePressPosition() {
+        return new Vector2(pressPosition);
+    }
+    
     /**
      * 获取鼠标X坐标
      */
-    public float getMouseX() {
+    public synchronized float getMouseX() {
         return mousePosition.x;
     }
     
     /**
      * 获取鼠标Y坐标
      */
-    public float getMouseY() {
+    public synchronized float getMouseY() {
         return mousePosition.y;
     }
     
     /**
      * 获取刚按下的按键快照（用于录制）
      */
-    public Set<Integer> getJustPressedKeysSnapshot() {
+    public synchronized Set<Integer> getJustPressedKeysSnapshot() {
         return new HashSet<>(justPressedKeys);
     }
 }
@@ -0,0 +1,106 @@
+package com.gameengine.match;
+
+import com.gameengine.net.NetState;
+import com.gameengine.scene.Scene;
+
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 对局
+ * 一个独立的场景（包含自己的GridSystem和GameLogic）及其网络状态，
+ * 由MatchManager的工作线程按固定步长推进。同一对局同一时刻只会在一个工作线程上运行。
+ * 场景在工作线程上创建，创建完成后才开始调度。
+ */
+public class Match {
+    private static final int MAX_CATCH_UP_STEPS = 5;  // 每次调度最多追赶的模拟步数
+
+    private final String id;
+    private volatile Scene scene;  // 场景创建完成前为null
+    private final NetState netState;
+    private final float stepSeconds;
+    private final long stepNanos;
+    private final long createdAt;
+
+    private long lastTickNanos;
+    private long accumulator;
+    private volatile long stepCount;
+    private ScheduledFuture<?> future;
+    long idleSince;  // 开始没有客户端的时间（0：有客户端或刚被加入），只在MatchManager的锁内访问
+
+    Match(String id, NetState netState, float stepSeconds) {
+        this.id = id;
+        this.netState = netState;
+        this.stepSeconds = stepSeconds;
+        this.stepNanos = (long) (stepSeconds * 1_000_000_000L);
+        this.createdAt = System.currentTimeMillis();
+        this.lastTickNanos = System.nanoTime();
+    }
+
+    /**
+     * 由工作线程周期调用：按经过的真实时间推进若干个固定步长
+     */
+    void tick() {
+        long now = System.nanoTime();
+        accumulator += now - lastTickNanos;
+        lastTickNanos = now;
+
+        int steps = 0;
+        while (accumulator >= stepNanos && steps < MAX_CATCH_UP_STEPS) {
+            try {
+                scene.update(stepSeconds);
+            } catch (RuntimeException e) {
+                System.err.println("[对局 " + id + "] 更新出错: " + e.getMessage());
+                e.printStackTrace();
+            }
+            accumulator -= stepNanos;
+            steps++;
+            stepCount++;
+        }
+
+        // 追赶不上时丢弃多余的时间
+        if (accumulator >= stepNanos) {
+            accumulator %= stepNanos;
+        }
+    }
+
+    void setScene(Scene scene) {
+        this.scene = scene;
+        this.lastTickNanos = System.nanoTime();
+    }
+
+    void setFuture(ScheduledFuture<?> future) {
+        this.future = future;
+    }
+
+    /**
+     * 停止调度该对局
+     */
+    void cancel() {
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 对局场景，尚未创建完成时返回null
+     */
+    public Scene getScene() {
+        return scene;
+    }
+
+    public NetState getNetState() {
+        return netState;
+    }
+
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,199 @@
+package com.gameengine.match;
+
+import com.gameengine.net.NetState;
+import com.gameengine.scene.Scene;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对局管理器
+ * 在一个JVM中托管多个相互独立的对局，所有对局共享固定数量的工作线程，
+ * 客户端按对局ID路由到对应对局的NetState。
+ * 客户端只能加入已存在的对局或允许列表中的对局，不能用任意ID创建对局；
+ * 持续没有客户端超过 -Dmatch.idleTimeoutMs（默认30秒，0表示不回收）的对局会被移除。
+ */
+public class MatchManager {
+    /** 没有客户端的对局保留多久 */
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("match.idleTimeoutMs", 30_000L);
+    private static final long REAP_INTERVAL_MS = 1000;
+
+    /**
+     * 为新对局创建场景
+     */
+    public interface SceneFactory {
+        Scene create(String matchId, NetState netState);
+    }
+
+    private final ScheduledExecutorService workers;
+    private final Map<String, Match> matches = new ConcurrentHashMap<>();
+    private final SceneFactory sceneFactory;
+    private final float stepSeconds;
+    private final int maxMatches;
+    private final Set<String> joinableIds;
+
+    /**
+     * 客户端不能创建对局，只能加入服务器已创建的对局
+     */
+    public MatchManager(int workerCount, float stepSeconds, int maxMatches, SceneFactory sceneFactory) {
+        this(workerCount, stepSeconds, maxMatches, Collections.emptySet(), sceneFactory);
+    }
+
+    /**
+     * @param workerCount 工作线程数量
+     * @param stepSeconds 固定模拟步长（秒）
+     * @param maxMatches  最多同时托管的对局数量
+     * @param joinableIds 客户端加入时可以按需创建的对局ID
+     */
+    public MatchManager(int workerCount, float stepSeconds, int maxMatches, Collection<String> joinableIds,
+                        SceneFactory sceneFactory) {
+        this.stepSeconds = stepSeconds;
+        this.maxMatches = maxMatches;
+        this.joinableIds = Set.copyOf(joinableIds);
+        this.sceneFactory = sceneFactory;
+        AtomicInteger threadIndex = new AtomicInteger(1);
+        this.workers = Executors.newScheduledThreadPool(workerCount, r -> {
+            Thread t = new Thread(r, "match-worker-" + threadIndex.getAndIncrement());
+            t.setDaemon(false);
+            return t;
+        });
+        if (IDLE_TIMEOUT_MS > 0) {
+            workers.scheduleWithFixedDelay(this::reapIdle, REAP_INTERVAL_MS, REAP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 获取对局，不存在时创建，场景在工作线程上构建完成后开始调度
+     * @return 对局，已达到对局上限时返回null
+     */
+    public synchronized Match getOrCreate(String matchId) {
+        Match match = matches.get(matchId);
+        if (match != null) {
+            return match;
+        }
+        if (matches.size() >= maxMatches || workers.isShutdown()) {
+            return null;
+        }
+
+        Match created = new Match(matchId, new NetState(), stepSeconds);
+        matches.put(matchId, created);
+        workers.execute(() -> start(created));
+        System.out.println("[对局管理] 创建对局 " + matchId + "（当前 " + matches.size() + " 个）");
+        return created;
+    }
+
+    /**
+     * 在工作线程上创建场景并开始调度（调用方可能是网络I/O线程，不在那里构建场景）
+     */
+    private void start(Match match) {
+        Scene scene;
+        try {
+            scene = sceneFactory.create(match.getId(), match.getNetState());
+            scene.initialize();
+        } catch (RuntimeException e) {
+            System.err.println("[对局管理] 创建对局 " + match.getId() + " 失败: " + e);
+            matches.remove(match.getId(), match);
+            return;
+        }
+        synchronized (this) {
+            if (matches.get(match.getId()) != match || workers.isShutdown()) {
+                return;  // 创建期间已被移除
+            }
+            match.setScene(scene);
+            long periodNanos = (long) (stepSeconds * 1_000_000_000L);
+            match.setFuture(workers.scheduleAtFixedRate(match::tick, periodNanos, periodNanos, TimeUnit.NANOSECONDS));
+        }
+    }
+
+    /**
+     * 获取已存在的对局
+     */
+    public Match get(String matchId) {
+        return matches.get(matchId);
+    }
+
+    /**
+     * 按对局ID查找网络状态（供NioServer路由客户端）
+     * 不存在的对局只有在允许列表中时才创建，客户端不能用随机ID占满对局上限。
+     * @return 网络状态，对局不存在且不能创建时返回null
+     */
+    public synchronized NetState resolve(String matchId) {
+        Match match = matches.get(matchId);
+        if (match == null && joinableIds.contains(matchId)) {
+            match = getOrCreate(matchId);
+        }
+        if (match == null) {
+            return null;
+        }
+        match.idleSince = 0;  // 客户端即将加入：重新计算空闲时间，避免在连接计数增加前被回收
+        return match.getNetState();
+    }
+
+    /**
+     * 移除持续没有客户端超过 IDLE_TIMEOUT_MS 的对局（由工作线程定期调用）
+     */
+    private synchronized void reapIdle() {
+        long now = System.currentTimeMillis();
+        for (Match match : matches.values()) {
+            if (match.getNetState().hasClient()) {
+                match.idleSince = 0;
+            } else if (match.idleSince == 0) {
+                match.idleSince = now;
+            } else if (now - match.idleSince >= IDLE_TIMEOUT_MS) {
+                remove(match.getId());
+            }
+        }
+    }
+
+    /**
+     * 结束并移除对局
+     */
+    public synchronized void remove(String matchId) {
+        Match match = matches.remove(matchId);
+        if (match != null) {
+            match.cancel();
+            System.out.println("[对局管理] 移除对局 " + matchId);
+        }
+    }
+
+    /**
+     * 当前对局数量
+     */
+    public int getMatchCount() {
+        return matches.size();
+    }
+
+    /**
+     * 所有对局的快照
+     */
+    public List<Match> getMatches() {
+        return new ArrayList<>(matches.values());
+    }
+
+    /**
+     * 停止所有对局
+     */
+    public synchronized void shutdown() {
+        for (Match match : matches.values()) {
+            match.cancel();
+        }
+        matches.clear();
+        workers.shutdown();
+    }
+
+    /**
+     * 等待工作线程全部结束
+     */
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return workers.awaitTermination(timeout, unit);
+    }
+}
@@ -0,0 +1,119 @@
+package com.gameengine.net;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 广播用的直接缓冲区池（带引用计数）
+ * 快照只编码一次到池中的直接缓冲区，每个连接拿到只读视图（asReadOnlyBuffer，共享内容、独立位置）并持有一个引用，
+ * 写完后释放；引用全部释放后缓冲区回到池中。
+ * 按2的幂分级，每级最多保留 MAX_FREE_PER_CLASS 个空闲缓冲区；超过最大级别的请求直接分配，不回收。
+ */
+public final class BufferPool {
+    private static final int MIN_SHIFT = 10;                       // 1KB
+    private static final int MAX_SHIFT = 21;                       // 2MB，能放下 WireProtocol.MAX_FRAME
+    private static final int MAX_FREE_PER_CLASS = 64;
+
+    private static final BufferPool SHARED = new BufferPool();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final ConcurrentLinkedQueue<ByteBuffer>[] free = new ConcurrentLinkedQueue[MAX_SHIFT - MIN_SHIFT + 1];
+    private final AtomicInteger[] freeCount = new AtomicInteger[free.length];
+
+    /**
+     * 所有对局共用的池
+     */
+    public static BufferPool shared() {
+        return SHARED;
+    }
+
+    public BufferPool() {
+        for (int i = 0; i < free.length; i++) {
+            free[i] = new ConcurrentLinkedQueue<>();
+            freeCount[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * 池中的一个缓冲区，创建时引用计数为1（属于调用方）
+     */
+    public static final class Buffer {
+        private final BufferPool pool;
+        private final ByteBuffer buffer;
+        private final int sizeClass;
+        private final AtomicInteger refCount = new AtomicInteger(1);
+
+        Buffer(BufferPool pool, ByteBuffer buffer, int sizeClass) {
+            this.pool = pool;
+            this.buffer = buffer;
+            this.sizeClass = sizeClass;
+        }
+
+        /**
+         * 可写的缓冲区（只在发布前由创建者写入，之后只通过 view 读取）
+         */
+        public ByteBuffer buffer() {
+            return buffer;
+        }
+
+        /**
+         * 只读视图，position/limit 与当前缓冲区相同
+         */
+        public ByteBuffer view() {
+            return buffer.asReadOnlyBuffer();
+        }
+
+        /**
+         * 增加一个引用；缓冲区已经回到池中时返回false
+         */
+        public boolean tryRetain() {
+            int n;
+            do {
+                n = refCount.get();
+                if (n <= 0) return false;
+            } while (!refCount.compareAndSet(n, n + 1));
+            return true;
+        }
+
+        /**
+         * 释放一个引用，最后一个引用释放时回到池中
+         */
+        public void release() {
+            int n = refCount.decrementAndGet();
+            if (n == 0) {
+                pool.recycle(this);
+            } else if (n < 0) {
+                throw new IllegalStateException("buffer released too many times");
+            }
+        }
+    }
+
+    /**
+     * 取出容量不小于 minCapacity 的缓冲区（position 0，limit 为容量）
+     */
+    public Buffer acquire(int minCapacity) {
+        int shift = Math.max(MIN_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(1, minCapacity - 1)));
+        if (shift > MAX_SHIFT) {
+            return new Buffer(this, ByteBuffer.allocateDirect(minCapacity), -1);
+        }
+        int sizeClass = shift - MIN_SHIFT;
+        ByteBuffer buffer = free[sizeClass].poll();
+        if (buffer != null) {
+            freeCount[sizeClass].decrementAndGet();
+            buffer.clear();
+        } else {
+            buffer = ByteBuffer.allocateDirect(1 << shift);
+        }
+        return new Buffer(this, buffer, sizeClass);
+    }
+
+    private void recycle(Buffer b) {
+        if (b.sizeClass < 0) return;
+        if (freeCount[b.sizeClass].incrementAndGet() <= MAX_FREE_PER_CLASS) {
+            free[b.sizeClass].offer(b.buffer);
+        } else {
+            freeCount[b.sizeClass].decrementAndGet();
+        }
+    }
+}
@@ -1,50 +1,129 @@
 package com.gameengine.net;
 
+import java.nio.ByteBuffer;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntFunction;
 
+/**
+ * 一场对局的网络状态（每个对局一个实例）
+ * server 侧：游戏逻辑写入最新关键帧，NioServer读取、编码并广播给加入该对局的客户端；
+ * 最近的快照保留在历史中，作为客户端已确认的增量基线
+ */
 public final class NetState {
-    private static final AtomicInteger clientCount = new AtomicInteger(0);
-    private static volatile float p2vx = 0f;
-    private static volatile float p2vy = 0f;
-    private static volatile String lastState = null; // 旧文本
-    private static volatile String lastKeyframeJson = null; // 新JSON KF
-    private static final ConcurrentHashMap<String, float[]> clientMirror = new ConcurrentHashMap<>();
-    private NetState() {}
-    public static void clientConnected() { clientCount.incrementAndGet(); }
-    public static void clientDisconnected() { clientCount.decrementAndGet(); }
-    public static int getClientCount() { return clientCount.get(); }
-    public static boolean hasClient() { return clientCount.get() > 0; }
-    public static void setP2Velocity(float vx, float vy) { p2vx = vx; p2vy = vy; }
-    public static float getP2Vx() { return p2vx; }
-    public static float getP2Vy() { return p2vy; }
-
-    // server 侧设置当前状态（文本行，形如 STATE:id,x,y;id2,x,y）
-    public static void setLastState(String s) { lastState = s; }
-    public static String getLastState() { return lastState; }
-    public static void setLastKeyframeJson(String s) { lastKeyframeJson = s; }
-    public static String getLastKeyframeJson() { return lastKeyframeJson; }
-
-    // client 侧接收状态并更新镜像
-    public static void updateMirrorFromState(String line) {
-        if (line == null) return;
-        if (!line.startsWith("STATE:")) return;
-        String payload = line.substring(6).trim();
-        if (payload.isEmpty()) return;
-        String[] ents = payload.split(";");
-        for (String e : ents) {
-            String[] parts = e.split(",");
-            if (parts.length < 3) continue;
-            String id = parts[0];
-            try {
-                float x = Float.parseFloat(parts[1]);
-                float y = Float.parseFloat(parts[2]);
-                clientMirror.put(id, new float[]{x,y});
-            } catch (Exception ignored) {}
+    /** 保留的历史快照数（20Hz 下约3秒），客户端确认的快照更旧时改发完整快照 */
+    public static final int HISTORY = 64;
+
+    private final AtomicInteger clientCount = new AtomicInteger(0);
+    private volatile float p2vx = 0f;
+    private volatile float p2vy = 0f;
+    private volatile NetworkBuffer.Keyframe lastKeyframe = null; // 最新快照
+    private int keyframeSeq = 0;
+    private final AtomicReferenceArray<NetworkBuffer.Keyframe> history = new AtomicReferenceArray<>(HISTORY);
+    private volatile Encodings encodings;  // 最新快照的编码结果（各 I/O 线程共用）
+    private final BufferPool pool = BufferPool.shared();
+    public NetState() {}
+    public void clientConnected() { clientCount.incrementAndGet(); }
+    public void clientDisconnected() { clientCount.decrementAndGet(); }
+    public int getClientCount() { return clientCount.get(); }
+    public boolean hasClient() { return clientCount.get() > 0; }
+    public void setP2Velocity(float vx, float vy) { p2vx = vx; p2vy = vy; }
+    public float getP2Vx() { return p2vx; }
+    public float getP2Vy() { return p2vy; }
+
+    /**
+     * 发布最新快照并分配序号（发布后不能再修改）
+     */
+    public synchronized void setLastKeyframe(NetworkBuffer.Keyframe kf) {
+        kf.seq = ++keyframeSeq;
+        NetworkBuffer.Keyframe previous = lastKeyframe;
+        history.set(Math.floorMod(kf.seq, HISTORY), kf);
+        Encodings retired = encodings;
+        Encodings current = new Encodings(kf);
+        if (hasClient()) {
+            // 每个快照编码一次：完整快照（新加入的客户端）和相对上一快照的增量（已确认上一快照的客户端）
+            current.prepare(null, pool);
+            if (previous != null) current.prepare(previous, pool);
+        }
+        encodings = current;
+        lastKeyframe = kf;
+        if (retired != null) retired.retire();
+    }
+    public NetworkBuffer.Keyframe getLastKeyframe() { return lastKeyframe; }
+
+    /**
+     * 按序号查找历史快照，已被覆盖或不存在时返回null
+     */
+    public NetworkBuffer.Keyframe getKeyframe(int seq) {
+        if (seq <= 0) return null;
+        NetworkBuffer.Keyframe kf = history.get(Math.floorMod(seq, HISTORY));
+        return kf != null && kf.seq == seq ? kf : null;
+    }
+
+    /**
+     * 最新快照按基线序号缓存的编码结果，每个缓存的缓冲区持有一个引用，快照被替换时释放
+     */
+    private static final class Encodings {
+        final NetworkBuffer.Keyframe keyframe;
+        final ConcurrentHashMap<Integer, BufferPool.Buffer> byBase = new ConcurrentHashMap<>();
+        volatile boolean retired;
+
+        Encodings(NetworkBuffer.Keyframe keyframe) {
+            this.keyframe = keyframe;
+        }
+
+        /**
+         * 发布前预先生成编码（此时还没有其他线程访问）
+         */
+        void prepare(NetworkBuffer.Keyframe base, BufferPool pool) {
+            byBase.put(base != null ? base.seq : 0, encode(keyframe, base, pool));
+        }
+
+        /**
+         * 取出（必要时生成）相对基线的编码并增加一个引用，缓存已经释放时返回null
+         */
+        BufferPool.Buffer get(NetworkBuffer.Keyframe base, BufferPool pool) {
+            int key = base != null ? base.seq : 0;
+            BufferPool.Buffer buf = byBase.computeIfAbsent(key, k -> encode(keyframe, base, pool));
+            boolean retained = buf.tryRetain();
+            // 与 retire 并发时，retire 之后放入的编码由放入者释放
+            if (retired && byBase.remove(key, buf)) buf.release();
+            return retained ? buf : null;
+        }
+
+        void retire() {
+            retired = true;
+            for (Integer key : byBase.keySet()) {
+                BufferPool.Buffer buf = byBase.remove(key);
+                if (buf != null) buf.release();
+            }
         }
     }
 
-    public static java.util.Map<String, float[]> getMirrorSnapshot() {
-        return new java.util.HashMap<>(clientMirror);
+    private static BufferPool.Buffer encode(NetworkBuffer.Keyframe kf, NetworkBuffer.Keyframe base, BufferPool pool) {
+        BufferPool.Buffer[] holder = new BufferPool.Buffer[1];
+        IntFunction<ByteBuffer> allocator = size -> (holder[0] = pool.acquire(size)).buffer();
+        if (base != null) {
+            WireProtocol.encodeDelta(base, kf, allocator);
+        } else {
+            WireProtocol.encodeSnapshot(kf, allocator);
+        }
+        return holder[0];
+    }
+
+    /**
+     * 快照相对基线的编码（base为null时为完整快照），位于池中的直接缓冲区
+     * 最新快照的每种编码只生成一次，由所有 I/O 线程、所有确认到同一基线的连接共用。
+     * 返回的缓冲区已为调用方增加一个引用：发送时使用 view()，发送完后调用 release()。
+     */
+    public BufferPool.Buffer encode(NetworkBuffer.Keyframe kf, NetworkBuffer.Keyframe base) {
+        Encodings e = encodings;
+        if (e != null && e.keyframe == kf) {
+            BufferPool.Buffer buf = e.get(base, pool);
+            if (buf != null) return buf;
+        }
+        // 快照在此期间已被替换：单独编码，只属于调用方
+        return encode(kf, base, pool);
     }
 }
@@ -1,15 +1,24 @@
 package com.gameengine.net;
 
+import com.gameengine.components.RenderComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameObject;
+import com.gameengine.recording.JsonTokenizer;
+
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * 客户端关键帧缓冲区（每个连接一个实例），按时间插值采样
+ */
 public final class NetworkBuffer {
-    private static final Deque<Keyframe> buffer = new ArrayDeque<>();
-    private static final Object lock = new Object();
+    private final Deque<Keyframe> buffer = new ArrayDeque<>();
+    private final Object lock = new Object();
     private static final double MAX_AGE_SEC = 2.0;
     private static final double INTERP_DELAY_SEC = 0.12; // 120ms 缓冲
 
@@ -20,12 +29,39 @@ public final class NetworkBuffer {
         public float r = 1.0f, g = 1.0f, b = 1.0f, a = 1.0f; // 默认白色
     }
     public static class Keyframe {
+        public int seq;  // 服务器为每个对局的快照编号（NetState.setLastKeyframe 时分配）
         public double t;
         public String state = "PLAYING"; // MENU, PLAYING, VICTORY, DEFEAT
         public List<Entity> entities = new ArrayList<>();
+
+        /**
+         * 采集场景中所有带 Transform 的活动对象（服务器广播用）
+         */
+        public static Keyframe capture(Collection<GameObject> objects, String state) {
+            Keyframe kf = new Keyframe();
+            kf.t = System.currentTimeMillis() / 1000.0;
+            kf.state = state;
+            kf.entities = new ArrayList<>(objects.size());
+            for (GameObject obj : objects) {
+                if (!obj.isActive()) continue;
+                TransformComponent tc = obj.getComponent(TransformComponent.class);
+                if (tc == null) continue;
+                Entity e = new Entity();
+                e.id = obj.getName() + "#" + obj.getInstanceId();
+                e.x = tc.getX();
+                e.y = tc.getY();
+                RenderComponent rc = obj.getComponent(RenderComponent.class);
+                if (rc != null) {
+                    RenderComponent.Color color = rc.getColor();
+                    e.r = color.r; e.g = color.g; e.b = color.b; e.a = color.a;
+                }
+                kf.entities.add(e);
+            }
+            return kf;
+        }
     }
 
-    public static void push(Keyframe kf) {
+    public void push(Keyframe kf) {
         synchronized (lock) {
             buffer.addLast(kf);
             // 修剪老帧
@@ -35,50 +71,78 @@ public final class NetworkBuffer {
     }
 
     public static Keyframe parseJsonLine(String line) {
-        // 极简 JSON 解析（假设格式固定）：{"type":"kf","t":X,"state":"PLAYING","entities":[{"id":"...","x":N,"y":N},...]}
+        // 单遍解析：{"type":"kf","t":X,"state":"PLAYING","entities":[{"id":"...","x":N,"y":N,"color":[r,g,b,a]},...]}
         if (line == null || !line.contains("\"type\":\"kf\"")) return null;
         Keyframe kf = new Keyframe();
-        try {
-            String ts = com.gameengine.recording.RecordingJson.field(line, "t");
-            kf.t = com.gameengine.recording.RecordingJson.parseDouble(ts);
-            
-            // 解析state
-            String stateStr = com.gameengine.recording.RecordingJson.field(line, "state");
-            if (stateStr != null) {
-                kf.state = com.gameengine.recording.RecordingJson.stripQuotes(stateStr);
+        JsonTokenizer tok = JsonTokenizer.forCurrentThread().reset(line);
+        if (tok.next() != JsonTokenizer.Token.BEGIN_OBJECT) return kf;
+        while (tok.next() == JsonTokenizer.Token.NAME) {
+            if (tok.nameEquals("t")) {
+                kf.t = tok.nextNumber(0.0);
+            } else if (tok.nameEquals("state")) {
+                String state = tok.nextString();
+                if (state != null) kf.state = state;
+            } else if (tok.nameEquals("entities")) {
+                parseEntities(tok, kf);
+            } else {
+                tok.skipValue();
             }
-            
-            int idx = line.indexOf("\"entities\":[");
-            if (idx >= 0) {
-                int bracket = line.indexOf('[', idx);
-                String arr = bracket >= 0 ? com.gameengine.recording.RecordingJson.extractArray(line, bracket) : "";
-                String[] parts = com.gameengine.recording.RecordingJson.splitTopLevel(arr);
-                for (String p : parts) {
-                    Entity e = new Entity();
-                    e.id = com.gameengine.recording.RecordingJson.stripQuotes(com.gameengine.recording.RecordingJson.field(p, "id"));
-                    e.x = (float)com.gameengine.recording.RecordingJson.parseDouble(com.gameengine.recording.RecordingJson.field(p, "x"));
-                    e.y = (float)com.gameengine.recording.RecordingJson.parseDouble(com.gameengine.recording.RecordingJson.field(p, "y"));
-                    
-                    // 解析颜色（如果有）
-                    String colorStr = com.gameengine.recording.RecordingJson.field(p, "color");
-                    if (colorStr != null && colorStr.startsWith("[")) {
-                        String[] rgba = colorStr.substring(1, colorStr.length()-1).split(",");
-                        if (rgba.length >= 4) {
-                            e.r = Float.parseFloat(rgba[0].trim());
-                            e.g = Float.parseFloat(rgba[1].trim());
-                            e.b = Float.parseFloat(rgba[2].trim());
-                            e.a = Float.parseFloat(rgba[3].trim());
-                        }
-                    }
-                    
-                    kf.entities.add(e);
+        }
+        return kf;
+    }
+
+    private static void parseEntities(JsonTokenizer tok, Keyframe kf) {
+        if (tok.next() != JsonTokenizer.Token.BEGIN_ARRAY) return;
+        JsonTokenizer.Token t;
+        while ((t = tok.next()) != JsonTokenizer.Token.END_ARRAY && t != JsonTokenizer.Token.END) {
+            if (t != JsonTokenizer.Token.BEGIN_OBJECT) continue;
+            Entity e = new Entity();
+            while (tok.next() == JsonTokenizer.Token.NAME) {
+                if (tok.nameEquals("id")) {
+                    e.id = tok.nextString();
+                } else if (tok.nameEquals("x")) {
+                    e.x = (float) tok.nextNumber(0.0);
+                } else if (tok.nameEquals("y")) {
+                    e.y = (float) tok.nextNumber(0.0);
+                } else if (tok.nameEquals("color")) {
+                    parseColor(tok, e);
+                } else {
+                    tok.skipValue();
                 }
             }
-        } catch (Exception ignored) {}
-        return kf;
+            kf.entities.add(e);
+        }
+    }
+
+    /**
+     * 解析颜色（需要完整的4个分量，否则保持默认白色）
+     */
+    private static void parseColor(JsonTokenizer tok, Entity e) {
+        if (tok.next() != JsonTokenizer.Token.BEGIN_ARRAY) return;
+        int arrayDepth = tok.depth();
+        float r = 1.0f, g = 1.0f, b = 1.0f, a = 1.0f;
+        int n = 0;
+        JsonTokenizer.Token t;
+        while ((t = tok.next()) == JsonTokenizer.Token.NUMBER) {
+            float v = (float) tok.numberValue();
+            switch (n++) {
+                case 0: r = v; break;
+                case 1: g = v; break;
+                case 2: b = v; break;
+                case 3: a = v; break;
+                default: break;
+            }
+        }
+        if (t != JsonTokenizer.Token.END_ARRAY) {
+            while (tok.depth() >= arrayDepth && tok.next() != JsonTokenizer.Token.END) {}
+            return;
+        }
+        if (n >= 4) {
+            e.r = r; e.g = g; e.b = b; e.a = a;
+        }
     }
 
-    public static Map<String, float[]> sample() {
+    public Map<String, float[]> sample() {
         double now = System.currentTimeMillis() / 1000.0;
         double target = now - INTERP_DELAY_SEC;
         Keyframe a = null, b = null;
@@ -107,7 +171,7 @@ public final class NetworkBuffer {
         return out;
     }
     
-    public static Keyframe sampleKeyframe() {
+    public Keyframe sampleKeyframe() {
         double now = System.currentTimeMillis() / 1000.0;
         double target = now - INTERP_DELAY_SEC;
         Keyframe a = null, b = null;
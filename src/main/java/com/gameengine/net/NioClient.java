@@ -4,10 +4,22 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * NIO客户端（阻塞模式），与服务器之间使用 WireProtocol 的分帧二进制协议
+ * 收到的每个快照都回复 ACK，服务器据此发送相对该快照的增量帧；
+ * 最近收到的快照按序号保留，增量帧的基线找不到时回复 ACK 0 请求完整快照。
+ */
 public class NioClient {
     private SocketChannel channel;
     private volatile boolean loopStarted = false;
+    private final NetworkBuffer networkBuffer = new NetworkBuffer();  // 本连接收到的关键帧
+    private final Object writeLock = new Object();
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final NetworkBuffer.Keyframe[] received = new NetworkBuffer.Keyframe[NetState.HISTORY];  // 接收线程使用
+    // 已收到、尚未处理的字节（读模式）；JOIN 之后由接收线程独占
+    private ByteBuffer inbound = ByteBuffer.allocate(8192).flip();
 
     public boolean connect(String host, int port) {
         try {
@@ -21,27 +33,29 @@ public class NioClient {
     }
 
     public boolean join(String name) {
+        return join(name, null);
+    }
+
+    /**
+     * 加入指定对局（matchId为null时加入服务器的默认对局）
+     */
+    public boolean join(String name, String matchId) {
         if (channel == null) return false;
         try {
-            // 发送JOIN消息
-            ByteBuffer out = ByteBuffer.wrap(("JOIN:" + name + "\n").getBytes());
-            while (out.hasRemaining()) channel.write(out);
-            
-            // 等待响应，重试最多5次
-            ByteBuffer in = ByteBuffer.allocate(1024);
-            for (int retry = 0; retry < 5; retry++) {
-                Thread.sleep(100); // 等待100ms让服务器处理
-                in.clear();
-                int n = channel.read(in);
-                if (n > 0) {
-                    String s = new String(in.array(), 0, n);
-                    if (s.contains("JOIN-ACK")) {
-                        return true;
-                    }
+            send(WireProtocol.encodeJoin(name, matchId));
+            ByteBuffer frame;
+            while ((frame = nextFrame()) != null) {
+                byte type = frame.get();
+                if (type == WireProtocol.JOIN_ACK) {
+                    return true;
+                }
+                if (type == WireProtocol.JOIN_REJECT) {
+                    System.err.println("服务器拒绝加入: " + WireProtocol.decodeJoinReject(frame));
+                    return false;
                 }
             }
             return false;
-        } catch (Exception e) {
+        } catch (IOException e) {
             e.printStackTrace();
             return false;
         }
@@ -61,9 +75,7 @@ public class NioClient {
                     float speed = 200f;
                     float vx = dx == 0 && dy == 0 ? 0 : (float)(dx / Math.max(1e-6, Math.hypot(dx, dy)) * speed);
                     float vy = dx == 0 && dy == 0 ? 0 : (float)(dy / Math.max(1e-6, Math.hypot(dx, dy)) * speed);
-                    String line = "INPUT:" + vx + "," + vy + "\n";
-                    ByteBuffer out = ByteBuffer.wrap(line.getBytes());
-                    while (out.hasRemaining()) channel.write(out);
+                    send(WireProtocol.encodeInput(vx, vy));
                     try { Thread.sleep(50); } catch (InterruptedException ignored) {}
                 }
             } catch (Exception ignored) {
@@ -76,32 +88,77 @@ public class NioClient {
     public void startReceiveLoop() {
         if (channel == null) return;
         Thread t = new Thread(() -> {
-            ByteBuffer in = ByteBuffer.allocate(4096);
-            StringBuilder sb = new StringBuilder();
             try {
-                while (channel.isOpen()) {
-                    in.clear();
-                    int n = channel.read(in);
-                    if (n <= 0) { try { Thread.sleep(50);} catch (InterruptedException ignored) {} continue; }
-                    sb.append(new String(in.array(), 0, n));
-                    int idx;
-                    while ((idx = sb.indexOf("\n")) >= 0) {
-                        String line = sb.substring(0, idx).trim();
-                        sb.delete(0, idx + 1);
-                        if (!line.isEmpty()) {
-                            NetworkBuffer.Keyframe kf = NetworkBuffer.parseJsonLine(line);
-                            if (kf != null) {
-                                NetworkBuffer.push(kf);
-                            } else {
-                                com.gameengine.net.NetState.updateMirrorFromState(line); // 兼容旧文本
-                            }
+                ByteBuffer frame;
+                while ((frame = nextFrame()) != null) {
+                    byte type = frame.get();
+                    NetworkBuffer.Keyframe kf;
+                    if (type == WireProtocol.SNAPSHOT) {
+                        kf = WireProtocol.decodeSnapshot(frame);
+                    } else if (type == WireProtocol.DELTA) {
+                        NetworkBuffer.Keyframe base = receivedKeyframe(WireProtocol.deltaBase(frame));
+                        if (base == null) {
+                            send(WireProtocol.encodeAck(0));
+                            continue;
                         }
+                        kf = WireProtocol.decodeDelta(frame, base);
+                    } else {
+                        continue;
                     }
+                    received[Math.floorMod(kf.seq, received.length)] = kf;
+                    networkBuffer.push(kf);
+                    send(WireProtocol.encodeAck(kf.seq));
                 }
-            } catch (Exception ignored) {
+            } catch (IOException ignored) {
             }
+            try { channel.close(); } catch (IOException ignored) {}
         }, "client-recv-loop");
         t.setDaemon(true);
         t.start();
     }
+
+    /**
+     * 阻塞读取下一帧
+     * @return 帧负载（从类型字节开始，下次调用前有效）；连接关闭时返回null
+     */
+    private ByteBuffer nextFrame() throws IOException {
+        while (true) {
+            ByteBuffer frame = WireProtocol.nextFrame(inbound, WireProtocol.MAX_FRAME);
+            if (frame != null) return frame;
+            inbound.compact();
+            if (!inbound.hasRemaining()) {
+                // 一帧比缓冲区大：扩容
+                ByteBuffer larger = ByteBuffer.allocate(inbound.capacity() * 2);
+                inbound.flip();
+                larger.put(inbound);
+                inbound = larger;
+            }
+            int n = channel.read(inbound);
+            inbound.flip();
+            if (n < 0) return null;
+            bytesReceived.addAndGet(n);
+        }
+    }
+
+    private NetworkBuffer.Keyframe receivedKeyframe(int seq) {
+        NetworkBuffer.Keyframe kf = received[Math.floorMod(seq, received.length)];
+        return kf != null && kf.seq == seq ? kf : null;
+    }
+
+    private void send(ByteBuffer out) throws IOException {
+        synchronized (writeLock) {
+            while (out.hasRemaining()) channel.write(out);
+        }
+    }
+
+    /**
+     * 从服务器收到的字节数
+     */
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    public NetworkBuffer getNetworkBuffer() {
+        return networkBuffer;
+    }
 }
@@ -2,108 +2,376 @@ package com.gameengine.net;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
 
+/**
+ * NIO服务器
+ * 使用 WireProtocol 的分帧二进制协议：客户端发送 JOIN（名字、对局ID，省略对局ID时加入默认对局）加入对局，
+ * 之后的INPUT写入该对局的NetState，广播时每个连接只收到自己对局的快照。
+ * 每个连接保留未处理完的字节，拆包和粘包的消息都能正确解析。
+ * 广播时每个连接只发送比上次新的快照：相对客户端最近确认（ACK）的快照发送增量帧，
+ * 刚加入、请求完整快照或确认的快照已不在历史中时发送完整快照。
+ * 同一快照相对同一基线只编码一次，由所有确认到同一序号的连接共用。
+ * 发送不会阻塞选择器线程：写不完的数据进入连接自己的队列，只在队列非空时关注 OP_WRITE。
+ * 高水位和断开时间可通过 -Dnet.highWaterMark=字节数、-Dnet.lagDropMs=毫秒（0 表示只降级不断开）配置。
+ *
+ * 线程模型：一个接受线程阻塞 accept，把新连接轮流分给 N 个 I/O 线程（reactor）；
+ * 每个 I/O 线程有自己的选择器和连接，独立读取、解析并按自己的定时广播，连接之间没有共享的可变状态。
+ * 快照编码由 NetState 缓存在池中的直接缓冲区里，所有 I/O 线程共用：每个连接只排队一个只读视图并持有一个引用，
+ * 不复制数据，写完后释放。I/O 线程数默认取CPU核数，可通过 -Dnet.reactors 配置，
+ * 监听队列长度可通过 -Dnet.backlog 配置。
+ */
 public class NioServer implements Runnable {
+    public static final String DEFAULT_MATCH_ID = "default";
+    private static final int READ_BUFFER_SIZE = 4096;
+    private static final int MAX_CLIENT_FRAME = 1024;  // 客户端只发送 JOIN/INPUT/ACK
+    private static final long BROADCAST_INTERVAL_MS = 50;
+    /** 发送队列超过该字节数时不再放入新快照 */
+    private static final int HIGH_WATER_MARK = Integer.getInteger("net.highWaterMark", 256 * 1024);
+    /** 持续超过高水位多久后断开连接 */
+    private static final long LAG_DROP_MS = Long.getLong("net.lagDropMs", 5000L);
+    private static final int BACKLOG = Integer.getInteger("net.backlog", 1024);
+    /** accept 失败（如文件描述符耗尽）后等待多久再重试 */
+    private static final long ACCEPT_BACKOFF_MS = 100;
+
     private final int port;
+    private final Function<String, NetState> matchResolver;  // 对局ID -> 对局网络状态
+    private final int reactorCount;
     private volatile boolean running = true;
+    private volatile ServerSocketChannel serverChannel;
     private Thread thread;
 
-    public NioServer(int port) { this.port = port; }
+    /**
+     * 单对局服务器：所有客户端都加入同一个对局
+     */
+    public NioServer(int port, NetState state) {
+        this(port, matchId -> state);
+    }
+
+    /**
+     * 多对局服务器：按JOIN中的对局ID查找对局，返回null表示拒绝加入
+     */
+    public NioServer(int port, Function<String, NetState> matchResolver) {
+        this(port, matchResolver, Integer.getInteger("net.reactors", Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * @param reactorCount I/O 线程数
+     */
+    public NioServer(int port, Function<String, NetState> matchResolver, int reactorCount) {
+        this.port = port;
+        this.matchResolver = matchResolver;
+        this.reactorCount = Math.max(1, reactorCount);
+    }
 
     public void start() {
         if (thread != null) return;
-        thread = new Thread(this, "nio-server");
+        thread = new Thread(this, "nio-acceptor");
         thread.setDaemon(true);
         thread.start();
     }
 
-    public void stop() { running = false; if (thread!=null) thread.interrupt(); }
+    public void stop() {
+        running = false;
+        ServerSocketChannel ssc = serverChannel;
+        if (ssc != null) {
+            try { ssc.close(); } catch (IOException ignored) {}
+        }
+        if (thread != null) thread.interrupt();
+    }
 
+    /**
+     * 接受线程：阻塞 accept，新连接轮流交给 I/O 线程
+     */
     @Override public void run() {
-        try (Selector selector = Selector.open();
-             ServerSocketChannel ssc = ServerSocketChannel.open()) {
-            ssc.configureBlocking(false);
-            ssc.bind(new InetSocketAddress(port));
-            ssc.register(selector, SelectionKey.OP_ACCEPT);
-
-            ByteBuffer buf = ByteBuffer.allocate(1024);
-            List<SocketChannel> conns = new ArrayList<>();
-            long lastBroadcast = System.currentTimeMillis();
+        List<Reactor> reactors = new ArrayList<>(reactorCount);
+        try (ServerSocketChannel ssc = ServerSocketChannel.open()) {
+            serverChannel = ssc;
+            ssc.bind(new InetSocketAddress(port), BACKLOG);
+            for (int i = 0; i < reactorCount; i++) {
+                Reactor reactor = new Reactor(Selector.open());
+                reactors.add(reactor);
+                Thread t = new Thread(reactor, "nio-reactor-" + (i + 1));
+                t.setDaemon(true);
+                t.start();
+            }
+            int next = 0;
             while (running) {
-                selector.select(250);
-                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
-                while (it.hasNext()) {
-                    SelectionKey key = it.next(); it.remove();
-                    if (!key.isValid()) continue;
-                    if (key.isAcceptable()) {
-                        SocketChannel ch = ssc.accept();
-                        if (ch != null) {
-                            ch.configureBlocking(false);
-                            ch.register(selector, SelectionKey.OP_READ);
-                            NetState.clientConnected();
-                            conns.add(ch);
-                        }
-                    } else if (key.isReadable()) {
-                        SocketChannel ch = (SocketChannel) key.channel();
-                        buf.clear();
-                        int n = ch.read(buf);
-                        if (n <= 0) { 
-                            key.cancel(); 
-                            ch.close(); 
-                            conns.remove(ch); 
-                            NetState.clientDisconnected();
-                            continue; 
-                        }
-                        buf.flip();
-                        String s = new String(buf.array(), 0, buf.limit());
-                        
-                        // 处理JOIN消息
-                        if (s.contains("JOIN:")) {
-                            System.out.println("收到JOIN请求: " + s.trim());
-                            ByteBuffer out = ByteBuffer.wrap("JOIN-ACK\n".getBytes());
-                            while (out.hasRemaining()) ch.write(out);
-                            System.out.println("已发送JOIN-ACK");
-                        } 
-                        // 处理INPUT消息
-                        if (s.contains("INPUT:")) {
-                            try {
-                                int idx = s.indexOf("INPUT:");
-                                String payload = s.substring(idx + 6).trim();
-                                int newline = payload.indexOf('\n');
-                                if (newline > 0) payload = payload.substring(0, newline);
-                                String[] kv = payload.split(",");
-                                if (kv.length >= 2) {
-                                    float vx = Float.parseFloat(kv[0]);
-                                    float vy = Float.parseFloat(kv[1]);
-                                    NetState.setP2Velocity(vx, vy);
+                SocketChannel ch;
+                try {
+                    ch = ssc.accept();
+                } catch (ClosedChannelException e) {
+                    break;  // stop() 关闭了监听通道
+                } catch (IOException e) {
+                    // 单次失败（如连接风暴中文件描述符耗尽）不停止服务器：记录后稍等再接受
+                    System.err.println("接受连接失败: " + e);
+                    try {
+                        Thread.sleep(ACCEPT_BACKOFF_MS);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                    }
+                    continue;
+                }
+                try {
+                    ch.configureBlocking(false);
+                    ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                } catch (IOException e) {
+                    ch.close();
+                    continue;
+                }
+                reactors.get(next).register(ch);
+                next = (next + 1) % reactors.size();
+            }
+        } catch (IOException e) {
+            System.err.println("服务器启动失败: " + e);
+        } finally {
+            running = false;
+            for (Reactor reactor : reactors) {
+                reactor.selector.wakeup();
+            }
+        }
+    }
+
+    /**
+     * 每个连接的状态：未处理完的输入字节、待发送的数据和所在对局（只由所属的 I/O 线程访问）
+     */
+    private static final class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        final ArrayDeque<Outbound> outbound = new ArrayDeque<>();
+        int queuedBytes;
+        long lagSince;  // 积压超过高水位的开始时间（0：没有积压）
+        NetState state;
+        int ackedSeq;  // 客户端确认收到的快照序号（0：没有基线）
+        int sentSeq;   // 最后发送的快照序号
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    /**
+     * 待发送的数据及其所属的池缓冲区（控制消息没有）
+     */
+    private static final class Outbound {
+        final ByteBuffer data;
+        final BufferPool.Buffer owner;
+
+        Outbound(ByteBuffer data, BufferPool.Buffer owner) {
+            this.data = data;
+            this.owner = owner;
+        }
+
+        void release() {
+            if (owner != null) owner.release();
+        }
+    }
+
+    /**
+     * I/O 线程：一个选择器负责一部分连接的读取、解析和广播
+     */
+    private final class Reactor implements Runnable {
+        final Selector selector;
+        private final Queue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        private final List<Connection> conns = new ArrayList<>();
+
+        Reactor(Selector selector) {
+            this.selector = selector;
+        }
+
+        /**
+         * 由接受线程调用：新连接在 I/O 线程上注册
+         */
+        void register(SocketChannel ch) {
+            pending.add(ch);
+            selector.wakeup();
+        }
+
+        @Override public void run() {
+            try (Selector sel = selector) {
+                long lastBroadcast = System.currentTimeMillis();
+                while (running) {
+                    // 最多等到下一次广播
+                    sel.select(Math.max(1, BROADCAST_INTERVAL_MS - (System.currentTimeMillis() - lastBroadcast)));
+                    SocketChannel ch;
+                    while ((ch = pending.poll()) != null) {
+                        SelectionKey key = ch.register(sel, SelectionKey.OP_READ);
+                        Connection conn = new Connection(ch, key);
+                        key.attach(conn);
+                        conns.add(conn);
+                    }
+                    Iterator<SelectionKey> it = sel.selectedKeys().iterator();
+                    while (it.hasNext()) {
+                        SelectionKey key = it.next(); it.remove();
+                        if (!key.isValid()) continue;
+                        Connection conn = (Connection) key.attachment();
+                        try {
+                            if (key.isWritable()) {
+                                flush(conn);
+                            }
+                            if (key.isReadable()) {
+                                if (conn.channel.read(conn.in) < 0) {
+                                    throw new IOException("closed by peer");
+                                }
+                                conn.in.flip();
+                                ByteBuffer frame;
+                                while ((frame = WireProtocol.nextFrame(conn.in, MAX_CLIENT_FRAME)) != null) {
+                                    handleFrame(conn, frame);
                                 }
-                            } catch (Exception e) {
-                                // 忽略解析错误
+                                conn.in.compact();
                             }
+                        } catch (IOException e) {
+                            close(conn);
+                            conns.remove(conn);
+                        } catch (RuntimeException e) {
+                            // 单个连接的处理出错（消息处理、对局查找）只断开该连接，I/O 线程继续运行
+                            System.err.println("处理客户端消息出错，断开连接: " + e);
+                            close(conn);
+                            conns.remove(conn);
                         }
                     }
+                    long now = System.currentTimeMillis();
+                    if (now - lastBroadcast >= BROADCAST_INTERVAL_MS) {
+                        lastBroadcast = now;
+                        broadcast(now);
+                    }
                 }
-                long now = System.currentTimeMillis();
-                if (now - lastBroadcast >= 50) {
-                    lastBroadcast = now;
-                    String json = NetState.getLastKeyframeJson();
-                    if (json != null && !json.isEmpty()) {
-                        ByteBuffer out = ByteBuffer.wrap((json + "\n").getBytes());
-                        for (int i = conns.size() - 1; i >= 0; i--) {
-                            SocketChannel ch = conns.get(i);
-                            if (!ch.isOpen()) { conns.remove(i); continue; }
-                            out.rewind();
-                            try { while (out.hasRemaining()) ch.write(out); } catch (IOException ignored) {}
-                        }
+            } catch (IOException e) {
+                System.err.println("I/O 线程出错: " + e);
+            } finally {
+                for (Connection conn : conns) {
+                    close(conn);
+                }
+                conns.clear();
+            }
+        }
+
+        /**
+         * 把每个对局的最新快照放入各连接的发送队列
+         * 积压超过高水位的连接跳过本轮（降级为更低的更新频率，追上后直接收到最新状态），
+         * 持续积压超过 LAG_DROP_MS 的连接被断开。
+         */
+        private void broadcast(long now) {
+            for (int i = conns.size() - 1; i >= 0; i--) {
+                Connection conn = conns.get(i);
+                if (!conn.channel.isOpen()) { conns.remove(i); continue; }
+                if (conn.state == null) continue;
+                NetworkBuffer.Keyframe kf = conn.state.getLastKeyframe();
+                if (kf == null || kf.seq == conn.sentSeq) continue;
+                if (conn.queuedBytes >= HIGH_WATER_MARK) {
+                    if (conn.lagSince == 0) {
+                        conn.lagSince = now;
+                    } else if (LAG_DROP_MS > 0 && now - conn.lagSince >= LAG_DROP_MS) {
+                        System.out.println("客户端积压 " + conn.queuedBytes + " 字节超过 " + LAG_DROP_MS + "ms，断开连接");
+                        close(conn);
+                        conns.remove(i);
                     }
+                    continue;
                 }
+                conn.lagSince = 0;
+                try {
+                    BufferPool.Buffer out = conn.state.encode(kf, conn.state.getKeyframe(conn.ackedSeq));
+                    enqueue(conn, out.view(), out);
+                    conn.sentSeq = kf.seq;
+                } catch (IOException e) {
+                    close(conn);
+                    conns.remove(i);
+                } catch (RuntimeException e) {
+                    System.err.println("发送快照出错，断开连接: " + e);
+                    close(conn);
+                    conns.remove(i);
+                }
+            }
+        }
+    }
+
+    /**
+     * 处理一个完整的客户端消息
+     */
+    private void handleFrame(Connection conn, ByteBuffer frame) throws IOException {
+        byte type = frame.get();
+        if (type == WireProtocol.JOIN && conn.state == null) {
+            WireProtocol.Join join = WireProtocol.decodeJoin(frame);
+            System.out.println("收到JOIN请求: " + join.name + (join.matchId != null ? "@" + join.matchId : ""));
+            if (join.version != WireProtocol.VERSION) {
+                enqueue(conn, WireProtocol.encodeJoinReject("protocol version " + WireProtocol.VERSION + " required"), null);
+                return;
+            }
+            NetState state = matchResolver.apply(join.matchId != null ? join.matchId : DEFAULT_MATCH_ID);
+            if (state == null) {
+                enqueue(conn, WireProtocol.encodeJoinReject("match unavailable"), null);
+                return;
+            }
+            conn.state = state;
+            state.clientConnected();
+            enqueue(conn, WireProtocol.encodeJoinAck(), null);
+            System.out.println("已发送JOIN-ACK");
+        } else if (type == WireProtocol.INPUT && conn.state != null && frame.remaining() >= 8) {
+            conn.state.setP2Velocity(frame.getFloat(), frame.getFloat());
+        } else if (type == WireProtocol.ACK && frame.remaining() >= 4) {
+            conn.ackedSeq = frame.getInt();
+            if (conn.ackedSeq == 0) conn.sentSeq = 0;  // 客户端丢失了基线：下一轮发送完整快照
+        }
+    }
+
+    /**
+     * 发送数据：队列为空时直接写，写不完的部分排队并关注 OP_WRITE
+     * @param owner out 所属的池缓冲区，调用方的引用转交给连接，写完（或连接关闭）时释放
+     */
+    private static void enqueue(Connection conn, ByteBuffer out, BufferPool.Buffer owner) throws IOException {
+        Outbound entry = new Outbound(out, owner);
+        if (conn.outbound.isEmpty()) {
+            try {
+                conn.channel.write(out);
+            } catch (IOException e) {
+                entry.release();
+                throw e;
+            }
+            if (!out.hasRemaining()) {
+                entry.release();
+                return;
             }
-        } catch (IOException ignored) {
+            conn.key.interestOps(conn.key.interestOps() | SelectionKey.OP_WRITE);
+        }
+        conn.outbound.addLast(entry);
+        conn.queuedBytes += out.remaining();
+    }
+
+    /**
+     * 可写时发送队列中的数据，发完后取消 OP_WRITE
+     */
+    private static void flush(Connection conn) throws IOException {
+        while (!conn.outbound.isEmpty()) {
+            Outbound head = conn.outbound.peekFirst();
+            conn.queuedBytes -= conn.channel.write(head.data);
+            if (head.data.hasRemaining()) return;
+            conn.outbound.pollFirst().release();
+        }
+        conn.key.interestOps(conn.key.interestOps() & ~SelectionKey.OP_WRITE);
+    }
+
+    private static void close(Connection conn) {
+        conn.key.cancel();
+        try { conn.channel.close(); } catch (IOException ignored) {}
+        Outbound entry;
+        while ((entry = conn.outbound.pollFirst()) != null) {
+            entry.release();
+        }
+        conn.queuedBytes = 0;
+        if (conn.state != null) {
+            conn.state.clientDisconnected();
+            conn.state = null;
         }
     }
 }
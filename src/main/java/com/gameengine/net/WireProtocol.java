@@ -0,0 +1,508 @@
+package com.gameengine.net;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * 客户端与服务器之间的二进制协议（NioServer、NioClient 和 StressTest 共用）
+ *
+ * 帧：[长度 int32，不含长度本身][类型 u8][负载]，整数均为大端
+ *   JOIN        C→S  版本 u8, 名字 str, 对局ID str（空串表示默认对局）
+ *   JOIN_ACK    S→C  版本 u8
+ *   JOIN_REJECT S→C  版本 u8, 原因 str
+ *   INPUT       C→S  vx float32, vy float32
+ *   SNAPSHOT    S→C  序号 int32, 时间 int64（毫秒）, 状态 str, 名字表, 实体数 varint, 实体…
+ *   DELTA       S→C  序号 int32, 基线序号 int32, 时间 int64, 状态 str, 名字表,
+ *                    删除数 varint, ID…, 变化数 varint, (ID, 标志 u8, [dx dy], [颜色])…, 新增数 varint, 实体…
+ *   ACK         C→S  已收到的快照序号 int32（0 表示没有可用的基线，请求完整快照）
+ *   名字表：名字数 varint, 名字 str…
+ *   ID：名字序号 varint, 实例号+1 varint（0 表示ID中没有 '#'）
+ *   实体：ID, x/y int16（1/8 像素）, 颜色 RGBA u8×4
+ *   str：长度 u16 + UTF-8
+ * 实体ID "名字#实例号" 拆成帧内的名字表序号和实例号，同类实体只写一次名字。
+ * 增量帧相对客户端已确认的快照编码，按ID对应实体：位置变化写量化坐标差（zigzag varint），
+ * 客户端在基线上应用删除、变化和新增得到完整快照，顺序为基线顺序加上新增实体。
+ */
+public final class WireProtocol {
+    /** 协议版本，JOIN 时版本不一致的客户端会被拒绝 */
+    public static final int VERSION = 2;
+
+    public static final byte JOIN = 1;
+    public static final byte JOIN_ACK = 2;
+    public static final byte JOIN_REJECT = 3;
+    public static final byte INPUT = 4;
+    public static final byte SNAPSHOT = 5;
+    public static final byte ACK = 6;
+    public static final byte DELTA = 7;
+
+    /** 单帧的最大长度（服务器下发的快照） */
+    public static final int MAX_FRAME = 1 << 20;
+    /** 坐标量化：每像素 8 个单位，int16 可以表示 ±4096 像素 */
+    public static final float POSITION_SCALE = 8.0f;
+
+    private static final int HEADER = 5;  // 长度 + 类型
+    private static final int CHANGED_POSITION = 1;
+    private static final int CHANGED_COLOR = 2;
+
+    private WireProtocol() {}
+
+    // ========== 编码 ==========
+
+    public static ByteBuffer encodeJoin(String name, String matchId) {
+        byte[] n = utf8(name);
+        byte[] m = utf8(matchId == null ? "" : matchId);
+        ByteBuffer out = begin(JOIN, 1 + 2 + n.length + 2 + m.length);
+        out.put((byte) VERSION);
+        putString(out, n);
+        putString(out, m);
+        return finish(out);
+    }
+
+    public static ByteBuffer encodeJoinAck() {
+        ByteBuffer out = begin(JOIN_ACK, 1);
+        out.put((byte) VERSION);
+        return finish(out);
+    }
+
+    public static ByteBuffer encodeJoinReject(String reason) {
+        byte[] r = utf8(reason);
+        ByteBuffer out = begin(JOIN_REJECT, 1 + 2 + r.length);
+        out.put((byte) VERSION);
+        putString(out, r);
+        return finish(out);
+    }
+
+    public static ByteBuffer encodeInput(float vx, float vy) {
+        ByteBuffer out = begin(INPUT, 8);
+        out.putFloat(vx);
+        out.putFloat(vy);
+        return finish(out);
+    }
+
+    public static ByteBuffer encodeAck(int seq) {
+        ByteBuffer out = begin(ACK, 4);
+        out.putInt(seq);
+        return finish(out);
+    }
+
+    public static ByteBuffer encodeSnapshot(NetworkBuffer.Keyframe kf) {
+        return encodeSnapshot(kf, ByteBuffer::allocate);
+    }
+
+    /**
+     * 编码完整快照
+     * @param allocator 按所需的最大字节数分配输出缓冲区（position 0，可以比要求的大）
+     */
+    public static ByteBuffer encodeSnapshot(NetworkBuffer.Keyframe kf, IntFunction<ByteBuffer> allocator) {
+        int count = kf.entities.size();
+        IdTable ids = new IdTable();
+        long[] refs = new long[count];
+        for (int i = 0; i < count; i++) {
+            refs[i] = ids.add(kf.entities.get(i).id);
+        }
+
+        byte[] state = utf8(kf.state);
+        ByteBuffer out = begin(SNAPSHOT, 4 + 8 + 2 + state.length + ids.size() + 5 + count * ENTITY_MAX, allocator);
+        out.putInt(kf.seq);
+        out.putLong(Math.round(kf.t * 1000.0));
+        putString(out, state);
+        ids.write(out);
+        putVarint(out, count);
+        for (int i = 0; i < count; i++) {
+            putEntity(out, refs[i], kf.entities.get(i));
+        }
+        return finish(out);
+    }
+
+    public static ByteBuffer encodeDelta(NetworkBuffer.Keyframe base, NetworkBuffer.Keyframe kf) {
+        return encodeDelta(base, kf, ByteBuffer::allocate);
+    }
+
+    /**
+     * 相对基线快照编码增量帧（基线必须是客户端已确认收到的快照）
+     */
+    public static ByteBuffer encodeDelta(NetworkBuffer.Keyframe base, NetworkBuffer.Keyframe kf,
+                                         IntFunction<ByteBuffer> allocator) {
+        Map<String, NetworkBuffer.Entity> previous = new HashMap<>(base.entities.size() * 2);
+        for (NetworkBuffer.Entity e : base.entities) {
+            previous.put(e.id, e);
+        }
+        int count = kf.entities.size();
+        IdTable ids = new IdTable();
+        long[] changedRefs = new long[count];
+        int[] changedFlags = new int[count];
+        NetworkBuffer.Entity[] changedFrom = new NetworkBuffer.Entity[count];
+        NetworkBuffer.Entity[] changedTo = new NetworkBuffer.Entity[count];
+        long[] addedRefs = new long[count];
+        NetworkBuffer.Entity[] added = new NetworkBuffer.Entity[count];
+        int changedCount = 0, addedCount = 0;
+        for (NetworkBuffer.Entity e : kf.entities) {
+            NetworkBuffer.Entity old = previous.remove(e.id);
+            if (old == null) {
+                addedRefs[addedCount] = ids.add(e.id);
+                added[addedCount++] = e;
+                continue;
+            }
+            int flags = 0;
+            if (quantize(e.x) != quantize(old.x) || quantize(e.y) != quantize(old.y)) flags |= CHANGED_POSITION;
+            if (colorOf(e) != colorOf(old)) flags |= CHANGED_COLOR;
+            if (flags == 0) continue;
+            changedRefs[changedCount] = ids.add(e.id);
+            changedFlags[changedCount] = flags;
+            changedFrom[changedCount] = old;
+            changedTo[changedCount++] = e;
+        }
+        long[] removedRefs = new long[previous.size()];
+        int removedCount = 0;
+        for (String id : previous.keySet()) {
+            removedRefs[removedCount++] = ids.add(id);
+        }
+
+        byte[] state = utf8(kf.state);
+        ByteBuffer out = begin(DELTA, 4 + 4 + 8 + 2 + state.length + ids.size()
+            + 5 + removedCount * REF_MAX + 5 + changedCount * (REF_MAX + 1 + 10 + 4) + 5 + addedCount * ENTITY_MAX,
+            allocator);
+        out.putInt(kf.seq);
+        out.putInt(base.seq);
+        out.putLong(Math.round(kf.t * 1000.0));
+        putString(out, state);
+        ids.write(out);
+        putVarint(out, removedCount);
+        for (int i = 0; i < removedCount; i++) {
+            putRef(out, removedRefs[i]);
+        }
+        putVarint(out, changedCount);
+        for (int i = 0; i < changedCount; i++) {
+            putRef(out, changedRefs[i]);
+            out.put((byte) changedFlags[i]);
+            if ((changedFlags[i] & CHANGED_POSITION) != 0) {
+                putVarint(out, zigzag(quantize(changedTo[i].x) - quantize(changedFrom[i].x)));
+                putVarint(out, zigzag(quantize(changedTo[i].y) - quantize(changedFrom[i].y)));
+            }
+            if ((changedFlags[i] & CHANGED_COLOR) != 0) {
+                out.putInt(colorOf(changedTo[i]));
+            }
+        }
+        putVarint(out, addedCount);
+        for (int i = 0; i < addedCount; i++) {
+            putEntity(out, addedRefs[i], added[i]);
+        }
+        return finish(out);
+    }
+
+    // ========== 解码 ==========
+
+    /**
+     * 从读模式的缓冲区中取出下一帧
+     * @return 完整帧的负载视图（从类型字节开始，在缓冲区被 compact 之前有效）；数据不足一帧时返回null
+     * @throws ProtocolException 长度超过 maxFrame 或为空
+     */
+    public static ByteBuffer nextFrame(ByteBuffer in, int maxFrame) throws ProtocolException {
+        if (in.remaining() < 4) return null;
+        int start = in.position();
+        int length = in.getInt(start);
+        if (length < 1 || length > maxFrame) {
+            throw new ProtocolException("invalid frame length " + length);
+        }
+        if (in.remaining() < 4 + length) return null;
+        ByteBuffer frame = in.duplicate();
+        frame.position(start + 4).limit(start + 4 + length);
+        in.position(start + 4 + length);
+        return frame.slice();
+    }
+
+    /**
+     * JOIN 负载（类型字节之后）
+     */
+    public static final class Join {
+        public final int version;
+        public final String name;
+        /** 对局ID，未指定时为null */
+        public final String matchId;
+
+        Join(int version, String name, String matchId) {
+            this.version = version;
+            this.name = name;
+            this.matchId = matchId;
+        }
+    }
+
+    public static Join decodeJoin(ByteBuffer frame) throws ProtocolException {
+        try {
+            int version = frame.get() & 0xFF;
+            String name = getString(frame);
+            String matchId = getString(frame);
+            return new Join(version, name, matchId.isEmpty() ? null : matchId);
+        } catch (RuntimeException e) {
+            throw new ProtocolException("malformed JOIN");
+        }
+    }
+
+    /**
+     * JOIN_REJECT 的原因（类型字节之后）
+     */
+    public static String decodeJoinReject(ByteBuffer frame) throws ProtocolException {
+        try {
+            frame.get();
+            return getString(frame);
+        } catch (RuntimeException e) {
+            throw new ProtocolException("malformed JOIN_REJECT");
+        }
+    }
+
+    public static NetworkBuffer.Keyframe decodeSnapshot(ByteBuffer frame) throws ProtocolException {
+        try {
+            NetworkBuffer.Keyframe kf = new NetworkBuffer.Keyframe();
+            kf.seq = frame.getInt();
+            kf.t = frame.getLong() / 1000.0;
+            kf.state = getString(frame);
+            String[] names = getNames(frame);
+            int count = getCount(frame);
+            kf.entities = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                kf.entities.add(getEntity(frame, names));
+            }
+            return kf;
+        } catch (RuntimeException e) {
+            throw new ProtocolException("malformed SNAPSHOT");
+        }
+    }
+
+    /**
+     * 增量帧的基线序号（类型字节之后，不移动 position）
+     */
+    public static int deltaBase(ByteBuffer frame) {
+        return frame.getInt(frame.position() + 4);
+    }
+
+    /**
+     * 在基线快照上应用增量帧，得到新的完整快照（未变化的实体与基线共用）
+     */
+    public static NetworkBuffer.Keyframe decodeDelta(ByteBuffer frame, NetworkBuffer.Keyframe base) throws ProtocolException {
+        try {
+            NetworkBuffer.Keyframe kf = new NetworkBuffer.Keyframe();
+            kf.seq = frame.getInt();
+            if (frame.getInt() != base.seq) throw new ProtocolException("wrong DELTA baseline");
+            kf.t = frame.getLong() / 1000.0;
+            kf.state = getString(frame);
+            String[] names = getNames(frame);
+            Map<String, NetworkBuffer.Entity> entities = new LinkedHashMap<>(base.entities.size() * 2);
+            for (NetworkBuffer.Entity e : base.entities) {
+                entities.put(e.id, e);
+            }
+            for (int i = getCount(frame); i > 0; i--) {
+                entities.remove(getId(frame, names));
+            }
+            for (int i = getCount(frame); i > 0; i--) {
+                String id = getId(frame, names);
+                NetworkBuffer.Entity old = entities.get(id);
+                if (old == null) throw new ProtocolException("DELTA changes unknown entity " + id);
+                NetworkBuffer.Entity e = new NetworkBuffer.Entity();
+                e.id = id;
+                e.x = old.x; e.y = old.y;
+                e.r = old.r; e.g = old.g; e.b = old.b; e.a = old.a;
+                int flags = frame.get();
+                if ((flags & CHANGED_POSITION) != 0) {
+                    e.x = (quantize(old.x) + unzigzag(getVarint(frame))) / POSITION_SCALE;
+                    e.y = (quantize(old.y) + unzigzag(getVarint(frame))) / POSITION_SCALE;
+                }
+                if ((flags & CHANGED_COLOR) != 0) {
+                    setColor(e, frame.getInt());
+                }
+                entities.put(id, e);
+            }
+            for (int i = getCount(frame); i > 0; i--) {
+                NetworkBuffer.Entity e = getEntity(frame, names);
+                entities.put(e.id, e);
+            }
+            kf.entities = new ArrayList<>(entities.values());
+            return kf;
+        } catch (RuntimeException e) {
+            throw new ProtocolException("malformed DELTA");
+        }
+    }
+
+    // ========== 基本类型 ==========
+
+    private static ByteBuffer begin(byte type, int maxPayload) {
+        return begin(type, maxPayload, ByteBuffer::allocate);
+    }
+
+    private static ByteBuffer begin(byte type, int maxPayload, IntFunction<ByteBuffer> allocator) {
+        ByteBuffer out = allocator.apply(HEADER + maxPayload);
+        out.putInt(0);
+        out.put(type);
+        return out;
+    }
+
+    private static ByteBuffer finish(ByteBuffer out) {
+        out.putInt(0, out.position() - 4);
+        out.flip();
+        return out;
+    }
+
+    private static final int REF_MAX = 10;                  // 两个 varint
+    private static final int ENTITY_MAX = REF_MAX + 4 + 4;
+
+    /**
+     * 帧内的名字表：实体ID拆成名字序号和实例号，打包成 long（高32位名字序号，低32位实例号+1）
+     */
+    private static final class IdTable {
+        private final Map<String, Integer> index = new HashMap<>();
+        private final List<byte[]> names = new ArrayList<>();
+        private int size = 5;
+
+        long add(String id) {
+            if (id == null) id = "";
+            String name = id;
+            int instance = 0;
+            int hash = id.lastIndexOf('#');
+            if (hash >= 0) {
+                try {
+                    instance = Integer.parseInt(id.substring(hash + 1)) + 1;
+                    name = id.substring(0, hash);
+                } catch (NumberFormatException e) {
+                    instance = 0;
+                }
+            }
+            Integer i = index.get(name);
+            if (i == null) {
+                i = names.size();
+                index.put(name, i);
+                byte[] bytes = utf8(name);
+                names.add(bytes);
+                size += 2 + bytes.length;
+            }
+            return ((long) i << 32) | (instance & 0xFFFFFFFFL);
+        }
+
+        /** 写出后的最大字节数 */
+        int size() {
+            return size;
+        }
+
+        void write(ByteBuffer out) {
+            putVarint(out, names.size());
+            for (byte[] name : names) {
+                putString(out, name);
+            }
+        }
+    }
+
+    private static void putRef(ByteBuffer out, long ref) {
+        putVarint(out, (int) (ref >>> 32));
+        putVarint(out, (int) ref);
+    }
+
+    private static void putEntity(ByteBuffer out, long ref, NetworkBuffer.Entity e) {
+        putRef(out, ref);
+        out.putShort(quantize(e.x));
+        out.putShort(quantize(e.y));
+        out.putInt(colorOf(e));
+    }
+
+    private static String[] getNames(ByteBuffer in) {
+        String[] names = new String[getCount(in)];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = getString(in);
+        }
+        return names;
+    }
+
+    private static String getId(ByteBuffer in, String[] names) {
+        String name = names[getVarint(in)];
+        int instance = getVarint(in);
+        return instance == 0 ? name : name + '#' + (instance - 1);
+    }
+
+    private static NetworkBuffer.Entity getEntity(ByteBuffer in, String[] names) {
+        NetworkBuffer.Entity e = new NetworkBuffer.Entity();
+        e.id = getId(in, names);
+        e.x = in.getShort() / POSITION_SCALE;
+        e.y = in.getShort() / POSITION_SCALE;
+        setColor(e, in.getInt());
+        return e;
+    }
+
+    /** 颜色打包成 RGBA 各8位 */
+    private static int colorOf(NetworkBuffer.Entity e) {
+        return (colorByte(e.r) << 24) | (colorByte(e.g) << 16) | (colorByte(e.b) << 8) | colorByte(e.a);
+    }
+
+    private static void setColor(NetworkBuffer.Entity e, int rgba) {
+        e.r = (rgba >>> 24) / 255.0f;
+        e.g = ((rgba >>> 16) & 0xFF) / 255.0f;
+        e.b = ((rgba >>> 8) & 0xFF) / 255.0f;
+        e.a = (rgba & 0xFF) / 255.0f;
+    }
+
+    private static int zigzag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    private static int unzigzag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static short quantize(float v) {
+        float q = Math.round(v * POSITION_SCALE);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, q));
+    }
+
+    private static int colorByte(float c) {
+        return Math.round(Math.max(0.0f, Math.min(1.0f, c)) * 255.0f);
+    }
+
+    private static byte[] utf8(String s) {
+        byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("string too long: " + bytes.length + " bytes");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer out, byte[] bytes) {
+        out.putShort((short) bytes.length);
+        out.put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putVarint(ByteBuffer out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    /**
+     * 读取元素个数（每个元素至少占一个字节，超过剩余字节数的一定是坏数据）
+     */
+    private static int getCount(ByteBuffer in) {
+        int count = getVarint(in);
+        if (count < 0 || count > in.remaining()) throw new IllegalStateException("bad count " + count);
+        return count;
+    }
+
+    private static int getVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalStateException("varint too long");
+    }
+}
@@ -0,0 +1,117 @@
+package com.gameengine.physics;
+
+import com.gameengine.components.HealthComponent;
+import com.gameengine.components.ProjectileComponent;
+import com.gameengine.components.TeamComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameObject;
+import com.gameengine.scene.Scene;
+import com.gameengine.scene.SceneQuery;
+import com.gameengine.scene.SpatialIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 碰撞系统
+ * 每帧批量检测所有子弹的命中，并把伤害交给目标的HealthComponent处理。
+ * 宽阶段复用Scene维护的空间哈希（与网格格子对齐），穿透和范围伤害子弹
+ * 只检查附近格子中的目标阵营对象，不需要逐个扫描全部实体。
+ */
+public class CollisionSystem {
+    private final Scene scene;
+    private final SceneQuery projectiles;  // Projectile + Transform
+    private final List<GameObject> candidates = new ArrayList<>();
+    private final List<GameObject> area = new ArrayList<>();  // 范围伤害单独收集，穿透候选仍在遍历中
+
+    public CollisionSystem(Scene scene) {
+        this.scene = scene;
+        this.projectiles = scene.query(ProjectileComponent.class, TransformComponent.class);
+    }
+
+    /**
+     * 检测并处理本帧所有子弹的命中
+     */
+    public void update() {
+        SpatialIndex index = scene.getSpatialIndex();
+        ProjectileComponent[] projectileColumn = projectiles.column(ProjectileComponent.class);
+        TransformComponent[] transformColumn = projectiles.column(TransformComponent.class);
+        for (int i = 0; i < projectiles.size(); i++) {
+            GameObject bullet = projectiles.get(i);
+            if (!bullet.isActive()) continue;
+            ProjectileComponent projectile = projectileColumn[i];
+            TransformComponent transform = transformColumn[i];
+            if (projectile.isPassThrough()) {
+                updatePassThrough(index, bullet, projectile, transform);
+            } else {
+                updateSingleTarget(index, bullet, projectile);
+            }
+        }
+    }
+
+    /**
+     * 普通子弹：只与自己的目标做碰撞检测
+     */
+    private void updateSingleTarget(SpatialIndex index, GameObject bullet, ProjectileComponent projectile) {
+        GameObject target = projectile.getTarget();
+        if (target == null || !target.isActive()) return;
+        if (!projectile.checkCollision(target)) return;
+
+        TransformComponent targetTransform = target.getComponent(TransformComponent.class);
+        if (projectile.getSplashRadius() > 0 && projectile.getTargetTeam() != null) {
+            splash(index, projectile, targetTransform.getX(), targetTransform.getY());
+        } else {
+            damage(target, projectile.getDamage());
+        }
+        bullet.destroy();
+    }
+
+    /**
+     * 穿透子弹：命中半径内所有未命中过的目标阵营对象，用尽后销毁
+     */
+    private void updatePassThrough(SpatialIndex index, GameObject bullet, ProjectileComponent projectile,
+                                   TransformComponent transform) {
+        TeamComponent.Team team = projectile.getTargetTeam();
+        if (team == null) return;
+
+        float x = transform.getX();
+        float y = transform.getY();
+        candidates.clear();
+        index.findInRadius(x, y, projectile.getHitRadius(), team, candidates);
+        for (int i = 0; i < candidates.size(); i++) {
+            GameObject hit = candidates.get(i);
+            if (projectile.hasHit(hit)) continue;
+
+            if (projectile.getSplashRadius() > 0) {
+                TransformComponent hitTransform = hit.getComponent(TransformComponent.class);
+                splash(index, projectile, hitTransform.getX(), hitTransform.getY());
+            } else {
+                damage(hit, projectile.getDamage());
+            }
+            if (projectile.recordHit(hit)) {
+                bullet.destroy();
+                break;
+            }
+        }
+        candidates.clear();
+    }
+
+    /**
+     * 范围伤害：对落点半径内所有目标阵营对象造成伤害
+     */
+    private void splash(SpatialIndex index, ProjectileComponent projectile, float x, float y) {
+        area.clear();
+        index.findInRadius(x, y, projectile.getSplashRadius(), projectile.getTargetTeam(), area);
+        for (int i = 0; i < area.size(); i++) {
+            damage(area.get(i), projectile.getDamage());
+        }
+        area.clear();
+    }
+
+    private void damage(GameObject target, float amount) {
+        HealthComponent health = target.getComponent(HealthComponent.class);
+        if (health != null && health.isAlive()) {
+            health.takeDamage(amount);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.gameengine.recording;
+
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static com.gameengine.recording.BinaryRecordingFormat.*;
+
+/**
+ * 二进制录制解码器：把二进制记录还原为与原始录制完全相同的JSONL行
+ */
+final class BinaryRecordingDecoder {
+    private final CountingInputStream counter;
+    private final DataInputStream in;
+    private final int decimals;
+    private final KeyframeRecord keyframe = new KeyframeRecord();
+    private final InputRecord input = new InputRecord();
+    private final StringBuilder sb = new StringBuilder(1024);
+
+    // 当前同步段内的实体字典
+    private int dictSize;
+    private String[] dictIds = new String[64];
+    private boolean[] dictHasRender = new boolean[64];
+    private String[] dictRt = new String[64];
+    private long[][] dictAttrs = new long[64][];
+    private long[] lastX = new long[64];
+    private long[] lastY = new long[64];
+    private long lastT;
+    private long syncPosition;
+
+    /**
+     * 从文件开头读取并校验文件头
+     */
+    BinaryRecordingDecoder(InputStream input) throws IOException {
+        this(new CountingInputStream(input, 0), -1);
+    }
+
+    /**
+     * 从文件中间的同步点开始解码
+     * @param input 已定位到 position 的输入流
+     * @param decimals 文件头中的小数位数（见 readHeader）
+     */
+    BinaryRecordingDecoder(InputStream input, long position, int decimals) throws IOException {
+        this(new CountingInputStream(input, position), decimals);
+    }
+
+    private BinaryRecordingDecoder(CountingInputStream counter, int decimals) throws IOException {
+        this.counter = counter;
+        this.in = new DataInputStream(counter);
+        this.decimals = decimals >= 0 ? decimals : readHeader(in);
+        this.syncPosition = counter.getPosition();
+    }
+
+    /**
+     * 读取并校验文件头，返回小数位数
+     */
+    static int readHeader(DataInput in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a binary recording");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary recording version: " + version);
+        }
+        int decimals = in.readUnsignedByte();
+        if (decimals > MAX_DECIMALS) {
+            throw new IOException("Unsupported decimals: " + decimals);
+        }
+        return decimals;
+    }
+
+    /**
+     * 最近读到的同步点在文件中的位置
+     */
+    long getSyncPosition() {
+        return syncPosition;
+    }
+
+    /**
+     * 读取下一行，文件结束时返回null
+     */
+    String readLine() throws IOException {
+        while (true) {
+            long tagPosition = counter.getPosition();
+            int tag = in.read();
+            if (tag < 0) {
+                return null;
+            }
+            try {
+                switch (tag) {
+                    case TAG_RAW:
+                        return readString(in);
+                    case TAG_SYNC:
+                        syncPosition = tagPosition;
+                        dictSize = 0;
+                        lastT = 0;
+                        break;
+                    case TAG_DEFINE:
+                        define(readString(in));
+                        break;
+                    case TAG_ATTR:
+                        readAttrs((int) readVarLong(in));
+                        break;
+                    case TAG_KEYFRAME:
+                        return readKeyframe();
+                    case TAG_INPUT:
+                        return readInput();
+                    default:
+                        throw new IOException("Unknown record tag: " + tag);
+                }
+            } catch (EOFException e) {
+                throw new IOException("Truncated binary recording", e);
+            }
+        }
+    }
+
+    private void define(String id) throws IOException {
+        int idx = dictSize++;
+        if (idx == dictIds.length) {
+            int cap = idx * 2;
+            dictIds = Arrays.copyOf(dictIds, cap);
+            dictHasRender = Arrays.copyOf(dictHasRender, cap);
+            dictRt = Arrays.copyOf(dictRt, cap);
+            dictAttrs = Arrays.copyOf(dictAttrs, cap);
+            lastX = Arrays.copyOf(lastX, cap);
+            lastY = Arrays.copyOf(lastY, cap);
+        }
+        if (dictAttrs[idx] == null) {
+            dictAttrs[idx] = new long[6];
+        }
+        dictIds[idx] = id;
+        lastX[idx] = 0;
+        lastY[idx] = 0;
+        readAttrs(idx);
+    }
+
+    private void readAttrs(int idx) throws IOException {
+        checkIndex(idx);
+        dictHasRender[idx] = in.readBoolean();
+        if (!dictHasRender[idx]) {
+            return;
+        }
+        dictRt[idx] = readString(in);
+        long[] a = dictAttrs[idx];
+        for (int k = 0; k < 6; k++) {
+            a[k] = readZigZag(in);
+        }
+    }
+
+    private String readKeyframe() throws IOException {
+        keyframe.clear();
+        lastT += readZigZag(in);
+        keyframe.t = lastT;
+        int n = (int) readVarLong(in);
+        for (int i = 0; i < n; i++) {
+            int idx = (int) readVarLong(in);
+            checkIndex(idx);
+            lastX[idx] += readZigZag(in);
+            lastY[idx] += readZigZag(in);
+
+            int e = keyframe.add();
+            keyframe.ids[e] = dictIds[idx];
+            keyframe.xs[e] = lastX[idx];
+            keyframe.ys[e] = lastY[idx];
+            keyframe.hasRender[e] = dictHasRender[idx];
+            keyframe.rts[e] = dictRt[idx];
+            System.arraycopy(dictAttrs[idx], 0, keyframe.attrs[e], 0, 6);
+        }
+        sb.setLength(0);
+        keyframe.appendJson(sb, decimals);
+        return sb.toString();
+    }
+
+    private String readInput() throws IOException {
+        input.count = 0;
+        input.t = readZigZag(in);
+        int n = (int) readVarLong(in);
+        for (int i = 0; i < n; i++) {
+            input.add(readZigZag(in));
+        }
+        sb.setLength(0);
+        input.appendJson(sb, decimals);
+        return sb.toString();
+    }
+
+    private void checkIndex(int idx) throws IOException {
+        if (idx < 0 || idx >= dictSize) {
+            throw new IOException("Entity index out of range: " + idx);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.gameengine.recording;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.gameengine.recording.BinaryRecordingFormat.*;
+
+/**
+ * 二进制录制编码器：把录制服务生成的JSONL行编码为二进制记录
+ * 关键帧和输入事件按定点数编码，其余行（或无法精确还原的行）以RAW记录原样保存。
+ * 每 syncInterval 个关键帧写一个同步点，同步点之后的数据可以独立解码。
+ */
+final class BinaryRecordingEncoder {
+    private final CountingOutputStream counter;
+    private final DataOutputStream out;
+    private final int decimals;
+    private final int syncInterval;
+    private final Cursor cursor;
+    private final KeyframeRecord keyframe = new KeyframeRecord();
+    private final InputRecord input = new InputRecord();
+    private final StringBuilder check = new StringBuilder(1024);
+
+    // 当前同步段内的实体字典
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private boolean[] dictHasRender = new boolean[64];
+    private String[] dictRt = new String[64];
+    private long[][] dictAttrs = new long[64][];
+    private long[] lastX = new long[64];
+    private long[] lastY = new long[64];
+    private long lastT;
+    private int keyframesSinceSync = -1;
+    private long syncPosition;
+
+    BinaryRecordingEncoder(OutputStream output, int decimals, int syncInterval) throws IOException {
+        if (decimals < 0 || decimals > MAX_DECIMALS) {
+            throw new IllegalArgumentException("Unsupported decimals: " + decimals);
+        }
+        this.counter = new CountingOutputStream(output);
+        this.out = new DataOutputStream(counter);
+        this.decimals = decimals;
+        this.syncInterval = Math.max(1, syncInterval);
+        this.cursor = new Cursor(decimals);
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(decimals);
+    }
+
+    /**
+     * 编码一行
+     */
+    void writeLine(String line) throws IOException {
+        if (line.startsWith(KEYFRAME_PREFIX) && keyframe.parse(line, cursor) && roundTrips(line, true)) {
+            writeKeyframe();
+        } else if (line.startsWith(INPUT_PREFIX) && input.parse(line, cursor) && roundTrips(line, false)) {
+            out.writeByte(TAG_INPUT);
+            writeZigZag(out, input.t);
+            writeVarLong(out, input.count);
+            for (int i = 0; i < input.count; i++) {
+                writeZigZag(out, input.keys[i]);
+            }
+        } else {
+            out.writeByte(TAG_RAW);
+            writeString(out, line);
+        }
+    }
+
+    /**
+     * 最近一个同步点在文件中的位置（从这里开始可以独立解码）
+     */
+    long getSyncPosition() {
+        return syncPosition;
+    }
+
+    void flush() throws IOException {
+        out.flush();
+    }
+
+    void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * 下一个关键帧是否会写同步点
+     */
+    boolean atSyncPoint() {
+        return keyframesSinceSync < 0 || keyframesSinceSync >= syncInterval;
+    }
+
+    /**
+     * 检查解析结果能否还原出完全相同的文本
+     */
+    private boolean roundTrips(String line, boolean isKeyframe) {
+        check.setLength(0);
+        if (isKeyframe) {
+            keyframe.appendJson(check, decimals);
+        } else {
+            input.appendJson(check, decimals);
+        }
+        return line.contentEquals(check);
+    }
+
+    private void writeKeyframe() throws IOException {
+        if (atSyncPoint()) {
+            syncPosition = counter.getCount();
+            out.writeByte(TAG_SYNC);
+            dictionary.clear();
+            lastT = 0;
+            keyframesSinceSync = 0;
+        }
+
+        // 先登记新实体和属性变化
+        int n = keyframe.count;
+        int[] indices = new int[n];
+        for (int e = 0; e < n; e++) {
+            Integer idx = dictionary.get(keyframe.ids[e]);
+            if (idx == null) {
+                idx = define(e);
+            } else if (!sameAttrs(idx, e)) {
+                out.writeByte(TAG_ATTR);
+                writeVarLong(out, idx);
+                writeAttrs(idx, e);
+            }
+            indices[e] = idx;
+        }
+
+        out.writeByte(TAG_KEYFRAME);
+        writeZigZag(out, keyframe.t - lastT);
+        lastT = keyframe.t;
+        writeVarLong(out, n);
+        for (int e = 0; e < n; e++) {
+            int idx = indices[e];
+            writeVarLong(out, idx);
+            writeZigZag(out, keyframe.xs[e] - lastX[idx]);
+            writeZigZag(out, keyframe.ys[e] - lastY[idx]);
+            lastX[idx] = keyframe.xs[e];
+            lastY[idx] = keyframe.ys[e];
+        }
+        keyframesSinceSync++;
+    }
+
+    private int define(int e) throws IOException {
+        int idx = dictionary.size();
+        if (idx == lastX.length) {
+            int cap = idx * 2;
+            dictHasRender = Arrays.copyOf(dictHasRender, cap);
+            dictRt = Arrays.copyOf(dictRt, cap);
+            dictAttrs = Arrays.copyOf(dictAttrs, cap);
+            lastX = Arrays.copyOf(lastX, cap);
+            lastY = Arrays.copyOf(lastY, cap);
+        }
+        dictionary.put(keyframe.ids[e], idx);
+        if (dictAttrs[idx] == null) {
+            dictAttrs[idx] = new long[6];
+        }
+        lastX[idx] = 0;
+        lastY[idx] = 0;
+        out.writeByte(TAG_DEFINE);
+        writeString(out, keyframe.ids[e]);
+        writeAttrs(idx, e);
+        return idx;
+    }
+
+    /**
+     * 写入并记住实体的静态属性
+     */
+    private void writeAttrs(int idx, int e) throws IOException {
+        boolean render = keyframe.hasRender[e];
+        dictHasRender[idx] = render;
+        out.writeBoolean(render);
+        if (!render) {
+            return;
+        }
+        dictRt[idx] = keyframe.rts[e];
+        writeString(out, keyframe.rts[e]);
+        long[] a = keyframe.attrs[e];
+        System.arraycopy(a, 0, dictAttrs[idx], 0, 6);
+        for (int k = 0; k < 6; k++) {
+            writeZigZag(out, a[k]);
+        }
+    }
+
+    private boolean sameAttrs(int idx, int e) {
+        if (dictHasRender[idx] != keyframe.hasRender[e]) return false;
+        if (!keyframe.hasRender[e]) return true;
+        return dictRt[idx].equals(keyframe.rts[e]) && Arrays.equals(dictAttrs[idx], keyframe.attrs[e]);
+    }
+}
@@ -0,0 +1,430 @@
+package com.gameengine.recording;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 二进制录制格式的常量和编解码工具
+ *
+ * 文件结构：魔数 "HREC" + 版本(1字节) + 小数位数(1字节)，之后是一串记录，每条记录以1字节标签开头：
+ *   RAW       原样保存的一行文本（无法精确编码的行，如header）
+ *   SYNC      同步点：清空实体字典和上一帧状态，之后的数据不依赖此前内容
+ *   DEFINE    向字典登记一个实体ID及其静态属性（形状、尺寸、颜色）
+ *   ATTR      实体的静态属性发生变化
+ *   KEYFRAME  关键帧：时间差 + 每个实体的字典下标和相对上一次位置的坐标差
+ *   INPUT     输入事件
+ * 所有数值按 小数位数 量化为定点整数，以zigzag变长整数存储。
+ */
+final class BinaryRecordingFormat {
+    static final byte[] MAGIC = {'H', 'R', 'E', 'C'};
+    static final int VERSION = 1;
+
+    static final int TAG_RAW = 0;
+    static final int TAG_DEFINE = 1;
+    static final int TAG_ATTR = 2;
+    static final int TAG_KEYFRAME = 3;
+    static final int TAG_INPUT = 4;
+    static final int TAG_SYNC = 5;
+
+    static final String KEYFRAME_PREFIX = "{\"type\":\"keyframe\",\"t\":";
+    static final String INPUT_PREFIX = "{\"type\":\"input\",\"t\":";
+
+    private static final long[] POW10 = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L
+    };
+    static final int MAX_DECIMALS = POW10.length - 1;
+
+    /** 文件头长度：魔数 + 版本 + 小数位数 */
+    static final int HEADER_LENGTH = MAGIC.length + 2;
+
+    private BinaryRecordingFormat() {}
+
+    // ========== 变长整数 ==========
+
+    static void writeVarLong(DataOutput out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long result = 0;
+        int shift = 0;
+        while (shift < 64) {
+            int b = in.readUnsignedByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    static void writeZigZag(DataOutput out, long v) throws IOException {
+        writeVarLong(out, (v << 1) ^ (v >> 63));
+    }
+
+    static long readZigZag(DataInput in) throws IOException {
+        long v = readVarLong(in);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    static void writeString(DataOutput out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int len = (int) readVarLong(in);
+        byte[] bytes = new byte[len];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 记录已写入字节数的输出流（用于记录同步点在文件中的位置）
+     */
+    static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * 记录当前文件位置的输入流
+     */
+    static final class CountingInputStream extends FilterInputStream {
+        private long position;
+
+        CountingInputStream(InputStream in, long position) {
+            super(in);
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) position++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = in.read(b, off, len);
+            if (n > 0) position += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(n);
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+
+        long getPosition() {
+            return position;
+        }
+    }
+
+    // ========== 定点数 ==========
+
+    /**
+     * 按小数位数输出定点数（去掉末尾的0，与录制时DecimalFormat的输出一致）
+     */
+    static void appendScaled(StringBuilder sb, long value, int decimals) {
+        if (value < 0) {
+            sb.append('-');
+            value = -value;
+        }
+        long scale = POW10[decimals];
+        sb.append(value / scale);
+        long frac = value % scale;
+        if (frac == 0) {
+            return;
+        }
+        int digits = decimals;
+        while (frac % 10 == 0) {
+            frac /= 10;
+            digits--;
+        }
+        String f = Long.toString(frac);
+        sb.append('.');
+        for (int i = f.length(); i < digits; i++) {
+            sb.append('0');
+        }
+        sb.append(f);
+    }
+
+    // ========== 文本解析（严格按录制服务的输出格式） ==========
+
+    /**
+     * 文本行上的解析游标
+     * 只接受录制服务生成的固定格式，任何不符合的地方都返回失败，由调用方退回RAW记录
+     */
+    static final class Cursor {
+        private String s;
+        private int pos;
+        private final int decimals;
+        long number;   // 最近一次readScaled的结果
+        String string; // 最近一次readQuoted的结果
+
+        Cursor(int decimals) {
+            this.decimals = decimals;
+        }
+
+        void reset(String line, int start) {
+            this.s = line;
+            this.pos = start;
+        }
+
+        boolean expect(String literal) {
+            if (!s.startsWith(literal, pos)) return false;
+            pos += literal.length();
+            return true;
+        }
+
+        boolean peek(char c) {
+            return pos < s.length() && s.charAt(pos) == c;
+        }
+
+        boolean atEnd() {
+            return pos == s.length();
+        }
+
+        /**
+         * 读取双引号之间的字符串（不支持转义）
+         */
+        boolean readQuoted() {
+            if (!peek('"')) return false;
+            int end = s.indexOf('"', pos + 1);
+            if (end < 0) return false;
+            String v = s.substring(pos + 1, end);
+            if (v.indexOf('\\') >= 0) return false;
+            string = v;
+            pos = end + 1;
+            return true;
+        }
+
+        /**
+         * 读取十进制数并转换为定点整数（小数位超过精度时失败）
+         */
+        boolean readScaled() {
+            int i = pos;
+            boolean negative = false;
+            if (i < s.length() && s.charAt(i) == '-') {
+                negative = true;
+                i++;
+            }
+            long intPart = 0;
+            int intDigits = 0;
+            while (i < s.length() && Character.isDigit(s.charAt(i))) {
+                if (++intDigits > 15) return false;
+                intPart = intPart * 10 + (s.charAt(i) - '0');
+                i++;
+            }
+            if (intDigits == 0) return false;
+            long frac = 0;
+            int fracDigits = 0;
+            if (i < s.length() && s.charAt(i) == '.') {
+                i++;
+                while (i < s.length() && Character.isDigit(s.charAt(i))) {
+                    if (++fracDigits > decimals) return false;
+                    frac = frac * 10 + (s.charAt(i) - '0');
+                    i++;
+                }
+                if (fracDigits == 0) return false;
+            }
+            long v = intPart * POW10[decimals] + frac * POW10[decimals - fracDigits];
+            number = negative ? -v : v;
+            pos = i;
+            return true;
+        }
+    }
+
+    // ========== 记录结构 ==========
+
+    /**
+     * 一个关键帧（编码和解码共用，可复用）
+     */
+    static final class KeyframeRecord {
+        long t;
+        int count;
+        String[] ids = new String[64];
+        long[] xs = new long[64];
+        long[] ys = new long[64];
+        boolean[] hasRender = new boolean[64];
+        String[] rts = new String[64];
+        long[][] attrs = new long[64][];  // w, h, r, g, b, a
+
+        void clear() {
+            count = 0;
+        }
+
+        int add() {
+            if (count == ids.length) {
+                int cap = count * 2;
+                ids = Arrays.copyOf(ids, cap);
+                xs = Arrays.copyOf(xs, cap);
+                ys = Arrays.copyOf(ys, cap);
+                hasRender = Arrays.copyOf(hasRender, cap);
+                rts = Arrays.copyOf(rts, cap);
+                attrs = Arrays.copyOf(attrs, cap);
+            }
+            if (attrs[count] == null) {
+                attrs[count] = new long[6];
+            }
+            return count++;
+        }
+
+        /**
+         * 解析录制服务生成的关键帧行
+         */
+        boolean parse(String line, Cursor c) {
+            clear();
+            c.reset(line, 0);
+            if (!c.expect(KEYFRAME_PREFIX) || !c.readScaled()) return false;
+            t = c.number;
+            if (!c.expect(",\"entities\":[")) return false;
+            boolean first = true;
+            while (!c.peek(']')) {
+                if (!first && !c.expect(",")) return false;
+                first = false;
+                int e = add();
+                if (!c.expect("{\"id\":") || !c.readQuoted()) return false;
+                ids[e] = c.string;
+                if (!c.expect(",\"x\":") || !c.readScaled()) return false;
+                xs[e] = c.number;
+                if (!c.expect(",\"y\":") || !c.readScaled()) return false;
+                ys[e] = c.number;
+                hasRender[e] = c.expect(",\"rt\":");
+                if (hasRender[e]) {
+                    if (!c.readQuoted()) return false;
+                    rts[e] = c.string;
+                    long[] a = attrs[e];
+                    if (!c.expect(",\"w\":") || !c.readScaled()) return false;
+                    a[0] = c.number;
+                    if (!c.expect(",\"h\":") || !c.readScaled()) return false;
+                    a[1] = c.number;
+                    if (!c.expect(",\"color\":[") || !c.readScaled()) return false;
+                    a[2] = c.number;
+                    for (int k = 3; k < 6; k++) {
+                        if (!c.expect(",") || !c.readScaled()) return false;
+                        a[k] = c.number;
+                    }
+                    if (!c.expect("]")) return false;
+                }
+                if (!c.expect("}")) return false;
+            }
+            return c.expect("]}") && c.atEnd();
+        }
+
+        /**
+         * 输出为录制服务的JSONL格式
+         */
+        void appendJson(StringBuilder sb, int decimals) {
+            sb.append(KEYFRAME_PREFIX);
+            appendScaled(sb, t, decimals);
+            sb.append(",\"entities\":[");
+            for (int e = 0; e < count; e++) {
+                if (e > 0) sb.append(',');
+                sb.append("{\"id\":\"").append(ids[e]).append("\",\"x\":");
+                appendScaled(sb, xs[e], decimals);
+                sb.append(",\"y\":");
+                appendScaled(sb, ys[e], decimals);
+                if (hasRender[e]) {
+                    long[] a = attrs[e];
+                    sb.append(",\"rt\":\"").append(rts[e]).append("\",\"w\":");
+                    appendScaled(sb, a[0], decimals);
+                    sb.append(",\"h\":");
+                    appendScaled(sb, a[1], decimals);
+                    sb.append(",\"color\":[");
+                    for (int k = 2; k < 6; k++) {
+                        if (k > 2) sb.append(',');
+                        appendScaled(sb, a[k], decimals);
+                    }
+                    sb.append(']');
+                }
+                sb.append('}');
+            }
+            sb.append("]}");
+        }
+    }
+
+    /**
+     * 一条输入事件（编码和解码共用，可复用）
+     */
+    static final class InputRecord {
+        long t;
+        int count;
+        long[] keys = new long[8];
+
+        boolean parse(String line, Cursor c) {
+            count = 0;
+            c.reset(line, 0);
+            if (!c.expect(INPUT_PREFIX) || !c.readScaled()) return false;
+            t = c.number;
+            if (!c.expect(",\"keys\":[")) return false;
+            boolean first = true;
+            while (!c.peek(']')) {
+                if (!first && !c.expect(",")) return false;
+                first = false;
+                if (!c.readScaled()) return false;
+                add(c.number);
+            }
+            return c.expect("]}") && c.atEnd();
+        }
+
+        void add(long key) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+            }
+            keys[count++] = key;
+        }
+
+        void appendJson(StringBuilder sb, int decimals) {
+            sb.append(INPUT_PREFIX);
+            appendScaled(sb, t, decimals);
+            sb.append(",\"keys\":[");
+            for (int i = 0; i < count; i++) {
+                if (i > 0) sb.append(',');
+                appendScaled(sb, keys[i], decimals);
+            }
+            sb.append("]}");
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.gameengine.recording;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基于文件系统的二进制录制存储实现
+ * 写入和读取的都是与JSONL格式相同的行，落盘时使用紧凑的二进制编码（.rec），
+ * 写入时同时生成 .idx 随机访问索引（索引点对齐到同步点）
+ */
+public class BinaryRecordingStorage implements RecordingStorage {
+    public static final String EXTENSION = ".rec";
+
+    /** 每个索引间隔一个同步点 */
+    private static final int DEFAULT_SYNC_INTERVAL = RecordingIndex.DEFAULT_INTERVAL;
+
+    private final int decimals;
+    private BinaryRecordingEncoder encoder;
+    private String writerPath;
+    private RecordingIndex index;
+
+    public BinaryRecordingStorage() {
+        this(2);
+    }
+
+    /**
+     * @param decimals 数值精度（小数位数），应与录制配置的quantizeDecimals一致
+     */
+    public BinaryRecordingStorage(int decimals) {
+        this.decimals = decimals;
+    }
+
+    @Override
+    public void openWriter(String path) throws IOException {
+        Path p = Paths.get(path);
+        if (p.getParent() != null) {
+            Files.createDirectories(p.getParent());
+        }
+        encoder = new BinaryRecordingEncoder(
+            new BufferedOutputStream(Files.newOutputStream(p), 64 * 1024), decimals, DEFAULT_SYNC_INTERVAL);
+        writerPath = path;
+        index = new RecordingIndex(RecordingIndex.DEFAULT_INTERVAL);
+    }
+
+    @Override
+    public void writeLine(String line) throws IOException {
+        if (encoder == null) {
+            throw new IllegalStateException("Writer not opened");
+        }
+        encoder.writeLine(line);
+        index.accept(line, encoder.getSyncPosition());
+    }
+
+    /**
+     * 关键帧按实体字典做位置增量编码，RecordingService 不需要再写delta行
+     */
+    @Override
+    public boolean encodesDeltas() {
+        return true;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (encoder != null) {
+            encoder.flush();
+        }
+    }
+
+    @Override
+    public void closeWriter() {
+        if (encoder != null) {
+            try {
+                encoder.flush();
+            } catch (Exception ignored) {}
+            try {
+                encoder.close();
+            } catch (Exception ignored) {}
+            try {
+                index.save(writerPath);
+            } catch (Exception e) {
+                System.err.println("保存录制索引失败: " + e.getMessage());
+            }
+            encoder = null;
+            index = null;
+        }
+    }
+
+    @Override
+    public Iterable<String> readLines(String path) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(Paths.get(path)), 64 * 1024)) {
+            BinaryRecordingDecoder decoder = new BinaryRecordingDecoder(in);
+            String line;
+            while ((line = decoder.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    @Override
+    public RecordingReader openReader(String path, long position) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        try {
+            BinaryRecordingDecoder decoder;
+            if (position <= 0) {
+                decoder = new BinaryRecordingDecoder(
+                    new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+            } else {
+                // 先读文件头取得小数位数，再定位到同步点
+                int fileDecimals = BinaryRecordingDecoder.readHeader(
+                    new DataInputStream(Channels.newInputStream(channel)));
+                channel.position(position);
+                decoder = new BinaryRecordingDecoder(
+                    new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024), position, fileDecimals);
+            }
+            return new BinaryReader(channel, decoder);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public List<File> listRecordings() {
+        File dir = new File("recordings");
+        if (!dir.exists() || !dir.isDirectory()) {
+            return new ArrayList<>();
+        }
+        File[] files = dir.listFiles((d, name) -> name.endsWith(EXTENSION));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        // 按修改时间倒序排列
+        Arrays.sort(files, (a, b) ->
+            Long.compare(b.lastModified(), a.lastModified()));
+        return new ArrayList<>(Arrays.asList(files));
+    }
+
+    private static final class BinaryReader implements RecordingReader {
+        private final FileChannel channel;
+        private final BinaryRecordingDecoder decoder;
+
+        BinaryReader(FileChannel channel, BinaryRecordingDecoder decoder) {
+            this.channel = channel;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public String readLine() throws IOException {
+            return decoder.readLine();
+        }
+
+        @Override
+        public long resumePosition() {
+            return decoder.getSyncPosition();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.gameengine.recording;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 块压缩的JSONL录制存储
+ * 文件结构：文件头（MAGIC、版本、编解码器名称） + 若干块，每块为 [解压后长度][压缩后长度][压缩数据]，
+ * 块内是以 '\n' 分隔的JSONL行。每 RecordingIndex.DEFAULT_INTERVAL 个关键帧（一个索引段）开始一个新块，
+ * 索引点总是块的开始，因此 .idx 中的位置就是块的起始位置，可以直接定位到文件中间解压。
+ * 读取时按文件头中的名称选择编解码器（见 RecordingCodecs），对调用方透明。
+ *
+ * 未满的块在内存中累积；flush() 时块已超过 recording.blockFlushBytes 字节（默认64KB）
+ * 或已累积 recording.blockFlushMs 毫秒（默认2000）就提前写出并保存索引，一个索引段可以由多个块组成。
+ * 录制异常中断时最多丢失这部分，末尾不完整的块在读取时忽略。
+ */
+public class CompressedRecordingStorage implements RecordingStorage {
+    private static final byte[] MAGIC = {'H', 'Z', 'B', 'K'};
+    private static final int VERSION = 1;
+    private static final int BLOCK_HEADER_BYTES = 8;
+
+    /** 每块的关键帧数，与索引间隔一致 */
+    private static final int KEYFRAMES_PER_BLOCK = RecordingIndex.DEFAULT_INTERVAL;
+    /** flush() 时提前写出未满块的阈值，限制异常中断时丢失的数据量 */
+    private static final int FLUSH_BLOCK_BYTES = Integer.getInteger("recording.blockFlushBytes", 64 * 1024);
+    private static final long FLUSH_BLOCK_MS = Long.getLong("recording.blockFlushMs", 2000L);
+
+    private final RecordingCodec codec;
+    private DataOutputStream out;
+    private String writerPath;
+    private RecordingIndex index;
+    private long blockStart;
+    private byte[] block = new byte[64 * 1024];
+    private int blockLength;
+    private long blockOpenedAt;      // 当前块第一行的写入时间
+    private int keyframesInSegment;  // 当前索引段已写的关键帧数（提前写出块时不清零）
+    private final ByteArrayOutputStream compressed = new ByteArrayOutputStream(16 * 1024);
+
+    /**
+     * 只用于读取（编解码器由文件头决定）
+     */
+    public CompressedRecordingStorage() {
+        this(new GzipRecordingCodec());
+    }
+
+    /**
+     * @param codec 写入时使用的编解码器
+     */
+    public CompressedRecordingStorage(RecordingCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public void openWriter(String path) throws IOException {
+        Path p = Paths.get(path);
+        if (p.getParent() != null) {
+            Files.createDirectories(p.getParent());
+        }
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(p), 64 * 1024));
+        out.write(MAGIC);
+        out.writeByte(VERSION);
+        out.writeUTF(codec.getName());
+        writerPath = path;
+        index = new RecordingIndex(RecordingIndex.DEFAULT_INTERVAL);
+        blockStart = out.size();
+        blockLength = 0;
+        keyframesInSegment = 0;
+    }
+
+    @Override
+    public void writeLine(String line) throws IOException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        writeLine(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void writeLine(byte[] utf8, int off, int len) throws IOException {
+        if (out == null) {
+            throw new IllegalStateException("Writer not opened");
+        }
+        double t = KeyframeParser.keyframeTime(utf8, off, len);
+        boolean keyframe = !Double.isNaN(t);
+        if (keyframe && keyframesInSegment >= KEYFRAMES_PER_BLOCK) {
+            writeBlock();
+            keyframesInSegment = 0;
+        }
+        if (blockLength == 0) {
+            blockOpenedAt = System.currentTimeMillis();
+        }
+        if (blockLength + len + 1 > block.length) {
+            block = Arrays.copyOf(block, Math.max(block.length * 2, blockLength + len + 1));
+        }
+        System.arraycopy(utf8, off, block, blockLength, len);
+        blockLength += len;
+        block[blockLength++] = '\n';
+        if (keyframe) {
+            index.acceptKeyframe(t, blockStart);
+            keyframesInSegment++;
+        }
+    }
+
+    /**
+     * 提交已写完的块；未满的块超过大小或时间阈值时提前写出并保存索引，
+     * 否则继续累积（每批都压缩会降低压缩率）
+     */
+    @Override
+    public void flush() throws IOException {
+        if (out == null) return;
+        boolean due = blockLength >= FLUSH_BLOCK_BYTES
+            || (blockLength > 0 && System.currentTimeMillis() - blockOpenedAt >= FLUSH_BLOCK_MS);
+        if (due) {
+            writeBlock();
+        }
+        out.flush();
+        if (due) {
+            // 此时所有已记录的关键帧都已写出，索引与文件一致
+            try {
+                index.save(writerPath);
+            } catch (IOException e) {
+                System.err.println("保存录制索引失败: " + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void closeWriter() {
+        if (out != null) {
+            try {
+                writeBlock();
+                out.flush();
+            } catch (Exception e) {
+                System.err.println("写入压缩块失败: " + e.getMessage());
+            }
+            try {
+                out.close();
+            } catch (Exception ignored) {}
+            try {
+                index.save(writerPath);
+            } catch (Exception e) {
+                System.err.println("保存录制索引失败: " + e.getMessage());
+            }
+            out = null;
+            index = null;
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        if (blockLength == 0) return;
+        compressed.reset();
+        codec.compress(block, 0, blockLength, compressed);
+        out.writeInt(blockLength);
+        out.writeInt(compressed.size());
+        compressed.writeTo(out);
+        blockStart += BLOCK_HEADER_BYTES + compressed.size();
+        blockLength = 0;
+    }
+
+    @Override
+    public Iterable<String> readLines(String path) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (RecordingReader reader = openReader(path, 0)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    @Override
+    public RecordingReader openReader(String path, long position) throws IOException {
+        FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        try {
+            DataInputStream header = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 256));
+            RecordingCodec fileCodec = readHeader(header);
+            // 文件头长度：MAGIC + 版本 + writeUTF（2字节长度 + 内容）
+            long dataStart = MAGIC.length + 1 + 2 + fileCodec.getName().getBytes(StandardCharsets.UTF_8).length;
+            long start = Math.max(position, dataStart);
+            channel.position(start);
+            return new BlockReader(channel, fileCodec, start);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static RecordingCodec readHeader(DataInput in) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a compressed recording");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported compressed recording version: " + version);
+        }
+        String name = in.readUTF();
+        RecordingCodec fileCodec = RecordingCodecs.forName(name);
+        if (fileCodec == null) {
+            throw new IOException("Unknown recording codec: " + name);
+        }
+        return fileCodec;
+    }
+
+    /**
+     * 列举所有已注册编解码器扩展名的录制文件
+     */
+    @Override
+    public List<File> listRecordings() {
+        File dir = new File("recordings");
+        if (!dir.exists() || !dir.isDirectory()) {
+            return new ArrayList<>();
+        }
+        File[] files = dir.listFiles((d, name) -> RecordingCodecs.forPath(name) != null);
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        // 按修改时间倒序排列
+        Arrays.sort(files, (a, b) ->
+            Long.compare(b.lastModified(), a.lastModified()));
+        return new ArrayList<>(Arrays.asList(files));
+    }
+
+    /**
+     * 逐块解压的顺序读取器，resumePosition 为当前行所在块的起始位置
+     */
+    private static final class BlockReader implements RecordingReader {
+        private final FileChannel channel;
+        private final DataInputStream in;
+        private final RecordingCodec codec;
+        private long nextBlock;
+        private long currentBlock;
+        private byte[] compressed = new byte[16 * 1024];
+        private byte[] raw = new byte[64 * 1024];
+        private int rawLength;
+        private int pos;
+
+        BlockReader(FileChannel channel, RecordingCodec codec, long position) {
+            this.channel = channel;
+            this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 64 * 1024));
+            this.codec = codec;
+            this.nextBlock = position;
+            this.currentBlock = position;
+        }
+
+        @Override
+        public String readLine() throws IOException {
+            while (pos >= rawLength) {
+                if (!readBlock()) return null;
+            }
+            int start = pos;
+            int end = start;
+            while (end < rawLength && raw[end] != '\n') {
+                end++;
+            }
+            pos = end + 1;
+            int len = end - start;
+            if (len > 0 && raw[end - 1] == '\r') len--;
+            return new String(raw, start, len, StandardCharsets.UTF_8);
+        }
+
+        private boolean readBlock() throws IOException {
+            int rawSize;
+            try {
+                rawSize = in.readInt();
+            } catch (EOFException e) {
+                return false;
+            }
+            int size;
+            try {
+                size = in.readInt();
+                if (rawSize < 0 || size < 0) {
+                    throw new IOException("Corrupt compressed block at " + nextBlock);
+                }
+                if (compressed.length < size) compressed = new byte[size];
+                if (raw.length < rawSize) raw = new byte[rawSize];
+                in.readFully(compressed, 0, size);
+            } catch (EOFException e) {
+                // 录制异常中断时最后一块可能只写了一部分，之前的块仍然可用
+                System.err.println("录制文件末尾的块不完整，已忽略: " + nextBlock);
+                return false;
+            }
+            codec.decompress(compressed, 0, size, raw, rawSize);
+            currentBlock = nextBlock;
+            nextBlock += BLOCK_HEADER_BYTES + size;
+            rawLength = rawSize;
+            pos = 0;
+            return true;
+        }
+
+        @Override
+        public long resumePosition() {
+            return currentBlock;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
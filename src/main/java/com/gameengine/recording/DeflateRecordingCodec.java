@@ -0,0 +1,75 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 使用JDK Deflater（zlib格式）的块编解码器
+ */
+public class DeflateRecordingCodec implements RecordingCodec {
+    public static final String NAME = "deflate";
+    public static final String EXTENSION = ".jsonl.dfb";
+
+    private final int level;
+
+    public DeflateRecordingCodec() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param level 压缩级别（Deflater.BEST_SPEED ~ Deflater.BEST_COMPRESSION）
+     */
+    public DeflateRecordingCodec(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getExtension() {
+        return EXTENSION;
+    }
+
+    @Override
+    public void compress(byte[] src, int offset, int length, OutputStream out) throws IOException {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(src, offset, length);
+            deflater.finish();
+            byte[] buf = new byte[Math.min(64 * 1024, Math.max(512, length))];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buf);
+                out.write(buf, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public void decompress(byte[] src, int offset, int length, byte[] dst, int rawLength) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(src, offset, length);
+            int n = 0;
+            while (n < rawLength && !inflater.finished()) {
+                int k = inflater.inflate(dst, n, rawLength - n);
+                if (k == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                n += k;
+            }
+            if (n != rawLength) {
+                throw new IOException("Corrupt deflate block");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt deflate block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
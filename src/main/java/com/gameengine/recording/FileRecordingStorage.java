@@ -1,6 +1,7 @@
 package com.gameengine.recording;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -10,10 +11,16 @@ import java.util.List;
 
 /**
  * 基于文件系统的录制存储实现
- * 使用JSONL格式（每行一个JSON对象）
+ * 使用JSONL格式（每行一个JSON对象），写入时同时生成 .idx 随机访问索引，
+ * 顺序读取使用内存映射的 MappedRecordingReader
  */
 public class FileRecordingStorage implements RecordingStorage {
-    private BufferedWriter writer;
+    private static final byte[] NEWLINE = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    private OutputStream writer;
+    private String writerPath;
+    private RecordingIndex index;
+    private long offset;
 
     @Override
     public void openWriter(String path) throws IOException {
@@ -21,7 +28,10 @@ public class FileRecordingStorage implements RecordingStorage {
         if (p.getParent() != null) {
             Files.createDirectories(p.getParent());
         }
-        writer = Files.newBufferedWriter(p);
+        writer = new BufferedOutputStream(Files.newOutputStream(p), 64 * 1024);
+        writerPath = path;
+        index = new RecordingIndex(RecordingIndex.DEFAULT_INTERVAL);
+        offset = 0;
     }
 
     @Override
@@ -29,8 +39,35 @@ public class FileRecordingStorage implements RecordingStorage {
         if (writer == null) {
             throw new IllegalStateException("Writer not opened");
         }
-        writer.write(line);
-        writer.newLine();
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        writer.write(bytes);
+        writer.write(NEWLINE);
+        index.accept(line, offset);
+        offset += bytes.length + NEWLINE.length;
+    }
+
+    /**
+     * 直接写入字节（录制写入线程的路径，关键帧只解析时间，不创建整行字符串）
+     */
+    @Override
+    public void writeLine(byte[] utf8, int off, int len) throws IOException {
+        if (writer == null) {
+            throw new IllegalStateException("Writer not opened");
+        }
+        writer.write(utf8, off, len);
+        writer.write(NEWLINE);
+        double t = KeyframeParser.keyframeTime(utf8, off, len);
+        if (!Double.isNaN(t)) {
+            index.acceptKeyframe(t, offset);
+        }
+        offset += len + NEWLINE.length;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
     }
 
     @Override
@@ -42,7 +79,13 @@ public class FileRecordingStorage implements RecordingStorage {
             try { 
                 writer.close(); 
             } catch (Exception ignored) {}
+            try {
+                index.save(writerPath);
+            } catch (Exception e) {
+                System.err.println("保存录制索引失败: " + e.getMessage());
+            }
             writer = null;
+            index = null;
         }
     }
 
@@ -58,6 +101,11 @@ public class FileRecordingStorage implements RecordingStorage {
         return lines;
     }
 
+    @Override
+    public RecordingReader openReader(String path, long position) throws IOException {
+        return new MappedRecordingReader(Paths.get(path), position);
+    }
+
     @Override
     public List<File> listRecordings() {
         File dir = new File("recordings");
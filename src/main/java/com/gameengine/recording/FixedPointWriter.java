@@ -0,0 +1,167 @@
+package com.gameengine.recording;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+
+/**
+ * 定点数输出工具：按固定小数位数把double追加到StringBuilder
+ * 输出与 setMaximumFractionDigits(decimals)、不分组的DecimalFormat逐字节一致：
+ * 按double的精确二进制值做HALF_EVEN舍入，去掉末尾的0，舍入为0的负数输出 "-0"。
+ * 常规数值只用整数运算（128位乘法 + 移位），超出范围的数值（NaN、无穷、超过15位有效数字）
+ * 以及非默认的本地化符号退回DecimalFormat。
+ *
+ * 不是线程安全的，每个线程使用各自的实例。
+ */
+public final class FixedPointWriter {
+    private static final long[] POW10 = {
+        1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L,
+        1000000000L, 10000000000L, 100000000000L, 1000000000000L, 10000000000000L,
+        100000000000000L, 1000000000000000L, 10000000000000000L, 100000000000000000L,
+        1000000000000000000L
+    };
+
+    /**
+     * 快速路径的上限：结果不超过15位有效数字时，DecimalFormat使用的最短表示
+     * 与按精确值舍入一致；更大的数值DecimalFormat按最短表示补0输出，交给它处理
+     */
+    private static final long MAX_FAST = 1000000000000000L;
+
+    private final int decimals;
+    private final DecimalFormat fallback;
+    private final boolean fastPath;
+
+    public FixedPointWriter(int decimals) {
+        this.decimals = Math.max(0, decimals);
+        this.fallback = new DecimalFormat();
+        this.fallback.setMaximumFractionDigits(this.decimals);
+        this.fallback.setGroupingUsed(false);
+        DecimalFormatSymbols symbols = fallback.getDecimalFormatSymbols();
+        this.fastPath = this.decimals < POW10.length
+            && symbols.getZeroDigit() == '0'
+            && symbols.getDecimalSeparator() == '.'
+            && symbols.getMinusSign() == '-';
+    }
+
+    public int getDecimals() {
+        return decimals;
+    }
+
+    /**
+     * 追加一个数值
+     */
+    public StringBuilder append(StringBuilder sb, double value) {
+        if (!fastPath || !appendFast(sb, value)) {
+            sb.append(fallback.format(value));
+        }
+        return sb;
+    }
+
+    /**
+     * 格式化为字符串（便于单独使用）
+     */
+    public String format(double value) {
+        return append(new StringBuilder(16), value).toString();
+    }
+
+    private boolean appendFast(StringBuilder sb, double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) return false;
+
+        // value = mantissa * 2^exponent
+        long bits = Double.doubleToRawLongBits(value);
+        boolean negative = bits < 0;
+        int biased = (int) ((bits >>> 52) & 0x7FF);
+        long mantissa = bits & 0xFFFFFFFFFFFFFL;
+        if (biased == 0) {
+            biased = 1;                 // 非规格化数
+        } else {
+            mantissa |= 1L << 52;
+        }
+        int exponent = biased - 1075;
+        long scale = POW10[decimals];
+
+        long q;
+        if (mantissa == 0) {
+            q = 0;
+        } else if (exponent >= 0) {
+            if (exponent > 10) return false;
+            long integer = mantissa << exponent;
+            if (integer > Long.MAX_VALUE / scale) return false;
+            q = integer * scale;
+        } else {
+            q = roundShifted(mantissa, scale, -exponent);
+            if (q < 0) return false;
+        }
+        if (q >= MAX_FAST) return false;
+
+        if (negative) {
+            sb.append('-');
+        }
+        sb.append(q / scale);
+        long frac = q % scale;
+        if (frac != 0) {
+            int digits = decimals;
+            while (frac % 10 == 0) {
+                frac /= 10;
+                digits--;
+            }
+            sb.append('.');
+            for (long p = POW10[digits - 1]; p > frac; p /= 10) {
+                sb.append('0');
+            }
+            sb.append(frac);
+        }
+        return true;
+    }
+
+    /**
+     * 计算 round(mantissa * scale / 2^shift)，HALF_EVEN
+     * 结果超出long范围，或数值与舍入中点相差不到1个ulp时返回-1：
+     * 这时DecimalFormat的结果取决于最短十进制表示是否恰好落在中点上，交给它处理
+     */
+    private static long roundShifted(long mantissa, long scale, int shift) {
+        // 128位乘积 hi:lo（mantissa < 2^53，scale < 2^60，乘积 < 2^113）
+        long lo = mantissa * scale;
+        long hi = Math.multiplyHigh(mantissa, scale);
+        if (shift >= 115) {
+            return 0;   // 乘积小于 2^(shift-1)，舍入为0
+        }
+
+        // 余数 remHi:remLo 与一半 halfHi:halfLo（乘积中1个ulp对应 scale）
+        long q, remHi, remLo, halfHi, halfLo;
+        if (shift < 64) {
+            if ((hi >>> shift) != 0) return -1;
+            q = (lo >>> shift) | (hi << (64 - shift));
+            remHi = 0;
+            remLo = lo & ((1L << shift) - 1);
+            halfHi = 0;
+            halfLo = 1L << (shift - 1);
+        } else {
+            int s = shift - 64;
+            q = s == 0 ? hi : hi >>> s;
+            remHi = s == 0 ? 0 : hi & ((1L << s) - 1);
+            remLo = lo;
+            halfHi = s == 0 ? 0 : 1L << (s - 1);
+            halfLo = s == 0 ? 1L << 63 : 0;
+        }
+        if (q < 0) return -1;
+
+        int cmp = Long.compareUnsigned(remHi, halfHi);
+        if (cmp == 0) cmp = Long.compareUnsigned(remLo, halfLo);
+        // |余数 - 一半|，不超过1个ulp时视为接近中点
+        long diffHi, diffLo;
+        if (cmp >= 0) {
+            diffLo = remLo - halfLo;
+            diffHi = remHi - halfHi - (Long.compareUnsigned(remLo, halfLo) < 0 ? 1 : 0);
+        } else {
+            diffLo = halfLo - remLo;
+            diffHi = halfHi - remHi - (Long.compareUnsigned(halfLo, remLo) < 0 ? 1 : 0);
+        }
+        if (diffHi == 0 && Long.compareUnsigned(diffLo, scale) <= 0) return -1;
+
+        if (cmp > 0) {
+            if (q == Long.MAX_VALUE) return -1;
+            q++;
+        }
+        return q;
+    }
+}
@@ -0,0 +1,58 @@
+package com.gameengine.recording;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 使用JDK GZIP的块编解码器（每个块是一个完整的gzip成员，带CRC校验）
+ */
+public class GzipRecordingCodec implements RecordingCodec {
+    public static final String NAME = "gzip";
+    public static final String EXTENSION = ".jsonl.gzb";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public String getExtension() {
+        return EXTENSION;
+    }
+
+    @Override
+    public void compress(byte[] src, int offset, int length, OutputStream out) throws IOException {
+        // 关闭gzip流以写出尾部并释放Deflater，但不关闭外层流
+        OutputStream shield = new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (GZIPOutputStream gz = new GZIPOutputStream(shield, 8 * 1024)) {
+            gz.write(src, offset, length);
+        }
+    }
+
+    @Override
+    public void decompress(byte[] src, int offset, int length, byte[] dst, int rawLength) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(src, offset, length), 8 * 1024)) {
+            int n = 0;
+            while (n < rawLength) {
+                int k = in.read(dst, n, rawLength - n);
+                if (k < 0) throw new EOFException("Truncated gzip block");
+                n += k;
+            }
+        }
+    }
+}
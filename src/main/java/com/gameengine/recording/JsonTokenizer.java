@@ -0,0 +1,354 @@
+package com.gameengine.recording;
+
+import java.util.Arrays;
+
+/**
+ * 单遍扫描的JSON游标式分词器
+ * 从头到尾只扫描一次输入：数字直接解析为double，字符串只记录范围（需要时才创建String），
+ * 内部缓冲区可复用，解析一行不产生中间对象。
+ *
+ * 用法：reset(line) 后反复调用 next()；遇到 NAME 后用 nameEquals 判断字段，
+ * 不需要的字段用 skipValue() 跳过。
+ */
+public final class JsonTokenizer {
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY,
+        NAME, STRING, NUMBER, TRUE, FALSE, NULL, END
+    }
+
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private static final ThreadLocal<JsonTokenizer> LOCAL = ThreadLocal.withInitial(JsonTokenizer::new);
+
+    private CharSequence s;
+    private int pos;
+    private int len;
+
+    // 嵌套状态：true 表示对象（下一个字符串是字段名）
+    private boolean[] inObject = new boolean[16];
+    private int depth;
+    private boolean expectName;
+
+    // 当前字符串/字段名的范围，含转义时解码到 unescaped
+    private int textStart, textEnd;
+    private boolean escaped;
+    private final StringBuilder unescaped = new StringBuilder(64);
+    private double number;
+    private int numberStart, numberEnd;  // 当前数字的原文范围
+
+    /**
+     * 当前线程复用的分词器
+     */
+    public static JsonTokenizer forCurrentThread() {
+        return LOCAL.get();
+    }
+
+    public JsonTokenizer reset(CharSequence input) {
+        this.s = input;
+        this.pos = 0;
+        this.len = input.length();
+        this.depth = 0;
+        this.expectName = false;
+        return this;
+    }
+
+    /**
+     * 读取下一个记号（逗号和冒号被自动跳过）
+     */
+    public Token next() {
+        while (pos < len) {
+            char c = s.charAt(pos);
+            switch (c) {
+                case ' ': case '\t': case '\r': case '\n': case ',': case ':':
+                    pos++;
+                    continue;
+                case '{':
+                    pos++;
+                    push(true);
+                    return Token.BEGIN_OBJECT;
+                case '[':
+                    pos++;
+                    push(false);
+                    return Token.BEGIN_ARRAY;
+                case '}':
+                case ']':
+                    pos++;
+                    if (depth > 0) depth--;
+                    expectName = depth > 0 && inObject[depth - 1];
+                    return c == '}' ? Token.END_OBJECT : Token.END_ARRAY;
+                case '"': {
+                    boolean name = expectName;
+                    readString();
+                    if (depth > 0 && inObject[depth - 1]) {
+                        expectName = !name;
+                    }
+                    return name ? Token.NAME : Token.STRING;
+                }
+                default:
+                    afterValue();
+                    if (c == 't' && startsWith("true")) {
+                        pos += 4;
+                        return Token.TRUE;
+                    }
+                    if (c == 'f' && startsWith("false")) {
+                        pos += 5;
+                        return Token.FALSE;
+                    }
+                    if (c == 'n' && startsWith("null")) {
+                        pos += 4;
+                        return Token.NULL;
+                    }
+                    readNumber();
+                    return Token.NUMBER;
+            }
+        }
+        return Token.END;
+    }
+
+    /**
+     * 跳过一个完整的值（在 NAME 之后调用时跳过该字段的值）
+     */
+    public void skipValue() {
+        Token t = next();
+        if (t != Token.BEGIN_OBJECT && t != Token.BEGIN_ARRAY) return;
+        int target = depth - 1;
+        while (depth > target) {
+            if (next() == Token.END) return;
+        }
+    }
+
+    /**
+     * 最近的 NUMBER 的值
+     */
+    public double numberValue() {
+        return number;
+    }
+
+    /**
+     * 最近的 NUMBER 的原文（需要精确解析 long 或 float 时使用，不经过double）
+     */
+    public String numberText() {
+        return s.subSequence(numberStart, numberEnd).toString();
+    }
+
+    /**
+     * 读取下一个值为数字，不是数字时跳过该值并返回默认值
+     */
+    public double nextNumber(double defaultValue) {
+        int save = pos;
+        int saveDepth = depth;
+        boolean saveExpect = expectName;
+        Token t = next();
+        if (t == Token.NUMBER) return number;
+        if (t == Token.BEGIN_OBJECT || t == Token.BEGIN_ARRAY) {
+            pos = save;
+            depth = saveDepth;
+            expectName = saveExpect;
+            skipValue();
+        }
+        return defaultValue;
+    }
+
+    /**
+     * 读取下一个值为数字并返回原文，不是数字时跳过该值并返回null
+     */
+    public String nextNumberText() {
+        int save = pos;
+        int saveDepth = depth;
+        boolean saveExpect = expectName;
+        Token t = next();
+        if (t == Token.NUMBER) return numberText();
+        if (t == Token.BEGIN_OBJECT || t == Token.BEGIN_ARRAY) {
+            pos = save;
+            depth = saveDepth;
+            expectName = saveExpect;
+            skipValue();
+        }
+        return null;
+    }
+
+    /**
+     * 读取下一个值为字符串，不是字符串时跳过该值并返回null
+     */
+    public String nextString() {
+        int save = pos;
+        int saveDepth = depth;
+        boolean saveExpect = expectName;
+        Token t = next();
+        if (t == Token.STRING) return text();
+        if (t == Token.BEGIN_OBJECT || t == Token.BEGIN_ARRAY) {
+            pos = save;
+            depth = saveDepth;
+            expectName = saveExpect;
+            skipValue();
+        }
+        return null;
+    }
+
+    /**
+     * 最近的 NAME/STRING 的内容
+     */
+    public String text() {
+        return escaped ? unescaped.toString() : s.subSequence(textStart, textEnd).toString();
+    }
+
+    /**
+     * 最近的 NAME/STRING 是否等于value（不创建String）
+     */
+    public boolean textEquals(String value) {
+        if (escaped) {
+            return value.contentEquals(unescaped);
+        }
+        int n = textEnd - textStart;
+        if (n != value.length()) return false;
+        for (int i = 0; i < n; i++) {
+            if (s.charAt(textStart + i) != value.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 最近的 NAME 是否为指定字段名
+     */
+    public boolean nameEquals(String name) {
+        return textEquals(name);
+    }
+
+    /**
+     * 当前嵌套深度（对象和数组）
+     */
+    public int depth() {
+        return depth;
+    }
+
+    // ========== 内部 ==========
+
+    private void push(boolean object) {
+        afterValue();
+        if (depth == inObject.length) {
+            inObject = Arrays.copyOf(inObject, depth * 2);
+        }
+        inObject[depth++] = object;
+        expectName = object;
+    }
+
+    /**
+     * 对象中的值读完后，下一个字符串是字段名
+     */
+    private void afterValue() {
+        if (depth > 0 && inObject[depth - 1]) {
+            expectName = true;
+        }
+    }
+
+    private boolean startsWith(String word) {
+        if (pos + word.length() > len) return false;
+        for (int i = 0; i < word.length(); i++) {
+            if (s.charAt(pos + i) != word.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void readString() {
+        int i = pos + 1;
+        textStart = i;
+        escaped = false;
+        while (i < len) {
+            char c = s.charAt(i);
+            if (c == '"') break;
+            if (c == '\\') {
+                escaped = true;
+                break;
+            }
+            i++;
+        }
+        if (!escaped) {
+            textEnd = Math.min(i, len);
+            pos = Math.min(i + 1, len);
+            return;
+        }
+        // 含转义：解码到复用的缓冲区
+        unescaped.setLength(0);
+        unescaped.append(s, textStart, i);
+        while (i < len) {
+            char c = s.charAt(i);
+            if (c == '"') break;
+            if (c == '\\' && i + 1 < len) {
+                char e = s.charAt(++i);
+                switch (e) {
+                    case 'n': unescaped.append('\n'); break;
+                    case 't': unescaped.append('\t'); break;
+                    case 'r': unescaped.append('\r'); break;
+                    case 'b': unescaped.append('\b'); break;
+                    case 'f': unescaped.append('\f'); break;
+                    case 'u':
+                        if (i + 4 < len) {
+                            unescaped.append((char) Integer.parseInt(s.subSequence(i + 1, i + 5).toString(), 16));
+                            i += 4;
+                        }
+                        break;
+                    default: unescaped.append(e);
+                }
+                i++;
+            } else {
+                unescaped.append(c);
+                i++;
+            }
+        }
+        pos = Math.min(i + 1, len);
+    }
+
+    /**
+     * 解析数字：常见的短小数由整数尾数直接计算（结果与Double.parseDouble一致），其余情况退回Double.parseDouble
+     */
+    private void readNumber() {
+        int start = pos;
+        int i = pos;
+        boolean negative = false;
+        if (i < len && s.charAt(i) == '-') {
+            negative = true;
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = 0;
+        boolean dot = false;
+        while (i < len) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (dot) fraction++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+            i++;
+        }
+        char next = i < len ? s.charAt(i) : 0;
+        numberStart = start;
+        if (digits > 0 && digits <= 15 && fraction < POW10.length && next != 'e' && next != 'E') {
+            double v = mantissa / POW10[fraction];
+            number = negative ? -v : v;
+            numberEnd = pos = i;
+            return;
+        }
+        // 退回通用解析
+        while (i < len) {
+            char c = s.charAt(i);
+            if (c == ',' || c == '}' || c == ']' || c == ' ' || c == '\t') break;
+            i++;
+        }
+        pos = Math.max(i, start + 1);
+        numberEnd = i;
+        try {
+            number = Double.parseDouble(s.subSequence(start, i).toString());
+        } catch (NumberFormatException e) {
+            number = 0.0;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.gameengine.recording;
+
+import com.gameengine.math.Vector2;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * 录制文件关键帧行（keyframe快照与delta增量）的解析工具
+ */
+public final class KeyframeParser {
+    private static final byte[] KEYFRAME_PREFIX = "{\"type\":\"keyframe\",\"t\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TYPE_PREFIX = "{\"type\":\"".getBytes(StandardCharsets.US_ASCII);
+
+    private KeyframeParser() {}
+
+    /**
+     * 是否为关键帧行
+     */
+    public static boolean isKeyframe(String line) {
+        return line.contains("\"type\":\"keyframe\"");
+    }
+
+    /**
+     * 是否为增量帧行
+     */
+    public static boolean isDelta(String line) {
+        return line.contains("\"type\":\"delta\"");
+    }
+
+    /**
+     * 只解析关键帧的时间（用于建立索引，不解析实体）
+     */
+    public static double parseTime(String line) {
+        JsonTokenizer tok = JsonTokenizer.forCurrentThread().reset(line);
+        if (tok.next() != JsonTokenizer.Token.BEGIN_OBJECT) return 0.0;
+        while (tok.next() == JsonTokenizer.Token.NAME) {
+            if (tok.nameEquals("t")) {
+                return tok.nextNumber(0.0);
+            }
+            tok.skipValue();
+        }
+        return 0.0;
+    }
+
+    /**
+     * 从UTF-8编码的行中取关键帧时间，不是关键帧时返回NaN（存储写入字节行时建立索引用）
+     * RecordingService写出的关键帧以固定前缀开头，只解析时间；以其他type开头的行直接跳过，
+     * 其余格式解码为字符串后按通用方式判断
+     */
+    static double keyframeTime(byte[] utf8, int off, int len) {
+        if (startsWith(utf8, off, len, KEYFRAME_PREFIX)) {
+            int start = off + KEYFRAME_PREFIX.length;
+            int i = start;
+            while (i < off + len && utf8[i] != ',' && utf8[i] != '}') {
+                i++;
+            }
+            try {
+                return Double.parseDouble(new String(utf8, start, i - start, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                return 0.0;
+            }
+        }
+        if (startsWith(utf8, off, len, TYPE_PREFIX)) {
+            return Double.NaN;
+        }
+        String line = new String(utf8, off, len, StandardCharsets.UTF_8);
+        return isKeyframe(line) ? parseTime(line) : Double.NaN;
+    }
+
+    private static boolean startsWith(byte[] b, int off, int len, byte[] prefix) {
+        if (len < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (b[off + i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 解析关键帧行，不是关键帧时返回null
+     * 单遍扫描，数值直接读为基本类型
+     */
+    public static ReplayKeyframe parse(String line) {
+        if (!isKeyframe(line)) return null;
+        return parseFrame(line, false);
+    }
+
+    /**
+     * 解析关键帧或增量帧行，都不是时返回null
+     * 增量帧需要通过 ReplayKeyframe.applyTo 应用到前一帧
+     */
+    public static ReplayKeyframe parseFrame(String line) {
+        if (isKeyframe(line)) return parseFrame(line, false);
+        if (isDelta(line)) return parseFrame(line, true);
+        return null;
+    }
+
+    /**
+     * 从读取器读取下一个关键帧或增量帧（映射读取器直接在字节上解析），读完时返回null
+     */
+    public static ReplayKeyframe nextFrame(RecordingReader reader) throws IOException {
+        if (reader instanceof MappedRecordingReader) {
+            MappedRecordingReader mapped = (MappedRecordingReader) reader;
+            return mapped.nextFrame() ? mapped.toReplayKeyframe() : null;
+        }
+        String line;
+        while ((line = reader.readLine()) != null) {
+            ReplayKeyframe kf = parseFrame(line);
+            if (kf != null) return kf;
+        }
+        return null;
+    }
+
+    private static ReplayKeyframe parseFrame(String line, boolean delta) {
+        JsonTokenizer tok = JsonTokenizer.forCurrentThread().reset(line);
+        if (tok.next() != JsonTokenizer.Token.BEGIN_OBJECT) return null;
+        ReplayKeyframe kf = new ReplayKeyframe();
+        kf.delta = delta;
+        while (tok.next() == JsonTokenizer.Token.NAME) {
+            if (tok.nameEquals("type")) {
+                if (tok.next() != JsonTokenizer.Token.STRING || !tok.textEquals(delta ? "delta" : "keyframe")) return null;
+            } else if (tok.nameEquals("t")) {
+                kf.t = tok.nextNumber(0.0);
+            } else if (tok.nameEquals("seq")) {
+                kf.seq = (int) tok.nextNumber(0.0);
+            } else if (tok.nameEquals("entities")) {
+                parseEntities(tok, kf);
+            } else if (tok.nameEquals("removed")) {
+                parseRemoved(tok, kf);
+            } else {
+                tok.skipValue();
+            }
+        }
+        return kf;
+    }
+
+    private static void parseRemoved(JsonTokenizer tok, ReplayKeyframe kf) {
+        if (tok.next() != JsonTokenizer.Token.BEGIN_ARRAY) return;
+        kf.removed = new ArrayList<>();
+        JsonTokenizer.Token t;
+        while ((t = tok.next()) != JsonTokenizer.Token.END_ARRAY && t != JsonTokenizer.Token.END) {
+            if (t == JsonTokenizer.Token.STRING) {
+                kf.removed.add(tok.text());
+            }
+        }
+    }
+
+    private static void parseEntities(JsonTokenizer tok, ReplayKeyframe kf) {
+        if (tok.next() != JsonTokenizer.Token.BEGIN_ARRAY) return;
+        JsonTokenizer.Token t;
+        while ((t = tok.next()) != JsonTokenizer.Token.END_ARRAY && t != JsonTokenizer.Token.END) {
+            if (t != JsonTokenizer.Token.BEGIN_OBJECT) continue;
+            ReplayKeyframe.EntityInfo ei = new ReplayKeyframe.EntityInfo();
+            float x = 0, y = 0;
+            while (tok.next() == JsonTokenizer.Token.NAME) {
+                if (tok.nameEquals("id")) {
+                    ei.id = tok.nextString();
+                } else if (tok.nameEquals("x")) {
+                    x = (float) tok.nextNumber(0.0);
+                } else if (tok.nameEquals("y")) {
+                    y = (float) tok.nextNumber(0.0);
+                } else if (tok.nameEquals("rt")) {
+                    ei.rt = tok.nextString();
+                } else if (tok.nameEquals("w")) {
+                    ei.w = (float) tok.nextNumber(0.0);
+                } else if (tok.nameEquals("h")) {
+                    ei.h = (float) tok.nextNumber(0.0);
+                } else if (tok.nameEquals("color")) {
+                    parseColor(tok, ei);
+                } else {
+                    tok.skipValue();
+                }
+            }
+            ei.pos = new Vector2(x, y);
+            kf.entities.add(ei);
+        }
+    }
+
+    /**
+     * 解析颜色数组 [r,g,b(,a)]，少于3个分量时保持默认白色
+     */
+    private static void parseColor(JsonTokenizer tok, ReplayKeyframe.EntityInfo ei) {
+        if (tok.next() != JsonTokenizer.Token.BEGIN_ARRAY) return;
+        int arrayDepth = tok.depth();
+        float r = 1.0f, g = 1.0f, b = 1.0f, a = 1.0f;
+        int n = 0;
+        JsonTokenizer.Token t;
+        while ((t = tok.next()) == JsonTokenizer.Token.NUMBER) {
+            float v = (float) tok.numberValue();
+            switch (n++) {
+                case 0: r = v; break;
+                case 1: g = v; break;
+                case 2: b = v; break;
+                case 3: a = v; break;
+                default: break;
+            }
+        }
+        if (t != JsonTokenizer.Token.END_ARRAY) {
+            // 非数字元素：跳过数组剩余部分
+            while (tok.depth() >= arrayDepth && tok.next() != JsonTokenizer.Token.END) {}
+            return;
+        }
+        if (n >= 3) {
+            ei.r = r;
+            ei.g = g;
+            ei.b = b;
+            if (n >= 4) ei.a = a;
+        }
+    }
+}
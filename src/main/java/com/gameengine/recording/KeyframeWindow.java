@@ -0,0 +1,248 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 回放关键帧滑动窗口
+ * 后台解码线程按索引段解码播放位置附近的关键帧（当前段、之前 BEHIND 段、之后 AHEAD 段），
+ * 超出窗口的段被丢弃，因此内存占用与录制长度无关。
+ * 回放场景每帧设置播放位置并取相邻两帧插值，所需段尚未解码时等待（缓冲）。
+ * 增量帧在解码时应用到前一帧，段中保存的都是完整的帧；索引点总是快照，
+ * 因此从任意段开始解码都有完整的起点。
+ * 解码时把每帧链接到前一帧（见 ReplayKeyframe.linkPrevious），查找时在段内二分。
+ * 预读方向和距离随播放速度变化（setPlaybackRate）：倒放时优先解码之前的段，高倍速时多预读几段。
+ */
+public class KeyframeWindow implements AutoCloseable {
+    private static final int BEHIND = 1;
+    private static final int AHEAD = 2;
+    /** 每多少倍速多预读一段 */
+    private static final double RATE_PER_EXTRA_SEGMENT = 4.0;
+
+    private final RecordingStorage storage;
+    private final String path;
+    private final Map<Integer, List<ReplayKeyframe>> segments = new ConcurrentHashMap<>();
+    private final Thread decoderThread;
+
+    private volatile RecordingIndex index;
+    private volatile double playhead;
+    private volatile boolean running;
+    private volatile String error;
+    private volatile double rate = 1.0;
+
+    // 顺序播放时继续使用同一个读取器，避免每段重新打开文件（仅解码线程访问）
+    private RecordingReader reader;
+    private int readerNextEntry = -1;
+    private ReplayKeyframe carried;     // 上一段读到的下一段第一个快照（已链接到上一段最后一帧）
+
+    public KeyframeWindow(RecordingStorage storage, String path) {
+        this.storage = storage;
+        this.path = path;
+        this.decoderThread = new Thread(this::runDecoder, "replay-decoder");
+        this.decoderThread.setDaemon(true);
+    }
+
+    /**
+     * 启动解码线程（先加载索引，再解码播放位置附近的段）
+     */
+    public void start() {
+        running = true;
+        decoderThread.start();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(decoderThread);
+    }
+
+    /**
+     * 索引是否已加载（加载完成后才能播放）
+     */
+    public boolean isReady() {
+        return index != null;
+    }
+
+    /**
+     * 加载失败时的错误信息
+     */
+    public String getError() {
+        return error;
+    }
+
+    public RecordingIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * 设置播放位置，播放位置移动到其他段时唤醒解码线程
+     */
+    public void setPlayhead(double t) {
+        RecordingIndex idx = index;
+        int before = idx != null ? idx.findEntry(playhead) : -1;
+        playhead = t;
+        if (idx == null || idx.findEntry(t) != before || !segments.containsKey(before)) {
+            LockSupport.unpark(decoderThread);
+        }
+    }
+
+    /**
+     * 设置播放速度（负数为倒放，0为暂停），决定预读的方向和段数
+     */
+    public void setPlaybackRate(double rate) {
+        if (rate != this.rate) {
+            this.rate = rate;
+            LockSupport.unpark(decoderThread);
+        }
+    }
+
+    /**
+     * 查找时间t两侧的关键帧
+     * @param pair 输出：pair[0] 不晚于t，pair[1] 不早于t
+     * @return 所需的段尚未解码时返回false
+     */
+    public boolean find(double t, ReplayKeyframe[] pair) {
+        RecordingIndex idx = index;
+        if (idx == null || idx.size() == 0) return false;
+        int entry = idx.findEntry(t);
+        List<ReplayKeyframe> seg = segments.get(entry);
+        if (seg == null || seg.isEmpty()) return false;
+
+        if (t <= seg.get(0).t) {
+            pair[0] = pair[1] = seg.get(0);
+            return true;
+        }
+        // 最后一个不晚于t的帧
+        int lo = 0, hi = seg.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (seg.get(mid).t <= t) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (lo < seg.size() - 1) {
+            pair[0] = seg.get(lo);
+            pair[1] = seg.get(lo + 1);
+            return true;
+        }
+
+        // 在段的最后一帧之后：与下一段第一帧插值
+        ReplayKeyframe last = seg.get(seg.size() - 1);
+        if (entry + 1 >= idx.size()) {
+            pair[0] = pair[1] = last;
+            return true;
+        }
+        List<ReplayKeyframe> next = segments.get(entry + 1);
+        if (next == null || next.isEmpty()) return false;
+        pair[0] = last;
+        pair[1] = next.get(0);
+        return true;
+    }
+
+    // ========== 解码线程 ==========
+
+    private void runDecoder() {
+        try {
+            index = storage.loadIndex(path);
+            while (running) {
+                int center = index.findEntry(playhead);
+                int extra = (int) (Math.abs(rate) / RATE_PER_EXTRA_SEGMENT);
+                boolean reverse = rate < 0;
+                int behind = reverse ? AHEAD + extra : BEHIND;
+                int ahead = reverse ? BEHIND : AHEAD + extra;
+                segments.keySet().removeIf(e -> e < center - behind || e > center + ahead);
+
+                int wanted = nextMissing(center, reverse ? -1 : 1, reverse ? behind : ahead);
+                if (wanted < 0) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                segments.put(wanted, decodeSegment(wanted));
+            }
+        } catch (Exception e) {
+            error = e.getMessage() != null ? e.getMessage() : e.toString();
+            System.err.println("回放解码失败: " + error);
+        } finally {
+            closeReader();
+        }
+    }
+
+    /**
+     * 按优先级找出窗口内下一个需要解码的段：当前段、播放方向的下一段、反方向的一段、播放方向更远的段
+     * @param dir 播放方向（1 向后，-1 向前）
+     * @param ahead 播放方向上预读的段数
+     */
+    private int nextMissing(int center, int dir, int ahead) {
+        int[] order = {center, center + dir, center - dir};
+        for (int e : order) {
+            if (e >= 0 && e < index.size() && !segments.containsKey(e)) return e;
+        }
+        for (int k = 2; k <= ahead; k++) {
+            int e = center + dir * k;
+            if (e < 0 || e >= index.size()) break;
+            if (!segments.containsKey(e)) return e;
+        }
+        return -1;
+    }
+
+    /**
+     * 解码一段：段内的快照及其后的增量，直到下一段的第一个快照
+     * 增量序号不连续时（录制时有数据丢失）跳过之后的增量，直到下一个快照
+     */
+    private List<ReplayKeyframe> decodeSegment(int entry) throws IOException {
+        if (reader == null || readerNextEntry != entry) {
+            closeReader();
+            reader = storage.openReader(path, index.getPosition(entry));
+        }
+        int count = index.getSegmentLength(entry);
+        List<ReplayKeyframe> list = new ArrayList<>(count);
+        int snapshots = 0;
+        ReplayKeyframe prev = null;
+        if (carried != null) {
+            list.add(carried);
+            prev = carried;
+            snapshots = 1;
+            carried = null;
+        }
+        ReplayKeyframe frame;
+        while ((frame = KeyframeParser.nextFrame(reader)) != null) {
+            if (!frame.delta) {
+                if (prev != null) {
+                    frame.linkPrevious(prev);
+                }
+                if (snapshots == count) {
+                    carried = frame;
+                    break;
+                }
+                snapshots++;
+                list.add(frame);
+                prev = frame;
+            } else if (prev != null) {
+                ReplayKeyframe full = frame.applyTo(prev);
+                if (full != null) {
+                    list.add(full);
+                }
+                prev = full;
+            }
+        }
+        readerNextEntry = entry + 1;
+        return list;
+    }
+
+    private void closeReader() {
+        if (reader != null) {
+            try {
+                reader.close();
+            } catch (IOException ignored) {}
+            reader = null;
+            readerNextEntry = -1;
+            carried = null;
+        }
+    }
+}
@@ -0,0 +1,564 @@
+package com.gameengine.recording;
+
+import com.gameengine.math.Vector2;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 基于内存映射的JSONL录制读取器
+ * 关键帧直接在映射的字节上解析：只记录每个实体各字段在缓冲区中的偏移，
+ * 通过可复用的 Entity 享元按需读取数值，不创建中间String。
+ * 大文件按区域分段映射，每段最大1GB。
+ */
+public final class MappedRecordingReader implements RecordingReader {
+    private static final long MAX_REGION = 1L << 30;
+
+    private static final byte[] KEY_TYPE = ascii("type");
+    private static final byte[] KEY_T = ascii("t");
+    private static final byte[] KEY_ENTITIES = ascii("entities");
+    private static final byte[] KEY_ID = ascii("id");
+    private static final byte[] KEY_X = ascii("x");
+    private static final byte[] KEY_Y = ascii("y");
+    private static final byte[] KEY_RT = ascii("rt");
+    private static final byte[] KEY_W = ascii("w");
+    private static final byte[] KEY_H = ascii("h");
+    private static final byte[] KEY_COLOR = ascii("color");
+    private static final byte[] KEY_SEQ = ascii("seq");
+    private static final byte[] KEY_REMOVED = ascii("removed");
+    private static final byte[] VALUE_KEYFRAME = ascii("keyframe");
+    private static final byte[] VALUE_DELTA = ascii("delta");
+    private static final byte[] VALUE_CIRCLE = ascii("CIRCLE");
+
+    private static final double[] POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long position;          // 下一行在文件中的起点
+    private long lineStart;         // 当前行在文件中的起点
+    private int lineBegin, lineEnd; // 当前行在映射区域中的范围
+
+    // 当前关键帧（各字段在映射区域中的偏移，-1表示缺失）
+    private double time;
+    private boolean delta;
+    private int seqOff;
+    private int removedOff;
+    private int entityCount;
+    private int[] idStart = new int[64], idEnd = new int[64];
+    private int[] xOff = new int[64], yOff = new int[64];
+    private int[] rtStart = new int[64], rtEnd = new int[64];
+    private int[] wOff = new int[64], hOff = new int[64], colorOff = new int[64];
+    private final Entity flyweight = new Entity();
+
+    public MappedRecordingReader(Path path) throws IOException {
+        this(path, 0);
+    }
+
+    /**
+     * @param position 0或RecordingIndex中记录的行起点
+     */
+    public MappedRecordingReader(Path path, long position) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            this.fileSize = channel.size();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.position = position;
+        this.lineStart = position;
+    }
+
+    // ========== 逐行读取 ==========
+
+    @Override
+    public String readLine() throws IOException {
+        if (!nextLine()) return null;
+        return string(lineBegin, lineEnd);
+    }
+
+    @Override
+    public long resumePosition() {
+        return lineStart;
+    }
+
+    @Override
+    public void close() throws IOException {
+        region = null;
+        channel.close();
+    }
+
+    /**
+     * 前进到下一个关键帧行并解析，文件结束时返回false
+     */
+    public boolean nextKeyframe() throws IOException {
+        while (nextLine()) {
+            if (parseFrame(false)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 前进到下一个关键帧或增量帧行并解析，文件结束时返回false
+     */
+    public boolean nextFrame() throws IOException {
+        while (nextLine()) {
+            if (parseFrame(true)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 当前帧是否为增量帧
+     */
+    public boolean isDelta() {
+        return delta;
+    }
+
+    /**
+     * 当前关键帧的时间
+     */
+    public double time() {
+        return time;
+    }
+
+    /**
+     * 当前关键帧的实体数
+     */
+    public int entityCount() {
+        return entityCount;
+    }
+
+    /**
+     * 当前关键帧的第i个实体（返回可复用的享元，下一次调用或读取下一帧后失效）
+     */
+    public Entity entity(int i) {
+        if (i < 0 || i >= entityCount) throw new IndexOutOfBoundsException("entity " + i);
+        flyweight.index = i;
+        return flyweight;
+    }
+
+    /**
+     * 把当前关键帧转换为独立的ReplayKeyframe对象
+     */
+    public ReplayKeyframe toReplayKeyframe() {
+        ReplayKeyframe kf = new ReplayKeyframe();
+        kf.t = time;
+        kf.delta = delta;
+        if (delta) {
+            kf.seq = seqOff >= 0 ? (int) number(seqOff) : 0;
+            kf.removed = removedIds();
+        }
+        for (int i = 0; i < entityCount; i++) {
+            Entity e = entity(i);
+            ReplayKeyframe.EntityInfo ei = new ReplayKeyframe.EntityInfo();
+            ei.id = e.id();
+            ei.pos = new Vector2(e.x(), e.y());
+            ei.rt = e.renderType();
+            ei.w = e.w();
+            ei.h = e.h();
+            ei.r = e.color(0);
+            ei.g = e.color(1);
+            ei.b = e.color(2);
+            ei.a = e.color(3);
+            kf.entities.add(ei);
+        }
+        return kf;
+    }
+
+    /**
+     * 映射区域上的实体享元
+     */
+    public final class Entity {
+        private int index;
+
+        private Entity() {}
+
+        public String id() {
+            return idStart[index] < 0 ? null : string(idStart[index], idEnd[index]);
+        }
+
+        /**
+         * 比较ID而不创建String
+         */
+        public boolean idEquals(CharSequence s) {
+            int start = idStart[index];
+            if (start < 0) return false;
+            int len = idEnd[index] - start;
+            if (len != s.length()) return false;
+            for (int i = 0; i < len; i++) {
+                int b = region.get(start + i) & 0xFF;
+                if (b >= 0x80) return s.toString().equals(id());  // 非ASCII按UTF-8解码后比较
+                if (b != s.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        public float x() {
+            return (float) number(xOff[index]);
+        }
+
+        public float y() {
+            return (float) number(yOff[index]);
+        }
+
+        public boolean hasRender() {
+            return rtStart[index] >= 0;
+        }
+
+        public boolean isCircle() {
+            return rtStart[index] >= 0 && bytesEqual(rtStart[index], rtEnd[index], VALUE_CIRCLE);
+        }
+
+        public String renderType() {
+            return rtStart[index] < 0 ? null : string(rtStart[index], rtEnd[index]);
+        }
+
+        public float w() {
+            return (float) number(wOff[index]);
+        }
+
+        public float h() {
+            return (float) number(hOff[index]);
+        }
+
+        /**
+         * 颜色分量（0~3 对应 r,g,b,a），缺失时为1
+         */
+        public float color(int k) {
+            int p = colorOff[index];
+            if (p < 0) return 1.0f;
+            p++;
+            for (int i = 0; i < k; i++) {
+                while (p < lineEnd && region.get(p) != ',' && region.get(p) != ']') p++;
+                if (p >= lineEnd || region.get(p) == ']') return 1.0f;
+                p++;
+            }
+            p = skipWs(p);
+            return p < lineEnd && region.get(p) != ']' ? (float) number(p) : 1.0f;
+        }
+    }
+
+    // ========== 映射与分行 ==========
+
+    private void map(long start) throws IOException {
+        long size = Math.min(MAX_REGION, fileSize - start);
+        region = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        regionStart = start;
+    }
+
+    private boolean nextLine() throws IOException {
+        if (position >= fileSize) return false;
+        if (region == null || position < regionStart || position >= regionStart + region.limit()) {
+            map(position);
+        }
+        int begin = (int) (position - regionStart);
+        int i = begin;
+        int limit = region.limit();
+        while (true) {
+            while (i < limit && region.get(i) != '\n') i++;
+            if (i < limit || regionStart + limit >= fileSize) break;
+            // 行跨越了映射区域的末尾：从行首重新映射
+            if (begin == 0) throw new IOException("Line too long at " + position);
+            map(position);
+            begin = 0;
+            i = 0;
+            limit = region.limit();
+        }
+        lineStart = position;
+        lineBegin = begin;
+        lineEnd = i;
+        if (lineEnd > lineBegin && region.get(lineEnd - 1) == '\r') lineEnd--;
+        position = i < limit ? regionStart + i + 1 : fileSize;
+        return true;
+    }
+
+    // ========== 关键帧解析 ==========
+
+    /**
+     * 解析当前行，是关键帧（allowDelta 时也可以是增量帧）时返回true
+     */
+    private boolean parseFrame(boolean allowDelta) {
+        entityCount = 0;
+        boolean keyframe = false;
+        int timeOff = -1;
+        delta = false;
+        seqOff = -1;
+        removedOff = -1;
+        int p = skipWs(lineBegin);
+        if (p >= lineEnd || region.get(p) != '{') return false;
+        p++;
+        while (true) {
+            p = skipWs(p);
+            if (p >= lineEnd) return false;
+            if (region.get(p) == '}') break;
+            if (region.get(p) != '"') return false;
+            int ks = p + 1;
+            int ke = skipString(p) - 1;
+            p = skipWs(ke + 1);
+            if (p >= lineEnd || region.get(p) != ':') return false;
+            p = skipWs(p + 1);
+            if (p >= lineEnd) return false;
+
+            if (bytesEqual(ks, ke, KEY_TYPE) && region.get(p) == '"') {
+                int end = skipString(p);
+                delta = allowDelta && bytesEqual(p + 1, end - 1, VALUE_DELTA);
+                keyframe = delta || bytesEqual(p + 1, end - 1, VALUE_KEYFRAME);
+                if (!keyframe) return false;
+                p = end;
+            } else if (bytesEqual(ks, ke, KEY_T)) {
+                timeOff = p;
+                p = skipValue(p);
+            } else if (bytesEqual(ks, ke, KEY_ENTITIES) && region.get(p) == '[') {
+                p = parseEntities(p);
+            } else if (bytesEqual(ks, ke, KEY_SEQ)) {
+                seqOff = p;
+                p = skipValue(p);
+            } else if (bytesEqual(ks, ke, KEY_REMOVED) && region.get(p) == '[') {
+                removedOff = p;
+                p = skipValue(p);
+            } else {
+                p = skipValue(p);
+            }
+            p = skipWs(p);
+            if (p < lineEnd && region.get(p) == ',') p++;
+        }
+        if (!keyframe) return false;
+        time = timeOff >= 0 ? number(timeOff) : 0.0;
+        return true;
+    }
+
+    /**
+     * 增量帧中被移除的实体ID
+     */
+    private List<String> removedIds() {
+        if (removedOff < 0) return null;
+        List<String> ids = new ArrayList<>();
+        int p = removedOff + 1;
+        while (true) {
+            p = skipWs(p);
+            if (p >= lineEnd) return ids;
+            byte c = region.get(p);
+            if (c == ']') return ids;
+            if (c == '"') {
+                int end = skipString(p);
+                ids.add(string(p + 1, end - 1));
+                p = end;
+            } else if (c == ',') {
+                p++;
+            } else {
+                p = skipValue(p);
+            }
+        }
+    }
+
+    private int parseEntities(int p) {
+        p++;
+        while (true) {
+            p = skipWs(p);
+            if (p >= lineEnd) return p;
+            byte c = region.get(p);
+            if (c == ']') return p + 1;
+            if (c == ',') {
+                p++;
+            } else if (c == '{') {
+                p = parseEntity(p);
+            } else {
+                p = skipValue(p);
+            }
+        }
+    }
+
+    private int parseEntity(int p) {
+        int e = addEntity();
+        p++;
+        while (true) {
+            p = skipWs(p);
+            if (p >= lineEnd) return p;
+            byte c = region.get(p);
+            if (c == '}') return p + 1;
+            if (c == ',') {
+                p++;
+                continue;
+            }
+            if (c != '"') return skipValue(p);
+            int ks = p + 1;
+            int ke = skipString(p) - 1;
+            p = skipWs(ke + 1);
+            if (p < lineEnd && region.get(p) == ':') p = skipWs(p + 1);
+            if (p >= lineEnd) return p;
+
+            if (bytesEqual(ks, ke, KEY_ID) && region.get(p) == '"') {
+                idStart[e] = p + 1;
+                p = skipString(p);
+                idEnd[e] = p - 1;
+            } else if (bytesEqual(ks, ke, KEY_RT) && region.get(p) == '"') {
+                rtStart[e] = p + 1;
+                p = skipString(p);
+                rtEnd[e] = p - 1;
+            } else {
+                if (bytesEqual(ks, ke, KEY_X)) xOff[e] = p;
+                else if (bytesEqual(ks, ke, KEY_Y)) yOff[e] = p;
+                else if (bytesEqual(ks, ke, KEY_W)) wOff[e] = p;
+                else if (bytesEqual(ks, ke, KEY_H)) hOff[e] = p;
+                else if (bytesEqual(ks, ke, KEY_COLOR) && region.get(p) == '[') colorOff[e] = p;
+                p = skipValue(p);
+            }
+        }
+    }
+
+    private int addEntity() {
+        if (entityCount == idStart.length) {
+            int cap = entityCount * 2;
+            idStart = Arrays.copyOf(idStart, cap);
+            idEnd = Arrays.copyOf(idEnd, cap);
+            xOff = Arrays.copyOf(xOff, cap);
+            yOff = Arrays.copyOf(yOff, cap);
+            rtStart = Arrays.copyOf(rtStart, cap);
+            rtEnd = Arrays.copyOf(rtEnd, cap);
+            wOff = Arrays.copyOf(wOff, cap);
+            hOff = Arrays.copyOf(hOff, cap);
+            colorOff = Arrays.copyOf(colorOff, cap);
+        }
+        int e = entityCount++;
+        idStart[e] = idEnd[e] = xOff[e] = yOff[e] = -1;
+        rtStart[e] = rtEnd[e] = wOff[e] = hOff[e] = colorOff[e] = -1;
+        return e;
+    }
+
+    // ========== 字节工具 ==========
+
+    private int skipWs(int p) {
+        while (p < lineEnd) {
+            byte c = region.get(p);
+            if (c != ' ' && c != '\t') break;
+            p++;
+        }
+        return p;
+    }
+
+    /**
+     * 跳过从p开始的字符串（p指向开头的引号），返回结尾引号之后的位置
+     */
+    private int skipString(int p) {
+        p++;
+        while (p < lineEnd) {
+            byte c = region.get(p);
+            if (c == '\\') {
+                p += 2;
+            } else if (c == '"') {
+                return p + 1;
+            } else {
+                p++;
+            }
+        }
+        return lineEnd;
+    }
+
+    /**
+     * 跳过一个值（字符串、数组、对象或数字）
+     */
+    private int skipValue(int p) {
+        if (p >= lineEnd) return p;
+        byte c = region.get(p);
+        if (c == '"') return skipString(p);
+        if (c == '[' || c == '{') {
+            int depth = 0;
+            while (p < lineEnd) {
+                c = region.get(p);
+                if (c == '"') {
+                    p = skipString(p);
+                    continue;
+                }
+                if (c == '[' || c == '{') depth++;
+                else if (c == ']' || c == '}') {
+                    if (--depth == 0) return p + 1;
+                }
+                p++;
+            }
+            return p;
+        }
+        while (p < lineEnd) {
+            c = region.get(p);
+            if (c == ',' || c == '}' || c == ']') break;
+            p++;
+        }
+        return p;
+    }
+
+    private boolean bytesEqual(int start, int end, byte[] value) {
+        if (end - start != value.length) return false;
+        for (int i = 0; i < value.length; i++) {
+            if (region.get(start + i) != value[i]) return false;
+        }
+        return true;
+    }
+
+    private String string(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        ByteBuffer view = region.duplicate();
+        view.position(start);
+        view.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 从p开始解析十进制数（缺失时为0）
+     * 常见的短小数直接由整数尾数计算，结果与Double.parseDouble一致；其余情况退回Double.parseDouble
+     */
+    private double number(int p) {
+        if (p < 0) return 0.0;
+        int i = p;
+        boolean negative = false;
+        if (i < lineEnd && region.get(i) == '-') {
+            negative = true;
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = 0;
+        boolean dot = false;
+        while (i < lineEnd) {
+            byte c = region.get(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (dot) fraction++;
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+            i++;
+        }
+        if (digits == 0) return 0.0;
+        byte next = i < lineEnd ? region.get(i) : 0;
+        if (digits > 15 || fraction >= POW10.length || next == 'e' || next == 'E') {
+            int end = skipValue(p);
+            try {
+                return Double.parseDouble(string(p, end).trim());
+            } catch (NumberFormatException e) {
+                return 0.0;
+            }
+        }
+        double v = mantissa / POW10[fraction];
+        return negative ? -v : v;
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
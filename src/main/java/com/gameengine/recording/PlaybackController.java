@@ -0,0 +1,127 @@
+package com.gameengine.recording;
+
+/**
+ * 回放进度控制：播放速度（0.25x–16x）、倒放、暂停/单步和跳转
+ * 只负责推进回放时间，回放场景每帧按时间查找两侧的关键帧，
+ * 高倍速时一帧跨过的中间关键帧直接跳过，不逐个插值；跳转时由索引定位到最近的快照开始解码。
+ * 播放到结尾（倒放到开头）时自动暂停。
+ */
+public class PlaybackController {
+    /** 可选的播放速度 */
+    public static final double[] SPEEDS = {0.25, 0.5, 1.0, 2.0, 4.0, 8.0, 16.0};
+    private static final int NORMAL_SPEED = 2;
+
+    private double time;
+    private double end;
+    private int speedIndex = NORMAL_SPEED;
+    private boolean reverse;
+    private boolean paused;
+    private double stepSec = 0.1;
+
+    /**
+     * 推进回放时间
+     * @param realDeltaSec 经过的真实时间（秒）
+     * @return 新的回放时间
+     */
+    public double advance(double realDeltaSec) {
+        if (paused) return time;
+        time += (reverse ? -realDeltaSec : realDeltaSec) * SPEEDS[speedIndex];
+        if (!reverse && time >= end) {
+            time = end;
+            paused = true;
+        } else if (reverse && time <= 0) {
+            time = 0;
+            paused = true;
+        }
+        return time;
+    }
+
+    /**
+     * 暂停/继续；在结尾（倒放时在开头）继续时从头（从结尾）播放
+     */
+    public void togglePause() {
+        if (paused) {
+            if (!reverse && time >= end) time = 0;
+            if (reverse && time <= 0) time = end;
+        }
+        paused = !paused;
+    }
+
+    public void faster() {
+        speedIndex = Math.min(SPEEDS.length - 1, speedIndex + 1);
+    }
+
+    public void slower() {
+        speedIndex = Math.max(0, speedIndex - 1);
+    }
+
+    public void toggleReverse() {
+        reverse = !reverse;
+    }
+
+    /**
+     * 暂停并前进一帧
+     */
+    public void stepForward() {
+        paused = true;
+        seek(time + stepSec);
+    }
+
+    /**
+     * 暂停并后退一帧
+     */
+    public void stepBackward() {
+        paused = true;
+        seek(time - stepSec);
+    }
+
+    /**
+     * 跳转到时间t（限制在录制范围内）
+     */
+    public void seek(double t) {
+        time = Math.max(0.0, Math.min(t, end));
+    }
+
+    /**
+     * 录制的结束时间（索引加载后设置）
+     */
+    public void setEnd(double end) {
+        this.end = Math.max(0.0, end);
+        if (time > this.end) time = this.end;
+    }
+
+    /**
+     * 单步的时长（关键帧间隔或模拟步长）
+     */
+    public void setStepSec(double stepSec) {
+        if (stepSec > 0) this.stepSec = stepSec;
+    }
+
+    public double getTime() {
+        return time;
+    }
+
+    public double getEnd() {
+        return end;
+    }
+
+    public double getSpeed() {
+        return SPEEDS[speedIndex];
+    }
+
+    /**
+     * 带方向的播放速度（倒放为负，暂停为0）
+     */
+    public double getRate() {
+        if (paused) return 0.0;
+        return reverse ? -SPEEDS[speedIndex] : SPEEDS[speedIndex];
+    }
+
+    public boolean isReverse() {
+        return reverse;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+}
@@ -0,0 +1,498 @@
+package com.gameengine.recording;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 录制批量分析工具
+ * 用法：RecordingAnalyzer [目录或文件...] [--out 输出目录] [--bucket 秒] [--threads 线程数]
+ * 默认分析 recordings/ 下（含子目录）所有格式的录制，结果写入 analysis/：
+ *   sessions.csv  每个录制一行：时长、帧数、平均/峰值实体数、生成数与每分钟生成数、击杀数
+ *   types.csv     每个录制的每种实体一行：生成数、每分钟生成数、击杀数、平均存活时间
+ *   timeline.csv  每个录制按时间段统计的平均/峰值实体数
+ *   summary.json  以上全部内容及所有录制按类型的合计
+ * 在 fork-join 池中并行：每个文件一个任务，文件内再按索引段拆分（每段从快照开始，可以独立解码）。
+ * 实体类型取ID中 '#' 之前的名称；录制结束前消失的实体记为被击杀，子弹类型只统计生成数和存活时间。
+ */
+public class RecordingAnalyzer {
+    /** 一个子任务最多解码的索引段数 */
+    private static final int SEGMENTS_PER_CHUNK = 4;
+    private static final double EPS = 1e-6;
+
+    private final double bucketSec;
+    private final FixedPointWriter fmt = new FixedPointWriter(2);
+
+    public RecordingAnalyzer(double bucketSec) {
+        this.bucketSec = bucketSec;
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> inputs = new ArrayList<>();
+        String outDir = "analysis";
+        double bucket = 10.0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if ("--out".equals(args[i]) && i + 1 < args.length) {
+                outDir = args[++i];
+            } else if ("--bucket".equals(args[i]) && i + 1 < args.length) {
+                bucket = Double.parseDouble(args[++i]);
+            } else if ("--threads".equals(args[i]) && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].startsWith("--")) {
+                System.err.println("用法: RecordingAnalyzer [目录或文件...] [--out 输出目录] [--bucket 秒] [--threads 线程数]");
+                System.exit(1);
+            } else {
+                inputs.add(args[i]);
+            }
+        }
+        if (inputs.isEmpty()) {
+            inputs.add("recordings");
+        }
+
+        List<Path> files = collectFiles(inputs, Paths.get(outDir));
+        if (files.isEmpty()) {
+            System.err.println("未找到录制文件: " + inputs);
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        RecordingAnalyzer analyzer = new RecordingAnalyzer(bucket);
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        List<Session> sessions;
+        try {
+            sessions = analyzer.analyze(files, pool);
+        } finally {
+            pool.shutdown();
+        }
+        analyzer.writeReports(sessions, Paths.get(outDir));
+        long failed = sessions.stream().filter(s -> s.error != null).count();
+        System.out.printf("已分析 %d 个录制（失败 %d 个），用时 %.1fs，结果写入 %s%n",
+            sessions.size() - failed, failed, (System.nanoTime() - start) / 1e9, outDir);
+    }
+
+    /**
+     * 展开目录（含子目录）中的录制文件，按路径排序；跳过输出目录（summary.json 也是 .json）
+     */
+    private static List<Path> collectFiles(List<String> inputs, Path outDir) throws IOException {
+        Path skip = outDir.toAbsolutePath().normalize();
+        List<Path> files = new ArrayList<>();
+        for (String input : inputs) {
+            Path p = Paths.get(input);
+            if (Files.isDirectory(p)) {
+                try (Stream<Path> walk = Files.walk(p)) {
+                    files.addAll(walk.filter(Files::isRegularFile)
+                        .filter(f -> !f.toAbsolutePath().normalize().startsWith(skip))
+                        .filter(f -> RecordingStorages.isRecording(f.getFileName().toString()))
+                        .sorted()
+                        .collect(Collectors.toList()));
+                }
+            } else if (Files.isRegularFile(p)) {
+                files.add(p);
+            }
+        }
+        return files;
+    }
+
+    /**
+     * 并行分析所有文件，结果与输入顺序一致
+     */
+    public List<Session> analyze(List<Path> files, ForkJoinPool pool) {
+        List<ForkJoinTask<Session>> tasks = new ArrayList<>(files.size());
+        for (Path file : files) {
+            tasks.add(pool.submit(new FileTask(file.toString())));
+        }
+        List<Session> sessions = new ArrayList<>(files.size());
+        for (ForkJoinTask<Session> task : tasks) {
+            sessions.add(task.join());
+        }
+        return sessions;
+    }
+
+    // ========== 统计 ==========
+
+    /**
+     * 一段连续帧的部分统计（可以按时间顺序合并）
+     */
+    private static final class Partial {
+        double firstT = Double.POSITIVE_INFINITY;
+        double lastT = Double.NEGATIVE_INFINITY;
+        long frames;
+        final Map<String, double[]> seen = new HashMap<>();    // id -> {首次出现, 最后出现}
+        final double[] entitySum;
+        final int[] entityPeak;
+        final int[] bucketFrames;
+
+        Partial(int buckets) {
+            entitySum = new double[buckets];
+            entityPeak = new int[buckets];
+            bucketFrames = new int[buckets];
+        }
+
+        void accept(ReplayKeyframe frame, double bucketSec) {
+            double t = frame.t;
+            firstT = Math.min(firstT, t);
+            lastT = Math.max(lastT, t);
+            frames++;
+            int n = frame.entities.size();
+            int b = Math.min(entitySum.length - 1, Math.max(0, (int) (t / bucketSec)));
+            entitySum[b] += n;
+            entityPeak[b] = Math.max(entityPeak[b], n);
+            bucketFrames[b]++;
+            for (int i = 0; i < n; i++) {
+                double[] span = seen.get(frame.entities.get(i).id);
+                if (span == null) {
+                    seen.put(frame.entities.get(i).id, new double[] {t, t});
+                } else {
+                    span[0] = Math.min(span[0], t);
+                    span[1] = Math.max(span[1], t);
+                }
+            }
+        }
+
+        Partial merge(Partial other) {
+            firstT = Math.min(firstT, other.firstT);
+            lastT = Math.max(lastT, other.lastT);
+            frames += other.frames;
+            for (Map.Entry<String, double[]> e : other.seen.entrySet()) {
+                double[] span = seen.putIfAbsent(e.getKey(), e.getValue());
+                if (span != null) {
+                    span[0] = Math.min(span[0], e.getValue()[0]);
+                    span[1] = Math.max(span[1], e.getValue()[1]);
+                }
+            }
+            for (int b = 0; b < entitySum.length; b++) {
+                entitySum[b] += other.entitySum[b];
+                entityPeak[b] = Math.max(entityPeak[b], other.entityPeak[b]);
+                bucketFrames[b] += other.bucketFrames[b];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * 一种实体的统计
+     */
+    public static final class TypeStats {
+        public long spawned;
+        public long killed;
+        public double survivalSum;
+        public long survivalCount;
+
+        void add(TypeStats other) {
+            spawned += other.spawned;
+            killed += other.killed;
+            survivalSum += other.survivalSum;
+            survivalCount += other.survivalCount;
+        }
+
+        public double averageSurvival() {
+            return survivalCount > 0 ? survivalSum / survivalCount : 0.0;
+        }
+    }
+
+    /**
+     * 一个录制的统计结果
+     */
+    public static final class Session {
+        public final String file;
+        public String error;
+        public double duration;
+        public long frames;
+        public double averageEntities;
+        public int peakEntities;
+        public final Map<String, TypeStats> types = new TreeMap<>();
+        public double[] bucketAverage = new double[0];
+        public int[] bucketPeak = new int[0];
+
+        Session(String file) {
+            this.file = file;
+        }
+
+        public long spawned() {
+            return types.values().stream().mapToLong(s -> s.spawned).sum();
+        }
+
+        public long killed() {
+            return types.values().stream().mapToLong(s -> s.killed).sum();
+        }
+    }
+
+    private static boolean isProjectile(String type) {
+        return type.endsWith("Bullet");
+    }
+
+    private static double perMinute(long count, double seconds) {
+        return seconds > 0 ? count * 60.0 / seconds : 0.0;
+    }
+
+    private Session summarize(String file, Partial p) {
+        Session s = new Session(file);
+        if (p.frames == 0) return s;
+        s.duration = p.lastT;
+        s.frames = p.frames;
+        double sum = 0;
+        s.bucketAverage = new double[p.entitySum.length];
+        s.bucketPeak = p.entityPeak.clone();
+        for (int b = 0; b < p.entitySum.length; b++) {
+            sum += p.entitySum[b];
+            s.bucketAverage[b] = p.bucketFrames[b] > 0 ? p.entitySum[b] / p.bucketFrames[b] : 0.0;
+            s.peakEntities = Math.max(s.peakEntities, p.entityPeak[b]);
+        }
+        s.averageEntities = sum / p.frames;
+
+        for (Map.Entry<String, double[]> e : p.seen.entrySet()) {
+            String id = e.getKey();
+            int hash = id.lastIndexOf('#');
+            String type = hash >= 0 ? id.substring(0, hash) : id;
+            TypeStats ts = s.types.computeIfAbsent(type, k -> new TypeStats());
+            double first = e.getValue()[0];
+            double last = e.getValue()[1];
+            if (first > p.firstT + EPS) {
+                ts.spawned++;
+            }
+            if (last < p.lastT - EPS) {
+                if (!isProjectile(type)) ts.killed++;
+                ts.survivalSum += last - first;
+                ts.survivalCount++;
+            }
+        }
+        return s;
+    }
+
+    // ========== 任务 ==========
+
+    /**
+     * 分析一个文件：加载索引后按段拆分解码
+     */
+    private final class FileTask extends RecursiveTask<Session> {
+        private static final long serialVersionUID = 1L;
+
+        private final String path;
+
+        FileTask(String path) {
+            this.path = path;
+        }
+
+        @Override
+        protected Session compute() {
+            try {
+                RecordingStorage storage = RecordingStorages.forPath(path);
+                RecordingIndex index = storage.loadIndex(path);
+                int buckets = (int) (index.getLastTime() / bucketSec) + 1;
+                if (index.size() == 0) {
+                    return summarize(path, new Partial(buckets));
+                }
+                return summarize(path, new ChunkTask(storage, path, index, 0, index.size(), buckets).invoke());
+            } catch (IOException | RuntimeException e) {
+                Session failed = new Session(path);
+                failed.error = e.getMessage() != null ? e.getMessage() : e.toString();
+                System.err.println("分析失败 " + path + ": " + failed.error);
+                return failed;
+            }
+        }
+    }
+
+    /**
+     * 解码索引段 [from, to)：段数较多时对半拆分
+     */
+    private final class ChunkTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final RecordingStorage storage;
+        private final String path;
+        private final RecordingIndex index;
+        private final int from, to, buckets;
+
+        ChunkTask(RecordingStorage storage, String path, RecordingIndex index, int from, int to, int buckets) {
+            this.storage = storage;
+            this.path = path;
+            this.index = index;
+            this.from = from;
+            this.to = to;
+            this.buckets = buckets;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from > SEGMENTS_PER_CHUNK) {
+                int mid = (from + to) >>> 1;
+                ChunkTask left = new ChunkTask(storage, path, index, from, mid, buckets);
+                ChunkTask right = new ChunkTask(storage, path, index, mid, to, buckets);
+                right.fork();
+                return left.compute().merge(right.join());
+            }
+            try {
+                return decode();
+            } catch (IOException e) {
+                throw new java.io.UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * 与 KeyframeWindow 相同：读取这些段的快照及其后的增量，到下一段的第一个快照为止
+         */
+        private Partial decode() throws IOException {
+            Partial partial = new Partial(buckets);
+            int count = 0;
+            for (int e = from; e < to; e++) {
+                count += index.getSegmentLength(e);
+            }
+            int snapshots = 0;
+            try (RecordingReader reader = storage.openReader(path, index.getPosition(from))) {
+                ReplayKeyframe prev = null;
+                ReplayKeyframe frame;
+                while ((frame = KeyframeParser.nextFrame(reader)) != null) {
+                    if (!frame.delta) {
+                        if (snapshots == count) break;
+                        snapshots++;
+                        prev = frame;
+                    } else if (prev != null) {
+                        prev = frame.applyTo(prev);
+                        if (prev == null) continue;
+                    } else {
+                        continue;
+                    }
+                    partial.accept(prev, bucketSec);
+                }
+            }
+            return partial;
+        }
+    }
+
+    // ========== 输出 ==========
+
+    /**
+     * 写出 sessions.csv / types.csv / timeline.csv / summary.json
+     */
+    public void writeReports(List<Session> sessions, Path dir) throws IOException {
+        Files.createDirectories(dir);
+        try (Writer w = writer(dir.resolve("sessions.csv"))) {
+            w.write("file,duration_s,frames,avg_entities,peak_entities,spawned,spawns_per_min,killed,error\n");
+            for (Session s : sessions) {
+                w.write(csv(s.file) + ',' + fmt.format(s.duration) + ',' + s.frames + ','
+                    + fmt.format(s.averageEntities) + ',' + s.peakEntities + ',' + s.spawned() + ','
+                    + fmt.format(perMinute(s.spawned(), s.duration)) + ',' + s.killed() + ','
+                    + (s.error != null ? csv(s.error) : "") + '\n');
+            }
+        }
+        try (Writer w = writer(dir.resolve("types.csv"))) {
+            w.write("file,type,spawned,spawns_per_min,killed,avg_survival_s\n");
+            for (Session s : sessions) {
+                for (Map.Entry<String, TypeStats> e : s.types.entrySet()) {
+                    TypeStats ts = e.getValue();
+                    w.write(csv(s.file) + ',' + csv(e.getKey()) + ',' + ts.spawned + ','
+                        + fmt.format(perMinute(ts.spawned, s.duration)) + ',' + ts.killed + ','
+                        + fmt.format(ts.averageSurvival()) + '\n');
+                }
+            }
+        }
+        try (Writer w = writer(dir.resolve("timeline.csv"))) {
+            w.write("file,t,avg_entities,peak_entities\n");
+            for (Session s : sessions) {
+                for (int b = 0; b < s.bucketAverage.length; b++) {
+                    w.write(csv(s.file) + ',' + fmt.format(b * bucketSec) + ','
+                        + fmt.format(s.bucketAverage[b]) + ',' + s.bucketPeak[b] + '\n');
+                }
+            }
+        }
+        try (Writer w = writer(dir.resolve("summary.json"))) {
+            writeJson(w, sessions);
+        }
+    }
+
+    private void writeJson(Writer w, List<Session> sessions) throws IOException {
+        Map<String, TypeStats> totals = new TreeMap<>();
+        double totalDuration = 0;
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("{\"bucket\":").append(fmt.format(bucketSec)).append(",\"sessions\":[");
+        for (int i = 0; i < sessions.size(); i++) {
+            Session s = sessions.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("\n{\"file\":").append(json(s.file));
+            if (s.error != null) {
+                sb.append(",\"error\":").append(json(s.error)).append('}');
+                continue;
+            }
+            totalDuration += s.duration;
+            sb.append(",\"duration\":").append(fmt.format(s.duration))
+              .append(",\"frames\":").append(s.frames)
+              .append(",\"avgEntities\":").append(fmt.format(s.averageEntities))
+              .append(",\"peakEntities\":").append(s.peakEntities)
+              .append(",\"spawnsPerMin\":").append(fmt.format(perMinute(s.spawned(), s.duration)))
+              .append(",\"types\":");
+            appendTypes(sb, s.types, s.duration);
+            sb.append(",\"timeline\":[");
+            for (int b = 0; b < s.bucketAverage.length; b++) {
+                if (b > 0) sb.append(',');
+                sb.append('[').append(fmt.format(b * bucketSec)).append(',')
+                  .append(fmt.format(s.bucketAverage[b])).append(',').append(s.bucketPeak[b]).append(']');
+            }
+            sb.append("]}");
+            for (Map.Entry<String, TypeStats> e : s.types.entrySet()) {
+                totals.computeIfAbsent(e.getKey(), k -> new TypeStats()).add(e.getValue());
+            }
+            w.append(sb);
+            sb.setLength(0);
+        }
+        sb.append("\n],\"totals\":{\"files\":").append(sessions.size())
+          .append(",\"duration\":").append(fmt.format(totalDuration))
+          .append(",\"types\":");
+        appendTypes(sb, totals, totalDuration);
+        sb.append("}}\n");
+        w.append(sb);
+    }
+
+    private void appendTypes(StringBuilder sb, Map<String, TypeStats> types, double duration) {
+        sb.append('{');
+        boolean first = true;
+        for (Map.Entry<String, TypeStats> e : types.entrySet()) {
+            TypeStats ts = e.getValue();
+            if (!first) sb.append(',');
+            first = false;
+            sb.append(json(e.getKey())).append(":{\"spawned\":").append(ts.spawned)
+              .append(",\"spawnsPerMin\":").append(fmt.format(perMinute(ts.spawned, duration)))
+              .append(",\"killed\":").append(ts.killed)
+              .append(",\"avgSurvival\":").append(fmt.format(ts.averageSurvival())).append('}');
+        }
+        sb.append('}');
+    }
+
+    private static Writer writer(Path path) throws IOException {
+        return new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8), 64 * 1024);
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,34 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 压缩录制文件的块编解码器（SPI）
+ * 内置 gzip 与 deflate；其他实现通过 ServiceLoader 注册
+ * （META-INF/services/com.gameengine.recording.RecordingCodec），见 RecordingCodecs。
+ * 每个块独立压缩，实现应是无状态、线程安全的。
+ */
+public interface RecordingCodec {
+    /**
+     * 编解码器名称，写入文件头，读取时据此选择解码器
+     */
+    String getName();
+
+    /**
+     * 使用该编解码器的录制文件扩展名
+     */
+    String getExtension();
+
+    /**
+     * 压缩一个块，写入out
+     */
+    void compress(byte[] src, int offset, int length, OutputStream out) throws IOException;
+
+    /**
+     * 解压一个块
+     * @param dst 输出缓冲区，长度不小于 rawLength
+     * @param rawLength 块解压后的长度（记录在块头中）
+     */
+    void decompress(byte[] src, int offset, int length, byte[] dst, int rawLength) throws IOException;
+}
@@ -0,0 +1,63 @@
+package com.gameengine.recording;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * 块编解码器注册表：内置 gzip、deflate，以及通过 ServiceLoader 注册的实现
+ */
+public final class RecordingCodecs {
+    private static volatile List<RecordingCodec> codecs;
+
+    private RecordingCodecs() {}
+
+    /**
+     * 所有可用的编解码器（首次调用时加载）
+     */
+    public static List<RecordingCodec> all() {
+        List<RecordingCodec> list = codecs;
+        if (list == null) {
+            list = new ArrayList<>();
+            list.add(new GzipRecordingCodec());
+            list.add(new DeflateRecordingCodec());
+            for (RecordingCodec codec : ServiceLoader.load(RecordingCodec.class)) {
+                if (forName(list, codec.getName()) == null) {
+                    list.add(codec);
+                }
+            }
+            list = Collections.unmodifiableList(list);
+            codecs = list;
+        }
+        return list;
+    }
+
+    /**
+     * 按名称查找，找不到时返回null
+     */
+    public static RecordingCodec forName(String name) {
+        return forName(all(), name);
+    }
+
+    /**
+     * 按文件扩展名查找，不是压缩录制文件时返回null
+     */
+    public static RecordingCodec forPath(String path) {
+        for (RecordingCodec codec : all()) {
+            if (path.endsWith(codec.getExtension())) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    private static RecordingCodec forName(List<RecordingCodec> list, String name) {
+        for (RecordingCodec codec : list) {
+            if (codec.getName().equalsIgnoreCase(name)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+}
@@ -4,6 +4,18 @@ package com.gameengine.recording;
  * 录制配置
  */
 public class RecordingConfig {
+    /**
+     * 写入队列满时的处理策略
+     */
+    public enum Backpressure {
+        /** 等待写入线程腾出空间（不丢数据） */
+        BLOCK,
+        /** 丢弃最早的未写出行 */
+        DROP_OLDEST,
+        /** 只保留最新的关键帧，其他行等待 */
+        COALESCE_KEYFRAMES
+    }
+
     /** 关键帧间隔（秒） */
     public final double keyframeIntervalSec;
     
@@ -16,20 +28,70 @@ public class RecordingConfig {
     /** 数值精度（小数位数） */
     public final int quantizeDecimals;
 
+    /** 队列满时的处理策略 */
+    public final Backpressure backpressure;
+
+    /** 完整快照的间隔（秒），之间的关键帧只写增量；0 表示每个关键帧都是完整快照 */
+    public final double snapshotIntervalSec;
+
     public RecordingConfig(double keyframeIntervalSec, int queueCapacity, 
                           String outputPath, int quantizeDecimals) {
+        this(keyframeIntervalSec, queueCapacity, outputPath, quantizeDecimals, Backpressure.BLOCK);
+    }
+
+    public RecordingConfig(double keyframeIntervalSec, int queueCapacity, 
+                          String outputPath, int quantizeDecimals, Backpressure backpressure) {
+        this(keyframeIntervalSec, queueCapacity, outputPath, quantizeDecimals, backpressure, 1.0);
+    }
+
+    public RecordingConfig(double keyframeIntervalSec, int queueCapacity, 
+                          String outputPath, int quantizeDecimals, Backpressure backpressure,
+                          double snapshotIntervalSec) {
         this.keyframeIntervalSec = keyframeIntervalSec;
         this.queueCapacity = queueCapacity;
         this.outputPath = outputPath;
         this.quantizeDecimals = quantizeDecimals;
+        this.backpressure = backpressure;
+        this.snapshotIntervalSec = snapshotIntervalSec;
     }
 
     /**
-     * 默认配置：每0.1秒一个关键帧，队列1000，保留2位小数
+     * 默认配置：每0.1秒一个关键帧（每1秒一个完整快照，其余为增量），队列1000，保留2位小数
+     * 启动参数 -Drecording.format=binary 时输出二进制格式（.rec），否则为JSONL
+     * 启动参数 -Drecording.compression=gzip|deflate（或其他已注册的编解码器）时JSONL按块压缩输出
+     * （异常中断时最多丢失最近约 recording.blockFlushMs 毫秒的未写出块，见 CompressedRecordingStorage）
+     * 启动参数 -Drecording.backpressure=block|drop_oldest|coalesce_keyframes 选择队列满时的策略（默认block）
+     * 启动参数 -Drecording.mode=deterministic 时只录输入和每秒一个完整快照作为校验点（回放由种子和输入重新模拟）
      */
     public static RecordingConfig createDefault() {
         long timestamp = System.currentTimeMillis();
-        String path = "recordings/session_" + timestamp + ".jsonl";
-        return new RecordingConfig(0.1, 1000, path, 2);
+        String ext = "binary".equals(System.getProperty("recording.format")) ? BinaryRecordingStorage.EXTENSION : textExtension();
+        String path = "recordings/session_" + timestamp + ext;
+        Backpressure backpressure = parseBackpressure(System.getProperty("recording.backpressure"));
+        if ("deterministic".equals(System.getProperty("recording.mode"))) {
+            return new RecordingConfig(1.0, 1000, path, 2, backpressure, 0);
+        }
+        return new RecordingConfig(0.1, 1000, path, 2, backpressure);
+    }
+
+    private static String textExtension() {
+        String name = System.getProperty("recording.compression");
+        if (name == null) return ".jsonl";
+        RecordingCodec codec = RecordingCodecs.forName(name.trim());
+        if (codec == null) {
+            System.err.println("未知的录制压缩格式: " + name + "，不压缩");
+            return ".jsonl";
+        }
+        return codec.getExtension();
+    }
+
+    private static Backpressure parseBackpressure(String value) {
+        if (value == null) return Backpressure.BLOCK;
+        try {
+            return Backpressure.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("未知的录制队列策略: " + value + "，使用 block");
+            return Backpressure.BLOCK;
+        }
     }
 }
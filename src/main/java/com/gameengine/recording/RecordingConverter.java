@@ -0,0 +1,38 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 录制格式转换工具
+ * 用法：RecordingConverter <输入文件> <输出文件> [小数位数]
+ * 按扩展名在JSONL（.jsonl/.json）、二进制（.rec）与块压缩（.jsonl.gzb/.jsonl.dfb）之间转换，转换结果逐行一致
+ */
+public class RecordingConverter {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("用法: RecordingConverter <输入文件> <输出文件> [小数位数]");
+            System.exit(1);
+        }
+        int decimals = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        RecordingStorage in = RecordingStorages.forPath(args[0], decimals);
+        RecordingStorage out = RecordingStorages.forPath(args[1], decimals);
+
+        int count = 0;
+        out.openWriter(args[1]);
+        try (Stream<String> lines = in.lines(args[0])) {
+            Iterator<String> it = lines.iterator();
+            while (it.hasNext()) {
+                out.writeLine(it.next());
+                count++;
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            out.closeWriter();
+        }
+        System.out.println("已转换 " + count + " 行: " + args[0] + " -> " + args[1]);
+    }
+}
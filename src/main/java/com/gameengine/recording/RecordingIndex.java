@@ -0,0 +1,210 @@
+package com.gameengine.recording;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * 录制文件的随机访问索引
+ * 每隔 interval 个关键帧记录一个索引点（时间、可以开始读取的位置、关键帧序号），
+ * 保存为录制文件旁的 .idx 文件。回放时按时间找到索引点，只解码需要的关键帧。
+ */
+public final class RecordingIndex {
+    public static final String SUFFIX = ".idx";
+    public static final int DEFAULT_INTERVAL = 50;
+
+    private static final int MAGIC = 0x48494458; // "HIDX"
+    private static final int VERSION = 1;
+
+    private final int interval;
+    private int size;
+    private double[] times = new double[64];
+    private long[] positions = new long[64];
+    private int[] keyframeIndices = new int[64];
+
+    private int keyframeCount;
+    private double firstTime;
+    private double lastTime;
+    private long lastEntryPosition = -1;
+
+    public RecordingIndex(int interval) {
+        this.interval = Math.max(1, interval);
+    }
+
+    /**
+     * 记录一行（按文件顺序调用）
+     * @param resumePosition 可以重新开始读取并得到这一行的位置
+     */
+    void accept(String line, long resumePosition) {
+        if (KeyframeParser.isKeyframe(line)) {
+            acceptKeyframe(KeyframeParser.parseTime(line), resumePosition);
+        }
+    }
+
+    /**
+     * 记录一个关键帧（按文件顺序调用）
+     */
+    void acceptKeyframe(double t, long resumePosition) {
+        if (keyframeCount == 0) {
+            firstTime = t;
+        }
+        lastTime = t;
+        boolean due = size == 0 || keyframeCount - keyframeIndices[size - 1] >= interval;
+        if (due && resumePosition != lastEntryPosition) {
+            addEntry(t, resumePosition, keyframeCount);
+        }
+        keyframeCount++;
+    }
+
+    private void addEntry(double t, long position, int keyframeIndex) {
+        if (size == times.length) {
+            int cap = size * 2;
+            times = Arrays.copyOf(times, cap);
+            positions = Arrays.copyOf(positions, cap);
+            keyframeIndices = Arrays.copyOf(keyframeIndices, cap);
+        }
+        times[size] = t;
+        positions[size] = position;
+        keyframeIndices[size] = keyframeIndex;
+        size++;
+        lastEntryPosition = position;
+    }
+
+    /**
+     * 查找不晚于指定时间的最后一个索引点（早于第一个索引点时返回0）
+     */
+    public int findEntry(double t) {
+        int lo = 0, hi = size - 1, found = 0;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] <= t) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getTime(int entry) {
+        return times[entry];
+    }
+
+    public long getPosition(int entry) {
+        return positions[entry];
+    }
+
+    public int getKeyframeIndex(int entry) {
+        return keyframeIndices[entry];
+    }
+
+    /**
+     * 索引点 entry 到下一个索引点（或文件末尾）之间的关键帧数
+     */
+    public int getSegmentLength(int entry) {
+        int end = entry + 1 < size ? keyframeIndices[entry + 1] : keyframeCount;
+        return end - keyframeIndices[entry];
+    }
+
+    public int getKeyframeCount() {
+        return keyframeCount;
+    }
+
+    public double getFirstTime() {
+        return firstTime;
+    }
+
+    public double getLastTime() {
+        return lastTime;
+    }
+
+    // ========== 读写 ==========
+
+    public static String indexPath(String recordingPath) {
+        return recordingPath + SUFFIX;
+    }
+
+    /**
+     * 保存到录制文件旁的 .idx 文件
+     */
+    void save(String recordingPath) throws IOException {
+        long recordingLength = Files.size(Paths.get(recordingPath));
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(Paths.get(indexPath(recordingPath)))))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(recordingLength);
+            out.writeInt(interval);
+            out.writeInt(keyframeCount);
+            out.writeDouble(firstTime);
+            out.writeDouble(lastTime);
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeDouble(times[i]);
+                out.writeLong(positions[i]);
+                out.writeInt(keyframeIndices[i]);
+            }
+        }
+    }
+
+    /**
+     * 读取 .idx 文件，不存在或与录制文件不匹配时返回null
+     */
+    static RecordingIndex read(String recordingPath) {
+        File idx = new File(indexPath(recordingPath));
+        if (!idx.isFile()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(idx)))) {
+            if (in.readInt() != MAGIC || in.readUnsignedByte() != VERSION) return null;
+            long length = in.readLong();
+            if (length != new File(recordingPath).length()) return null;
+            RecordingIndex index = new RecordingIndex(in.readInt());
+            index.keyframeCount = in.readInt();
+            index.firstTime = in.readDouble();
+            index.lastTime = in.readDouble();
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                index.addEntry(in.readDouble(), in.readLong(), in.readInt());
+            }
+            return index;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 加载录制文件的索引
+     * 没有可用的 .idx 文件时（如旧录制或异常中断的录制）顺序扫描一遍生成并尽量保存
+     */
+    public static RecordingIndex load(String recordingPath, RecordingStorage storage) throws IOException {
+        RecordingIndex index = read(recordingPath);
+        if (index != null) return index;
+
+        index = new RecordingIndex(DEFAULT_INTERVAL);
+        try (RecordingReader reader = storage.openReader(recordingPath, 0)) {
+            if (reader instanceof MappedRecordingReader) {
+                // 直接在映射的字节上读取关键帧时间，不创建行字符串
+                MappedRecordingReader mapped = (MappedRecordingReader) reader;
+                while (mapped.nextKeyframe()) {
+                    index.acceptKeyframe(mapped.time(), mapped.resumePosition());
+                }
+            } else {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    index.accept(line, reader.resumePosition());
+                }
+            }
+        }
+        try {
+            index.save(recordingPath);
+        } catch (IOException e) {
+            System.err.println("保存录制索引失败: " + e.getMessage());
+        }
+        return index;
+    }
+}
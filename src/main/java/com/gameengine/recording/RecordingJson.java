@@ -6,7 +6,10 @@ import java.util.List;
 /**
  * 简单的JSON解析工具
  * 用于解析录制文件中的JSON数据
+ *
+ * @deprecated 每次查找字段都从头扫描整行，解析关键帧请使用单遍扫描的 {@link JsonTokenizer}
  */
+@Deprecated
 public final class RecordingJson {
     private RecordingJson() {}
 
@@ -0,0 +1,67 @@
+package com.gameengine.recording;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 录制文件的顺序读取器
+ * 可以从文件开头或RecordingIndex记录的位置开始读取
+ */
+public interface RecordingReader extends Closeable {
+    /**
+     * 读取下一行，文件结束时返回null
+     */
+    String readLine() throws IOException;
+
+    /**
+     * 可以重新打开读取器继续读取的最近位置（不晚于上一次返回的行）
+     */
+    long resumePosition();
+
+    /**
+     * 以惰性流的形式逐行读取，关闭流时关闭读取器
+     */
+    default Stream<String> lines() {
+        Iterator<String> it = new Iterator<String>() {
+            private String next;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (next != null) return true;
+                if (done) return false;
+                try {
+                    next = readLine();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                done = next == null;
+                return !done;
+            }
+
+            @Override
+            public String next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                String line = next;
+                next = null;
+                return line;
+            }
+        };
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(() -> {
+                try {
+                    close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+    }
+}
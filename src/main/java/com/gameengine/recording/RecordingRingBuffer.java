@@ -0,0 +1,272 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 录制写入管线：单生产者（游戏线程）单消费者（写入线程）的无锁环形缓冲区
+ * 槽位是可复用的字节数组，生产者把行直接编码为UTF-8写入槽位后发布尾序号，
+ * 消费者一次取出所有已发布的行交给存储，每批只 flush 一次（一次系统调用写出多条记录）。
+ * 没有数据时消费者 park，生产者发布后 unpark 唤醒，不再轮询休眠。
+ *
+ * 队列满时的行为见 RecordingConfig.Backpressure：
+ * BLOCK 等待写入线程腾出槽位；DROP_OLDEST 丢弃最早的未写出行（生产者推进头序号，
+ * 消费者复制槽位后用CAS确认头序号未被推进，被丢弃的槽位内容作废）；
+ * COALESCE_KEYFRAMES 把关键帧暂存在生产者一侧，队列仍满时新关键帧替换暂存的旧关键帧，
+ * 其他行按 BLOCK 处理，行的先后顺序不变。
+ */
+final class RecordingRingBuffer {
+    /** 消费者单次休眠上限（兜底，正常由生产者唤醒） */
+    private static final long CONSUMER_PARK_NANOS = 50_000_000L;
+    /** 阻塞的生产者单次休眠上限 */
+    private static final long PRODUCER_PARK_NANOS = 100_000L;
+    private static final int INITIAL_SLOT_BYTES = 256;
+
+    private final RecordingConfig.Backpressure policy;
+    private final int mask;
+    private final byte[][] slots;
+    private final int[] lengths;
+
+    /** 下一个要写出的序号（消费者推进；DROP_OLDEST 时生产者也会推进） */
+    private final AtomicLong head = new AtomicLong();
+    /** 已发布序号的上界（只由生产者写） */
+    private volatile long tail;
+    private volatile boolean closed;
+
+    private volatile Thread consumer;
+    private volatile boolean consumerParked;
+    private volatile Thread blockedProducer;
+
+    // 生产者私有：暂存的关键帧与统计
+    private byte[] pending = new byte[INITIAL_SLOT_BYTES];
+    private int pendingLength = -1;
+    private long dropped;
+    private long coalesced;
+
+    // 消费者私有：DROP_OLDEST 时先复制槽位再确认
+    private byte[] scratch = new byte[INITIAL_SLOT_BYTES];
+
+    /**
+     * @param capacity 最少槽位数（向上取2的幂）
+     */
+    RecordingRingBuffer(int capacity, RecordingConfig.Backpressure policy) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.policy = policy;
+        this.mask = size - 1;
+        this.slots = new byte[size][INITIAL_SLOT_BYTES];
+        this.lengths = new int[size];
+    }
+
+    // ========== 生产者 ==========
+
+    /**
+     * 写入一行（内容在调用期间被复制，之后可以复用line）
+     * @param keyframe 是否为关键帧（COALESCE_KEYFRAMES 只合并关键帧）
+     * @return 写入线程已停止时返回false
+     */
+    boolean offer(CharSequence line, boolean keyframe) {
+        if (closed) return false;
+        if (policy == RecordingConfig.Backpressure.COALESCE_KEYFRAMES) {
+            if (pendingLength >= 0) {
+                if (keyframe && isFull()) {
+                    pendingLength = encode(line, true);
+                    coalesced++;
+                    return true;
+                }
+                if (!publishPending()) return false;
+            }
+            if (keyframe && isFull()) {
+                pendingLength = encode(line, true);
+                return true;
+            }
+        }
+        if (!awaitSpace()) return false;
+        long t = tail;
+        lengths[(int) t & mask] = encode(line, false);
+        publish(t);
+        return true;
+    }
+
+    /**
+     * 队列有空位时写出暂存的关键帧（不阻塞），游戏线程每帧调用
+     */
+    void publishPendingIfRoom() {
+        if (pendingLength >= 0 && !isFull()) {
+            publishPending();
+        }
+    }
+
+    /**
+     * 写出暂存的关键帧并通知写入线程在写完剩余数据后结束
+     */
+    void close() {
+        if (pendingLength >= 0) {
+            publishPending();
+        }
+        closed = true;
+        wake(consumer);
+    }
+
+    long getDropped() {
+        return dropped;
+    }
+
+    long getCoalesced() {
+        return coalesced;
+    }
+
+    private boolean isFull() {
+        return tail - head.get() > mask;
+    }
+
+    private boolean publishPending() {
+        if (!awaitSpace()) return false;
+        long t = tail;
+        int i = (int) t & mask;
+        if (slots[i].length < pendingLength) {
+            slots[i] = new byte[pending.length];
+        }
+        System.arraycopy(pending, 0, slots[i], 0, pendingLength);
+        lengths[i] = pendingLength;
+        pendingLength = -1;
+        publish(t);
+        return true;
+    }
+
+    private void publish(long t) {
+        tail = t + 1;
+        if (consumerParked) {
+            wake(consumer);
+        }
+    }
+
+    /**
+     * 等待尾序号所在的槽位可写
+     */
+    private boolean awaitSpace() {
+        while (isFull()) {
+            if (closed) return false;
+            if (policy == RecordingConfig.Backpressure.DROP_OLDEST) {
+                long h = head.get();
+                if (tail - h > mask && head.compareAndSet(h, h + 1)) {
+                    dropped++;
+                }
+                continue;
+            }
+            blockedProducer = Thread.currentThread();
+            wake(consumer);
+            if (isFull()) {
+                LockSupport.parkNanos(this, PRODUCER_PARK_NANOS);
+            }
+            blockedProducer = null;
+        }
+        return true;
+    }
+
+    /**
+     * 把行编码为UTF-8，写入尾序号所在的槽位（toPending 时写入暂存区），返回字节数
+     */
+    private int encode(CharSequence line, boolean toPending) {
+        int n = line.length();
+        int i = (int) tail & mask;
+        byte[] buf = toPending ? pending : slots[i];
+        if (buf.length < n) {
+            buf = new byte[Math.max(n, buf.length * 2)];
+        }
+        int len = 0;
+        for (int k = 0; k < n; k++) {
+            char c = line.charAt(k);
+            if (c >= 0x80) {
+                // 非ASCII：整行走通用编码
+                byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+                if (buf.length < bytes.length) {
+                    buf = new byte[bytes.length];
+                }
+                System.arraycopy(bytes, 0, buf, 0, bytes.length);
+                len = bytes.length;
+                break;
+            }
+            buf[len++] = (byte) c;
+        }
+        if (toPending) {
+            pending = buf;
+        } else {
+            slots[i] = buf;
+        }
+        return len;
+    }
+
+    // ========== 消费者 ==========
+
+    /**
+     * 等待数据
+     * @return 已关闭且全部写出时返回false
+     */
+    boolean awaitData() {
+        consumer = Thread.currentThread();
+        while (head.get() >= tail) {
+            if (closed) return head.get() < tail;
+            consumerParked = true;
+            if (head.get() >= tail && !closed) {
+                LockSupport.parkNanos(this, CONSUMER_PARK_NANOS);
+            }
+            consumerParked = false;
+        }
+        return true;
+    }
+
+    /**
+     * 把所有已发布的行写入存储，整批写完后 flush 一次
+     * @return 写出的行数
+     */
+    int drainTo(RecordingStorage storage) throws IOException {
+        int count = 0;
+        long h = head.get();
+        long t = tail;
+        while (h < t) {
+            int i = (int) h & mask;
+            if (policy == RecordingConfig.Backpressure.DROP_OLDEST) {
+                // 生产者可能已丢弃并改写该槽位：先复制，再确认头序号未被推进
+                byte[] src = slots[i];
+                int len = Math.min(lengths[i], src.length);
+                if (scratch.length < len) {
+                    scratch = new byte[Math.max(len, scratch.length * 2)];
+                }
+                System.arraycopy(src, 0, scratch, 0, len);
+                if (!head.compareAndSet(h, h + 1)) {
+                    h = head.get();
+                    continue;
+                }
+                storage.writeLine(scratch, 0, len);
+            } else {
+                storage.writeLine(slots[i], 0, lengths[i]);
+                head.set(h + 1);
+            }
+            h++;
+            count++;
+            if (blockedProducer != null) {
+                wake(blockedProducer);
+            }
+        }
+        if (count > 0) {
+            storage.flush();
+        }
+        return count;
+    }
+
+    /**
+     * 写入线程异常退出：之后的写入直接失败，不再阻塞生产者
+     */
+    void fail() {
+        closed = true;
+        wake(blockedProducer);
+    }
+
+    private static void wake(Thread thread) {
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
@@ -8,37 +8,67 @@ import com.gameengine.math.Vector2;
 import com.gameengine.scene.Scene;
 
 import java.io.IOException;
-import java.text.DecimalFormat;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
 
 /**
  * 录制服务 - 异步录制游戏状态
- * 录制内容：header（窗口信息） + input（输入事件） + keyframe（关键帧）
+ * 录制内容：header（窗口信息） + input（输入事件） + keyframe（完整快照） + delta（增量）
+ * 以种子开始录制时，header 额外记录随机种子和模拟步长，input 记录所在的模拟步序号和鼠标点击位置，
+ * 回放可以由种子和输入重新模拟整局（见 ReplayScript），关键帧只作为校验点
+ * 每隔 snapshotIntervalSec 写一个完整快照，之间的关键帧只写位置变化、新出现和被移除的实体；
+ * 写入队列丢弃或合并过数据后，下一帧强制写完整快照
+ * 游戏线程把行写入无锁环形缓冲区，写入线程批量写出（见 RecordingRingBuffer）
  */
 public class RecordingService {
     private final RecordingConfig config;
-    private final BlockingQueue<String> lineQueue;
+    private final RecordingRingBuffer ring;
     private volatile boolean recording;
     private Thread writerThread;
-    private RecordingStorage storage = new FileRecordingStorage();
+    private final RecordingStorage storage;
     private double elapsed;
     private double keyframeElapsed;
+    private long tick;                                      // 开始录制后的模拟步数
     private final double warmupSec = 0.1; // 等待初始化完成
-    private final DecimalFormat qfmt;
+    private final FixedPointWriter qfmt;                    // 按quantizeDecimals输出数值
+    private final StringBuilder lineBuilder = new StringBuilder(4096);  // 复用的行缓冲区
     private Scene lastScene;
 
+    // 增量状态：每个实体上一次写出的内容
+    private final Map<Integer, WrittenEntity> written = new HashMap<>();
+    private final StringBuilder positionScratch = new StringBuilder(32);
+    private final StringBuilder renderScratch = new StringBuilder(96);
+    private long frameCounter;
+    private double lastSnapshotTime;
+    private boolean snapshotDue = true;
+    private int deltaSeq;
+    private long lossSeen;
+
+    /**
+     * 实体上一次写出的位置与渲染信息（格式化后的文本）
+     */
+    private static final class WrittenEntity {
+        final String id;
+        final StringBuilder position = new StringBuilder(32);
+        final StringBuilder render = new StringBuilder(96);
+        long frame;
+
+        WrittenEntity(String id) {
+            this.id = id;
+        }
+    }
+
     public RecordingService(RecordingConfig config) {
         this.config = config;
-        this.lineQueue = new ArrayBlockingQueue<>(config.queueCapacity);
+        this.storage = RecordingStorages.forPath(config.outputPath, config.quantizeDecimals);
+        this.ring = new RecordingRingBuffer(config.queueCapacity, config.backpressure);
         this.recording = false;
         this.elapsed = 0.0;
         this.keyframeElapsed = 0.0;
-        this.qfmt = new DecimalFormat();
-        this.qfmt.setMaximumFractionDigits(Math.max(0, config.quantizeDecimals));
-        this.qfmt.setGroupingUsed(false);
+        this.qfmt = new FixedPointWriter(config.quantizeDecimals);
     }
 
     public boolean isRecording() {
@@ -49,23 +79,31 @@ public class RecordingService {
      * 开始录制
      */
     public void start(Scene scene, int width, int height) throws IOException {
+        start(scene, width, height, null);
+    }
+
+    /**
+     * 从对局开始录制，记录随机种子和模拟步长（可确定性回放）
+     * @param seed GameLogic 的随机种子
+     * @param stepSec 固定模拟步长（秒）
+     */
+    public void start(Scene scene, int width, int height, long seed, float stepSec) throws IOException {
+        start(scene, width, height, ",\"seed\":" + seed + ",\"dt\":" + stepSec
+            + ",\"decimals\":" + config.quantizeDecimals);
+    }
+
+    private void start(Scene scene, int width, int height, String headerExtra) throws IOException {
         if (recording) return;
         storage.openWriter(config.outputPath);
         
         // 启动异步写入线程
         writerThread = new Thread(() -> {
             try {
-                while (recording || !lineQueue.isEmpty()) {
-                    String s = lineQueue.poll();
-                    if (s == null) {
-                        try { 
-                            Thread.sleep(2); 
-                        } catch (InterruptedException ignored) {}
-                        continue;
-                    }
-                    storage.writeLine(s);
+                while (ring.awaitData()) {
+                    ring.drainTo(storage);
                 }
             } catch (IOException e) {
+                ring.fail();
                 e.printStackTrace();
             } finally {
                 try { 
@@ -78,8 +116,12 @@ public class RecordingService {
         writerThread.start();
 
         // 写入header
-        enqueue("{\"type\":\"header\",\"version\":1,\"w\":" + width + ",\"h\":" + height + "}");
+        enqueue("{\"type\":\"header\",\"version\":1,\"w\":" + width + ",\"h\":" + height
+            + (headerExtra != null ? headerExtra : "") + "}", false);
         keyframeElapsed = 0.0;
+        tick = 0;
+        written.clear();
+        snapshotDue = true;
         System.out.println("录制开始: " + config.outputPath);
     }
 
@@ -90,14 +132,20 @@ public class RecordingService {
         if (!recording) return;
         try {
             if (lastScene != null) {
+                snapshotDue = true;     // 以完整快照结束，索引的结束时间准确
                 writeKeyframe(lastScene);
             }
         } catch (Exception ignored) {}
         recording = false;
+        ring.close();
         try { 
             writerThread.join(500); 
         } catch (InterruptedException ignored) {}
-        System.out.println("录制结束");
+        if (ring.getDropped() > 0 || ring.getCoalesced() > 0) {
+            System.out.println("录制结束（丢弃 " + ring.getDropped() + " 行，合并 " + ring.getCoalesced() + " 个关键帧）");
+        } else {
+            System.out.println("录制结束");
+        }
     }
 
     /**
@@ -107,23 +155,31 @@ public class RecordingService {
         if (!recording) return;
         elapsed += deltaTime;
         keyframeElapsed += deltaTime;
+        tick++;
         lastScene = scene;
+        ring.publishPendingIfRoom();
 
-        // 录制输入事件（只记录刚按下的键）
+        // 录制输入事件（只记录刚按下的键和左键点击，点击位置不量化）
         Set<Integer> just = input.getJustPressedKeysSnapshot();
-        if (!just.isEmpty()) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("{\"type\":\"input\",\"t\":")
-              .append(qfmt.format(elapsed))
-              .append(",\"keys\":[");
+        boolean click = input.isMouseButtonJustPressed(1);
+        if (!just.isEmpty() || click) {
+            StringBuilder sb = lineBuilder;
+            sb.setLength(0);
+            sb.append("{\"type\":\"input\",\"t\":");
+            qfmt.append(sb, elapsed).append(",\"tick\":").append(tick).append(",\"keys\":[");
             boolean first = true;
             for (Integer k : just) {
                 if (!first) sb.append(',');
                 sb.append(k);
                 first = false;
             }
-            sb.append("]}");
-            enqueue(sb.toString());
+            sb.append(']');
+            if (click) {
+                Vector2 at = input.getMousePressPosition();
+                sb.append(",\"click\":[").append(at.x).append(',').append(at.y).append(']');
+            }
+            sb.append('}');
+            enqueue(sb, false);
         }
 
         // 周期性写入关键帧（跳过暖机阶段）
@@ -135,13 +191,21 @@ public class RecordingService {
     }
 
     /**
-     * 写入关键帧
+     * 写入关键帧：到期时写完整快照，否则只写变化的实体
      */
     private boolean writeKeyframe(Scene scene) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{\"type\":\"keyframe\",\"t\":")
-          .append(qfmt.format(elapsed))
-          .append(",\"entities\":[");
+        boolean snapshot = snapshotDue || config.snapshotIntervalSec <= 0 || storage.encodesDeltas()
+            || elapsed - lastSnapshotTime >= config.snapshotIntervalSec;
+        long frame = ++frameCounter;
+
+        StringBuilder sb = lineBuilder;
+        sb.setLength(0);
+        sb.append(snapshot ? "{\"type\":\"keyframe\",\"t\":" : "{\"type\":\"delta\",\"t\":");
+        qfmt.append(sb, elapsed);
+        if (!snapshot) {
+            sb.append(",\"seq\":").append(deltaSeq + 1);
+        }
+        sb.append(",\"entities\":[");
         
         List<GameObject> objs = scene.getGameObjects();
         boolean first = true;
@@ -152,55 +216,108 @@ public class RecordingService {
             
             TransformComponent tc = obj.getComponent(TransformComponent.class);
             if (tc == null) continue;
-            
-            Vector2 pos = tc.getPosition();
-            if (!first) sb.append(',');
-            
-            // 使用对象的instanceId作为唯一标识
-            String uniqueId = obj.getName() + "#" + obj.getInstanceId();
-            
-            sb.append('{')
-              .append("\"id\":\"").append(uniqueId).append("\",")
-              .append("\"x\":").append(qfmt.format(pos.x)).append(',')
-              .append("\"y\":").append(qfmt.format(pos.y));
+            count++;
 
-            // 录制渲染信息（形状、尺寸、颜色）
+            StringBuilder pos = positionScratch;
+            pos.setLength(0);
+            pos.append("\"x\":");
+            qfmt.append(pos, tc.getX()).append(',')
+              .append("\"y\":");
+            qfmt.append(pos, tc.getY());
+
+            // 渲染信息（形状、尺寸、颜色）
+            StringBuilder render = renderScratch;
+            render.setLength(0);
             RenderComponent rc = obj.getComponent(RenderComponent.class);
             if (rc != null) {
                 RenderComponent.RenderType rt = rc.getRenderType();
                 Vector2 sz = rc.getSize();
                 RenderComponent.Color col = rc.getColor();
                 
-                sb.append(',')
-                  .append("\"rt\":\"").append(rt.name()).append("\",")
-                  .append("\"w\":").append(qfmt.format(sz.x)).append(',')
-                  .append("\"h\":").append(qfmt.format(sz.y)).append(',')
-                  .append("\"color\":[")
-                  .append(qfmt.format(col.r)).append(',')
-                  .append(qfmt.format(col.g)).append(',')
-                  .append(qfmt.format(col.b)).append(',')
-                  .append(qfmt.format(col.a)).append(']');
+                render.append("\"rt\":\"").append(rt.name()).append("\",")
+                  .append("\"w\":");
+                qfmt.append(render, sz.x).append(',')
+                  .append("\"h\":");
+                qfmt.append(render, sz.y).append(',')
+                  .append("\"color\":[");
+                qfmt.append(render, col.r).append(',');
+                qfmt.append(render, col.g).append(',');
+                qfmt.append(render, col.b).append(',');
+                qfmt.append(render, col.a).append(']');
             }
 
-            sb.append('}');
-            first = false;
-            count++;
+            // 使用对象的instanceId作为唯一标识
+            WrittenEntity we = written.get(obj.getInstanceId());
+            boolean spawned = we == null;
+            if (spawned) {
+                we = new WrittenEntity(obj.getName() + "#" + obj.getInstanceId());
+                written.put(obj.getInstanceId(), we);
+            }
+            boolean moved = spawned || CharSequence.compare(we.position, pos) != 0;
+            boolean restyled = spawned || CharSequence.compare(we.render, render) != 0;
+            we.frame = frame;
+
+            if (snapshot || moved || restyled) {
+                if (!first) sb.append(',');
+                sb.append("{\"id\":\"").append(we.id).append("\",").append(pos);
+                if ((snapshot || restyled) && render.length() > 0) {
+                    sb.append(',').append(render);
+                }
+                sb.append('}');
+                first = false;
+            }
+            if (moved) {
+                we.position.setLength(0);
+                we.position.append(pos);
+            }
+            if (restyled) {
+                we.render.setLength(0);
+                we.render.append(render);
+            }
         }
         
-        sb.append("]}");
+        sb.append(']');
         if (count == 0) return false;
+
+        // 本帧没有出现的实体已被移除
+        boolean firstRemoved = true;
+        Iterator<WrittenEntity> it = written.values().iterator();
+        while (it.hasNext()) {
+            WrittenEntity we = it.next();
+            if (we.frame == frame) continue;
+            it.remove();
+            if (!snapshot) {
+                sb.append(firstRemoved ? ",\"removed\":[\"" : ",\"").append(we.id).append('"');
+                firstRemoved = false;
+            }
+        }
+        if (!firstRemoved) sb.append(']');
+        sb.append('}');
         
-        enqueue(sb.toString());
+        enqueue(sb, true);
+        if (snapshot) {
+            lastSnapshotTime = elapsed;
+            deltaSeq = 0;
+            snapshotDue = false;
+        } else {
+            deltaSeq++;
+        }
+        // 队列丢弃或合并过数据时增量链已断开，下一帧写完整快照
+        long loss = ring.getDropped() + ring.getCoalesced();
+        if (loss != lossSeen) {
+            lossSeen = loss;
+            snapshotDue = true;
+        }
         return true;
     }
 
     /**
-     * 将数据加入队列
+     * 将数据加入队列（内容被复制，调用后可以复用缓冲区）
      */
-    private void enqueue(String line) {
-        if (!lineQueue.offer(line)) {
-            // 队列满时丢弃（简单策略）
-            System.err.println("Recording queue full, dropping data");
+    private void enqueue(CharSequence line, boolean keyframe) {
+        if (!ring.offer(line, keyframe)) {
+            // 写入线程已停止
+            System.err.println("Recording writer stopped, dropping data");
         }
     }
 }
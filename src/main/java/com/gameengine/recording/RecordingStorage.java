@@ -2,7 +2,9 @@ package com.gameengine.recording;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * 录制存储抽象接口
@@ -18,16 +20,58 @@ public interface RecordingStorage {
      * 写入一行数据
      */
     void writeLine(String line) throws IOException;
+
+    /**
+     * 写入一行已编码为UTF-8的数据（不含换行符），调用返回后不再引用数组
+     * 默认实现解码为字符串后写入
+     */
+    default void writeLine(byte[] utf8, int offset, int length) throws IOException {
+        writeLine(new String(utf8, offset, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 把已写入的数据提交给底层（写入线程每批调用一次）
+     */
+    default void flush() throws IOException {
+    }
     
+    /**
+     * 存储格式本身是否已按实体做增量编码
+     * 返回true时RecordingService每个关键帧都写完整快照（不写delta行）
+     */
+    default boolean encodesDeltas() {
+        return false;
+    }
+
     /**
      * 关闭写入器
      */
     void closeWriter();
     
     /**
-     * 读取所有行
+     * 读取所有行（一次性读入内存，长录制请使用 lines 或 openReader）
      */
     Iterable<String> readLines(String path) throws IOException;
+
+    /**
+     * 以惰性流的形式逐行读取，使用完毕后需要关闭流
+     */
+    default Stream<String> lines(String path) throws IOException {
+        return openReader(path, 0).lines();
+    }
+
+    /**
+     * 从指定位置打开顺序读取器
+     * @param position 0（文件开头）或RecordingIndex中记录的位置
+     */
+    RecordingReader openReader(String path, long position) throws IOException;
+
+    /**
+     * 加载录制文件的随机访问索引
+     */
+    default RecordingIndex loadIndex(String path) throws IOException {
+        return RecordingIndex.load(path, this);
+    }
     
     /**
      * 列举所有录制文件
@@ -0,0 +1,51 @@
+package com.gameengine.recording;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 录制存储工具：按文件扩展名选择存储实现
+ * .rec 使用二进制格式，已注册编解码器的扩展名（.jsonl.gzb/.jsonl.dfb 等）使用块压缩格式，
+ * 其余（.json/.jsonl）使用JSONL文本格式
+ */
+public final class RecordingStorages {
+    private RecordingStorages() {}
+
+    public static RecordingStorage forPath(String path) {
+        return forPath(path, 2);
+    }
+
+    /**
+     * @param decimals 二进制格式的数值精度（小数位数）
+     */
+    public static RecordingStorage forPath(String path, int decimals) {
+        if (path.endsWith(BinaryRecordingStorage.EXTENSION)) {
+            return new BinaryRecordingStorage(decimals);
+        }
+        RecordingCodec codec = RecordingCodecs.forPath(path);
+        if (codec != null) {
+            return new CompressedRecordingStorage(codec);
+        }
+        return new FileRecordingStorage();
+    }
+
+    /**
+     * 文件名是否为任一格式的录制文件
+     */
+    public static boolean isRecording(String name) {
+        return name.endsWith(".jsonl") || name.endsWith(".json")
+            || name.endsWith(BinaryRecordingStorage.EXTENSION) || RecordingCodecs.forPath(name) != null;
+    }
+
+    /**
+     * 列举所有格式的录制文件，按修改时间倒序排列
+     */
+    public static List<File> listRecordings() {
+        List<File> files = new ArrayList<>(new FileRecordingStorage().listRecordings());
+        files.addAll(new BinaryRecordingStorage().listRecordings());
+        files.addAll(new CompressedRecordingStorage().listRecordings());
+        files.sort((a, b) -> Long.compare(b.lastModified(), a.lastModified()));
+        return files;
+    }
+}
@@ -0,0 +1,130 @@
+package com.gameengine.recording;
+
+import com.gameengine.math.Vector2;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 回放关键帧：录制文件中一个keyframe行（完整快照）或delta行（增量）解析后的数据
+ * 增量只包含位置变化的实体、新出现的实体和被移除的实体ID，
+ * 通过 applyTo 应用到前一帧上得到完整的一帧。
+ * 解码时用 linkPrevious 记录每个实体在前一帧中的下标，回放插值相邻两帧时不需要按ID查找。
+ */
+public class ReplayKeyframe {
+    /**
+     * 关键帧中的一个实体
+     */
+    public static class EntityInfo {
+        public Vector2 pos;
+        public String rt; // RECTANGLE/CIRCLE
+        public float w, h;
+        public float r = 1.0f, g = 1.0f, b = 1.0f, a = 1.0f; // 默认白色
+        public String id;
+    }
+
+    public double t;
+    public final List<EntityInfo> entities = new ArrayList<>();
+
+    /** 是否为增量帧 */
+    public boolean delta;
+    /** 快照之后的增量序号（快照为0，之后每个增量加1） */
+    public int seq;
+    /** 增量中被移除的实体ID（没有时为null） */
+    public List<String> removed;
+
+    private static final AtomicLong NEXT_ORDINAL = new AtomicLong();
+
+    /** 帧的唯一编号（用于确认链接的前一帧） */
+    private final long ordinal = NEXT_ORDINAL.incrementAndGet();
+    private long previousOrdinal;
+    private int[] previousIndex;
+
+    /**
+     * 记录本帧各实体在前一帧中的下标（解码时调用，不保留对前一帧的引用）
+     */
+    public void linkPrevious(ReplayKeyframe previous) {
+        Map<String, Integer> index = new HashMap<>(previous.entities.size() * 2);
+        for (int i = 0; i < previous.entities.size(); i++) {
+            index.put(previous.entities.get(i).id, i);
+        }
+        int[] links = new int[entities.size()];
+        for (int i = 0; i < links.length; i++) {
+            Integer j = index.get(entities.get(i).id);
+            links[i] = j != null ? j : -1;
+        }
+        previousIndex = links;
+        previousOrdinal = previous.ordinal;
+    }
+
+    /**
+     * 本帧各实体在previous中的下标（-1 表示previous中没有该实体）
+     * @return previous 不是链接的前一帧时返回null
+     */
+    public int[] indexIn(ReplayKeyframe previous) {
+        return previousIndex != null && previous.ordinal == previousOrdinal ? previousIndex : null;
+    }
+
+    /**
+     * 把增量应用到前一帧，返回完整的一帧
+     * 增量中没有渲染信息的实体沿用前一帧的形状、尺寸和颜色；未变化的实体与前一帧共享；
+     * 得到的帧已链接到base
+     * @return 序号不连续（中间有增量丢失）时返回null，此时应等待下一个快照
+     */
+    public ReplayKeyframe applyTo(ReplayKeyframe base) {
+        if (!delta) return this;
+        if (seq != base.seq + 1) return null;
+
+        Map<String, EntityInfo> changed = new HashMap<>(entities.size() * 2);
+        for (EntityInfo ei : entities) {
+            changed.put(ei.id, ei);
+        }
+        Set<String> gone = removed == null ? null : new HashSet<>(removed);
+
+        ReplayKeyframe full = new ReplayKeyframe();
+        full.t = t;
+        full.seq = seq;
+        int[] links = new int[base.entities.size() + entities.size()];
+        for (int i = 0; i < base.entities.size(); i++) {
+            EntityInfo old = base.entities.get(i);
+            if (gone != null && gone.contains(old.id)) continue;
+            EntityInfo ei = changed.remove(old.id);
+            links[full.entities.size()] = i;
+            if (ei == null) {
+                full.entities.add(old);
+            } else {
+                full.entities.add(ei.rt != null ? ei : withPosition(old, ei.pos));
+            }
+        }
+        // 新出现的实体（保持增量中的顺序）
+        for (EntityInfo ei : entities) {
+            if (changed.containsKey(ei.id)) {
+                links[full.entities.size()] = -1;
+                full.entities.add(ei);
+            }
+        }
+        full.previousIndex = Arrays.copyOf(links, full.entities.size());
+        full.previousOrdinal = base.ordinal;
+        return full;
+    }
+
+    private static EntityInfo withPosition(EntityInfo src, Vector2 pos) {
+        EntityInfo ei = new EntityInfo();
+        ei.id = src.id;
+        ei.pos = pos;
+        ei.rt = src.rt;
+        ei.w = src.w;
+        ei.h = src.h;
+        ei.r = src.r;
+        ei.g = src.g;
+        ei.b = src.b;
+        ei.a = src.a;
+        return ei;
+    }
+}
@@ -0,0 +1,240 @@
+package com.gameengine.recording;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 确定性回放脚本：录制文件头中的随机种子和模拟步长 + 按模拟步排列的输入 + 作为校验点的完整快照
+ * 只有以种子开始的录制（RecordingService.start(scene, w, h, seed, stepSec)）才能重新模拟，
+ * 增量帧不参与校验（校验点只取完整快照）。
+ * 记录用 JsonTokenizer 解析；种子、步长和点击坐标取数字原文精确解析，不经过double，保证与录制时完全相同。
+ */
+public final class ReplayScript {
+    /**
+     * 一个模拟步内的输入
+     */
+    public static final class Input {
+        /** 开始录制后的模拟步序号（从1开始） */
+        public final long tick;
+        /** 刚按下的键 */
+        public final int[] keys;
+        /** 是否有左键点击 */
+        public final boolean click;
+        public final float clickX, clickY;
+
+        Input(long tick, int[] keys, boolean click, float clickX, float clickY) {
+            this.tick = tick;
+            this.keys = keys;
+            this.click = click;
+            this.clickX = clickX;
+            this.clickY = clickY;
+        }
+    }
+
+    /**
+     * 文件头中的回放参数
+     */
+    private static final class Header {
+        final long seed;
+        final float stepSec;
+        final int decimals;
+
+        Header(long seed, float stepSec, int decimals) {
+            this.seed = seed;
+            this.stepSec = stepSec;
+            this.decimals = decimals;
+        }
+    }
+
+    private final long seed;
+    private final float stepSec;
+    private final int decimals;
+    private final List<Input> inputs;
+    private final List<ReplayKeyframe> checkpoints;
+
+    private ReplayScript(long seed, float stepSec, int decimals,
+                         List<Input> inputs, List<ReplayKeyframe> checkpoints) {
+        this.seed = seed;
+        this.stepSec = stepSec;
+        this.decimals = decimals;
+        this.inputs = Collections.unmodifiableList(inputs);
+        this.checkpoints = Collections.unmodifiableList(checkpoints);
+    }
+
+    /**
+     * 读取录制文件
+     * @return 文件头没有种子（不能重新模拟）时返回null
+     */
+    public static ReplayScript load(RecordingStorage storage, String path) throws IOException {
+        long seed = 0;
+        float stepSec = 0;
+        int decimals = 2;
+        boolean seeded = false;
+        List<Input> inputs = new ArrayList<>();
+        List<ReplayKeyframe> checkpoints = new ArrayList<>();
+        try (RecordingReader reader = storage.openReader(path, 0)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("{\"type\":\"header\"")) {
+                    Header header = parseHeader(line);
+                    if (header == null) return null;
+                    seed = header.seed;
+                    stepSec = header.stepSec;
+                    decimals = header.decimals;
+                    seeded = stepSec > 0;
+                } else if (line.startsWith("{\"type\":\"input\"")) {
+                    Input in = parseInput(line);
+                    if (in != null) inputs.add(in);
+                } else if (KeyframeParser.isKeyframe(line)) {
+                    ReplayKeyframe kf = KeyframeParser.parse(line);
+                    if (kf != null) checkpoints.add(kf);
+                }
+            }
+        }
+        if (!seeded) return null;
+        inputs.sort((a, b) -> Long.compare(a.tick, b.tick));
+        return new ReplayScript(seed, stepSec, decimals, inputs, checkpoints);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * 录制时的固定模拟步长（秒）
+     */
+    public float getStepSec() {
+        return stepSec;
+    }
+
+    /**
+     * 录制的数值精度（校验点按相同精度比较）
+     */
+    public int getDecimals() {
+        return decimals;
+    }
+
+    /**
+     * 按模拟步排序的输入
+     */
+    public List<Input> getInputs() {
+        return inputs;
+    }
+
+    /**
+     * 按时间排序的完整快照
+     */
+    public List<ReplayKeyframe> getCheckpoints() {
+        return checkpoints;
+    }
+
+    /**
+     * 录制的结束时间（最后一个校验点或最后一个输入）
+     */
+    public double getLastTime() {
+        double last = checkpoints.isEmpty() ? 0 : checkpoints.get(checkpoints.size() - 1).t;
+        if (!inputs.isEmpty()) {
+            last = Math.max(last, inputs.get(inputs.size() - 1).tick * (double) stepSec);
+        }
+        return last;
+    }
+
+    /**
+     * 解析文件头中的 seed、dt 和 decimals，没有种子或步长时返回null
+     */
+    private static Header parseHeader(String line) {
+        JsonTokenizer json = JsonTokenizer.forCurrentThread().reset(line);
+        if (json.next() != JsonTokenizer.Token.BEGIN_OBJECT) return null;
+        String seed = null;
+        String dt = null;
+        String decimals = null;
+        while (json.next() == JsonTokenizer.Token.NAME) {
+            if (json.nameEquals("seed")) {
+                seed = json.nextNumberText();
+            } else if (json.nameEquals("dt")) {
+                dt = json.nextNumberText();
+            } else if (json.nameEquals("decimals")) {
+                decimals = json.nextNumberText();
+            } else {
+                json.skipValue();
+            }
+        }
+        if (seed == null || dt == null) return null;
+        try {
+            return new Header(Long.parseLong(seed), Float.parseFloat(dt),
+                              decimals != null ? Integer.parseInt(decimals) : 2);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 解析 {"type":"input","t":T,"tick":N,"keys":[..],"click":[x,y]}，没有 tick 的旧格式返回null
+     */
+    private static Input parseInput(String line) {
+        JsonTokenizer json = JsonTokenizer.forCurrentThread().reset(line);
+        if (json.next() != JsonTokenizer.Token.BEGIN_OBJECT) return null;
+        String tick = null;
+        List<String> keys = null;
+        List<String> click = null;
+        while (json.next() == JsonTokenizer.Token.NAME) {
+            if (json.nameEquals("tick")) {
+                tick = json.nextNumberText();
+            } else if (json.nameEquals("keys")) {
+                keys = numberArray(json);
+            } else if (json.nameEquals("click")) {
+                click = numberArray(json);
+            } else {
+                json.skipValue();
+            }
+        }
+        if (tick == null || keys == null) return null;
+        try {
+            int[] codes = new int[keys.size()];
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = Integer.parseInt(keys.get(i));
+            }
+            if (click != null && click.size() == 2) {
+                return new Input(Long.parseLong(tick), codes, true,
+                                 Float.parseFloat(click.get(0)), Float.parseFloat(click.get(1)));
+            }
+            return new Input(Long.parseLong(tick), codes, false, 0, 0);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 读取字段值中的数字数组原文，值不是数字数组时跳过该值并返回null
+     */
+    private static List<String> numberArray(JsonTokenizer json) {
+        JsonTokenizer.Token t = json.next();
+        if (t == JsonTokenizer.Token.BEGIN_OBJECT) {
+            skipTo(json, json.depth());
+        }
+        if (t != JsonTokenizer.Token.BEGIN_ARRAY) {
+            return null;
+        }
+        int depth = json.depth();
+        List<String> values = new ArrayList<>();
+        while ((t = json.next()) == JsonTokenizer.Token.NUMBER) {
+            values.add(json.numberText());
+        }
+        if (t == JsonTokenizer.Token.END_ARRAY) {
+            return values;
+        }
+        skipTo(json, depth);  // 数组中有非数字的值
+        return null;
+    }
+
+    /**
+     * 跳过记号直到离开第 depth 层的对象或数组
+     */
+    private static void skipTo(JsonTokenizer json, int depth) {
+        while (json.depth() >= depth) {
+            if (json.next() == JsonTokenizer.Token.END) return;
+        }
+    }
+}
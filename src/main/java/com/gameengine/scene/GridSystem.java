@@ -4,6 +4,8 @@ import com.gameengine.core.GameObject;
 import com.gameengine.graphics.Renderer;
 import com.gameengine.math.Vector2;
 
+import java.util.Random;
+
 /**
  * 格子系统，管理游戏战场的网格布局
  * 类似"植物大战僵尸"的网格战场
@@ -241,9 +243,10 @@ public class GridSystem {
     
     /**
      * 获取随机行（用于妖精生成）
+     * 使用调用方的随机数生成器：确定性回放要求所有随机数来自同一个有种子的生成器
      */
-    public int getRandomRow() {
-        return (int) (Math.random() * rows);
+    public int getRandomRow(Random random) {
+        return random.nextInt(rows);
     }
     
     // Getters
@@ -1,10 +1,13 @@
 package com.gameengine.scene;
 
+import com.gameengine.components.HealthComponent;
+import com.gameengine.components.TeamComponent;
+import com.gameengine.components.TransformComponent;
 import com.gameengine.core.GameObject;
 import com.gameengine.core.Component;
+import com.gameengine.core.ComponentType;
 // 移除具体游戏逻辑的import
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * 场景类，管理游戏对象和组件
@@ -15,7 +18,10 @@ public class Scene {
     private List<GameObject> objectsToAdd;
     private List<GameObject> objectsToRemove;
     private boolean initialized;
-    // 移除未使用的组件索引
+    private final List<SceneQuery> queries;  // 增量维护的组件查询视图
+    private SpatialIndex spatialIndex;       // 按需创建的空间索引
+    private SceneQuery spatialEntries;       // 空间索引的对象来源（Team + Health + Transform）
+    private SceneQuery transforms;           // 需要渲染插值的对象（Transform）
     
     public Scene(String name) {
         this.name = name;
@@ -23,7 +29,7 @@ public class Scene {
         this.objectsToAdd = new ArrayList<>();
         this.objectsToRemove = new ArrayList<>();
         this.initialized = false;
-        // 移除组件索引初始化
+        this.queries = new ArrayList<>();
     }
     
     /**
@@ -41,8 +47,12 @@ public class Scene {
      */
     public void update(float deltaTime) {
         // 添加新对象
-        for (GameObject obj : objectsToAdd) {
+        for (int i = 0; i < objectsToAdd.size(); i++) {
+            GameObject obj = objectsToAdd.get(i);
             gameObjects.add(obj);
+            for (int q = 0; q < queries.size(); q++) {
+                queries.get(q).onAdded(obj);
+            }
             if (initialized) {
                 obj.initialize();
             }
@@ -52,21 +62,51 @@ public class Scene {
         // 移除标记的对象
         for (GameObject obj : objectsToRemove) {
             gameObjects.remove(obj);
+            for (int q = 0; q < queries.size(); q++) {
+                queries.get(q).remove(obj);
+            }
         }
         objectsToRemove.clear();
         
-        // 更新所有活跃的游戏对象
-        Iterator<GameObject> iterator = gameObjects.iterator();
-        while (iterator.hasNext()) {
-            GameObject obj = iterator.next();
+        // 重建空间索引（仅在有人使用时）
+        if (spatialIndex != null) {
+            spatialIndex.rebuild(spatialEntries);
+        }
+        
+        // 更新所有活跃的游戏对象，同时原地压缩掉已失活的对象
+        int write = 0;
+        int count = gameObjects.size();
+        boolean removedAny = false;
+        for (int read = 0; read < count; read++) {
+            GameObject obj = gameObjects.get(read);
             if (obj.isActive()) {
                 obj.update(deltaTime);
+                gameObjects.set(write++, obj);
             } else {
-                iterator.remove();
+                removedAny = true;
+            }
+        }
+        if (removedAny) {
+            gameObjects.subList(write, count).clear();
+            for (int q = 0; q < queries.size(); q++) {
+                queries.get(q).removeInactive();
             }
         }
     }
     
+    /**
+     * 记录所有对象当前的位置，作为渲染插值的起点（由引擎在每个模拟步之前调用）
+     */
+    public void savePreviousTransforms() {
+        if (transforms == null) {
+            transforms = query(TransformComponent.class);
+        }
+        TransformComponent[] column = transforms.column(TransformComponent.class);
+        for (int i = 0; i < transforms.size(); i++) {
+            column[i].savePrevious();
+        }
+    }
+    
     /**
      * 渲染场景
      */
@@ -85,23 +125,77 @@ public class Scene {
         objectsToAdd.add(gameObject);
     }
     
+    /**
+     * 获取包含所有指定组件的对象视图
+     * 相同组件组合返回同一个视图；视图随Scene.update增量更新，调用方可缓存引用
+     */
+    public SceneQuery query(Class<?>... componentTypes) {
+        long[] mask = ComponentType.maskOf(componentTypes);
+        for (int q = 0; q < queries.size(); q++) {
+            SceneQuery existing = queries.get(q);
+            if (Arrays.equals(existing.getComponentMask(), mask)) {
+                return existing;
+            }
+        }
+        SceneQuery created = new SceneQuery(componentTypes, mask);
+        for (int i = 0; i < gameObjects.size(); i++) {
+            created.onAdded(gameObjects.get(i));
+        }
+        queries.add(created);
+        return created;
+    }
+    
+    /**
+     * 获取空间索引（首次调用时创建，之后每帧在对象更新前重建）
+     * 默认与默认配置的GridSystem格子对齐
+     */
+    public SpatialIndex getSpatialIndex() {
+        if (spatialIndex == null) {
+            spatialEntries = query(TeamComponent.class, HealthComponent.class, TransformComponent.class);
+            spatialIndex = new SpatialIndex(GridSystem.DEFAULT_CELL_WIDTH, GridSystem.DEFAULT_CELL_HEIGHT,
+                                            GridSystem.DEFAULT_OFFSET_X, GridSystem.DEFAULT_OFFSET_Y);
+            spatialIndex.rebuild(spatialEntries);
+        }
+        return spatialIndex;
+    }
+    
+    /**
+     * 让空间索引与指定网格系统的格子对齐
+     */
+    public void alignSpatialIndex(GridSystem gridSystem) {
+        SpatialIndex index = getSpatialIndex();
+        index.align(gridSystem);
+        index.rebuild(spatialEntries);
+    }
+    
     /**
      * 根据组件类型查找游戏对象
      */
     public <T extends Component<T>> List<GameObject> findGameObjectsByComponent(Class<T> componentType) {
-        return gameObjects.stream()
-            .filter(obj -> obj.hasComponent(componentType))
-            .collect(Collectors.toList());
+        SceneQuery view = query(componentType);
+        List<GameObject> result = new ArrayList<>(view.size());
+        for (int i = 0; i < view.size(); i++) {
+            GameObject obj = view.get(i);
+            if (obj.hasComponent(componentType)) {
+                result.add(obj);
+            }
+        }
+        return result;
     }
     
     /**
      * 获取所有具有指定组件的游戏对象
      */
     public <T extends Component<T>> List<T> getComponents(Class<T> componentType) {
-        return findGameObjectsByComponent(componentType).stream()
-            .map(obj -> obj.getComponent(componentType))
-            .filter(Objects::nonNull)
-            .collect(Collectors.toList());
+        SceneQuery view = query(componentType);
+        T[] column = view.column(componentType);
+        List<T> result = new ArrayList<>(view.size());
+        for (int i = 0; i < view.size(); i++) {
+            if (view.get(i).isActive()) {
+                result.add(column[i]);
+            }
+        }
+        return result;
     }
     
     /**
@@ -111,6 +205,9 @@ public class Scene {
         gameObjects.clear();
         objectsToAdd.clear();
         objectsToRemove.clear();
+        for (int q = 0; q < queries.size(); q++) {
+            queries.get(q).clear();
+        }
     }
     
     /**
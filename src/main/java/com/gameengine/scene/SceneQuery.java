@@ -0,0 +1,143 @@
+package com.gameengine.scene;
+
+import com.gameengine.core.Component;
+import com.gameengine.core.ComponentType;
+import com.gameengine.core.GameObject;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+/**
+ * 场景查询视图（按组件签名组织的表）
+ * 持有场景中所有包含指定组件组合的游戏对象，由Scene在对象加入/移除时增量维护。
+ * 签名中的每种组件类型占一列：第i行的对象和它的各个组件分别存放在并行的紧凑数组中，
+ * 系统通过 column() 按类型连续遍历组件，不需要逐个对象查找组件。
+ * 通过 size()/get(i) 按下标遍历，不产生任何分配。
+ *
+ * 注意：对象在本帧内被销毁后，直到下一次Scene.update才会从视图中移除，
+ * 遍历时应检查 isActive()。视图增长时列数组会被替换，不要跨帧保存 column() 的结果。
+ */
+public class SceneQuery {
+    private final long[] componentMask;
+    private final int[] typeIds;           // 每列的组件类型ID
+    private GameObject[] objects;
+    private Component<?>[][] columns;      // columns[c][i]：第i个对象的第c列组件，数组的运行时类型即该列的组件类型
+    private int size;
+
+    SceneQuery(Class<?>[] componentTypes, long[] componentMask) {
+        this.componentMask = componentMask;
+        this.typeIds = new int[componentTypes.length];
+        this.columns = new Component<?>[componentTypes.length][];
+        for (int c = 0; c < componentTypes.length; c++) {
+            typeIds[c] = ComponentType.idOf(componentTypes[c]);
+            columns[c] = (Component<?>[]) Array.newInstance(componentTypes[c], 16);
+        }
+        this.objects = new GameObject[16];
+        this.size = 0;
+    }
+
+    /**
+     * 匹配的对象数量
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 获取第index个匹配对象
+     */
+    public GameObject get(int index) {
+        return objects[index];
+    }
+
+    /**
+     * 指定组件类型的列，下标与 get(i) 对应，有效范围为 [0, size())
+     * @throws IllegalArgumentException 该类型不在视图的签名中
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Component<T>> T[] column(Class<T> componentType) {
+        int id = ComponentType.idOf(componentType);
+        for (int c = 0; c < typeIds.length; c++) {
+            if (typeIds[c] == id) {
+                return (T[]) columns[c];
+            }
+        }
+        throw new IllegalArgumentException(componentType.getSimpleName() + " is not part of this query");
+    }
+
+    /**
+     * 视图是否为空
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    long[] getComponentMask() {
+        return componentMask;
+    }
+
+    /**
+     * 对象加入场景时调用，匹配签名则加入视图
+     */
+    void onAdded(GameObject obj) {
+        if (!obj.hasComponents(componentMask)) return;
+        if (size == objects.length) {
+            objects = Arrays.copyOf(objects, size * 2);
+            for (int c = 0; c < columns.length; c++) {
+                columns[c] = Arrays.copyOf(columns[c], size * 2);
+            }
+        }
+        objects[size] = obj;
+        for (int c = 0; c < columns.length; c++) {
+            columns[c][size] = obj.getComponent(typeIds[c]);
+        }
+        size++;
+    }
+
+    /**
+     * 移除所有已失活的对象（保持原有顺序）
+     */
+    void removeInactive() {
+        int write = 0;
+        for (int read = 0; read < size; read++) {
+            GameObject obj = objects[read];
+            if (obj.isActive()) {
+                objects[write] = obj;
+                for (int c = 0; c < columns.length; c++) {
+                    columns[c][write] = columns[c][read];
+                }
+                write++;
+            }
+        }
+        truncate(write);
+    }
+
+    /**
+     * 移除指定对象
+     */
+    void remove(GameObject obj) {
+        for (int i = 0; i < size; i++) {
+            if (objects[i] == obj) {
+                int tail = size - i - 1;
+                System.arraycopy(objects, i + 1, objects, i, tail);
+                for (int c = 0; c < columns.length; c++) {
+                    System.arraycopy(columns[c], i + 1, columns[c], i, tail);
+                }
+                truncate(size - 1);
+                return;
+            }
+        }
+    }
+
+    void clear() {
+        truncate(0);
+    }
+
+    private void truncate(int newSize) {
+        Arrays.fill(objects, newSize, size, null);
+        for (int c = 0; c < columns.length; c++) {
+            Arrays.fill(columns[c], newSize, size, null);
+        }
+        size = newSize;
+    }
+}
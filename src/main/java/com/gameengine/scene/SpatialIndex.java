@@ -0,0 +1,270 @@
+package com.gameengine.scene;
+
+import com.gameengine.components.HealthComponent;
+import com.gameengine.components.TeamComponent;
+import com.gameengine.components.TransformComponent;
+import com.gameengine.core.GameObject;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 空间哈希索引
+ * 把带有 Team + Health + Transform 的对象按格子（与GridSystem格子对齐）分桶，
+ * 支持按阵营过滤的半径查询和最近K个查询。
+ *
+ * 索引由Scene在每帧对象更新前重建；对象在帧内移动时，查询会多检查一圈格子，
+ * 并始终使用对象的实时位置计算距离，同时跳过已失活或已死亡的对象。
+ */
+public class SpatialIndex {
+    private static final int NONE = -1;
+
+    private float cellWidth;
+    private float cellHeight;
+    private float originX;
+    private float originY;
+
+    // 条目（按视图顺序）
+    private GameObject[] objects = new GameObject[64];
+    private TransformComponent[] transforms = new TransformComponent[64];
+    private HealthComponent[] healths = new HealthComponent[64];
+    private int[] teams = new int[64];
+    private int[] cellXs = new int[64];
+    private int[] cellYs = new int[64];
+    private int[] next = new int[64];
+    private int count;
+
+    // 哈希桶：格子 -> 链表头
+    private int[] buckets = new int[64];
+    private int bucketMask = 63;
+    private int minCellX, maxCellX, minCellY, maxCellY;
+
+    // 最近K个查询的临时数组
+    private float[] bestDist = new float[8];
+    private int[] bestIndex = new int[8];
+
+    public SpatialIndex(float cellWidth, float cellHeight, float originX, float originY) {
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.originX = originX;
+        this.originY = originY;
+        Arrays.fill(buckets, NONE);
+    }
+
+    /**
+     * 与网格系统的格子对齐（需要重建后生效）
+     */
+    public void align(GridSystem grid) {
+        this.cellWidth = grid.getCellWidth();
+        this.cellHeight = grid.getCellHeight();
+        this.originX = grid.getOffsetX();
+        this.originY = grid.getOffsetY();
+    }
+
+    /**
+     * 根据视图中的对象重建索引
+     */
+    void rebuild(SceneQuery hittables) {
+        int n = hittables.size();
+        ensureCapacity(n);
+        int tableSize = Integer.highestOneBit(Math.max(64, n * 2 - 1)) << 1;
+        if (tableSize != buckets.length) {
+            buckets = new int[tableSize];
+            bucketMask = tableSize - 1;
+        }
+        Arrays.fill(buckets, NONE);
+        Arrays.fill(objects, 0, count, null);
+        Arrays.fill(transforms, 0, count, null);
+        Arrays.fill(healths, 0, count, null);
+        count = 0;
+        minCellX = minCellY = Integer.MAX_VALUE;
+        maxCellX = maxCellY = Integer.MIN_VALUE;
+
+        HealthComponent[] healthColumn = hittables.column(HealthComponent.class);
+        TeamComponent[] teamColumn = hittables.column(TeamComponent.class);
+        TransformComponent[] transformColumn = hittables.column(TransformComponent.class);
+        for (int i = 0; i < n; i++) {
+            GameObject obj = hittables.get(i);
+            HealthComponent health = healthColumn[i];
+            if (!obj.isActive() || !health.isAlive()) continue;
+            TeamComponent team = teamColumn[i];
+            TransformComponent transform = transformColumn[i];
+
+            int cx = cellX(transform.getX());
+            int cy = cellY(transform.getY());
+            int e = count++;
+            objects[e] = obj;
+            transforms[e] = transform;
+            healths[e] = health;
+            teams[e] = team.getTeam().ordinal();
+            cellXs[e] = cx;
+            cellYs[e] = cy;
+            int b = bucket(cx, cy);
+            next[e] = buckets[b];
+            buckets[b] = e;
+
+            if (cx < minCellX) minCellX = cx;
+            if (cx > maxCellX) maxCellX = cx;
+            if (cy < minCellY) minCellY = cy;
+            if (cy > maxCellY) maxCellY = cy;
+        }
+    }
+
+    /**
+     * 查找半径内最近的指定阵营对象
+     * @param exclude 排除的对象（通常是查询者自身），可为null
+     * @return 最近的对象，没有则返回null
+     */
+    public GameObject findNearest(float x, float y, float radius, TeamComponent.Team team, GameObject exclude) {
+        int found = collectNearest(x, y, radius, team.ordinal(), exclude, 1);
+        return found > 0 ? objects[bestIndex[0]] : null;
+    }
+
+    /**
+     * 查找半径内最近的若干个指定阵营对象，按距离由近到远追加到out
+     * @return 找到的数量
+     */
+    public int findNearest(float x, float y, float radius, TeamComponent.Team team, int maxCount, List<GameObject> out) {
+        int found = collectNearest(x, y, radius, team.ordinal(), null, maxCount);
+        for (int i = 0; i < found; i++) {
+            out.add(objects[bestIndex[i]]);
+        }
+        return found;
+    }
+
+    /**
+     * 查找半径内所有指定阵营对象，追加到out（无序）
+     * @return 找到的数量
+     */
+    public int findInRadius(float x, float y, float radius, TeamComponent.Team team, List<GameObject> out) {
+        int wanted = team.ordinal();
+        float r2 = radius * radius;
+        int found = 0;
+        if (count == 0) return 0;
+
+        int x0 = Math.max(minCellX, cellX(x - radius) - 1);
+        int x1 = Math.min(maxCellX, cellX(x + radius) + 1);
+        int y0 = Math.max(minCellY, cellY(y - radius) - 1);
+        int y1 = Math.min(maxCellY, cellY(y + radius) + 1);
+        if (x0 > x1 || y0 > y1) return 0;
+
+        if ((long) (x1 - x0 + 1) * (y1 - y0 + 1) >= count) {
+            for (int e = 0; e < count; e++) {
+                if (accepts(e, wanted, null) && distanceSq(e, x, y) <= r2) {
+                    out.add(objects[e]);
+                    found++;
+                }
+            }
+            return found;
+        }
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                for (int e = buckets[bucket(cx, cy)]; e != NONE; e = next[e]) {
+                    if (cellXs[e] != cx || cellYs[e] != cy) continue;
+                    if (accepts(e, wanted, null) && distanceSq(e, x, y) <= r2) {
+                        out.add(objects[e]);
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 已索引的对象数量
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 收集最近的k个候选到 bestIndex/bestDist（按距离升序）
+     */
+    private int collectNearest(float x, float y, float radius, int wanted, GameObject exclude, int k) {
+        if (count == 0 || k <= 0) return 0;
+        if (bestDist.length < k) {
+            bestDist = new float[k];
+            bestIndex = new int[k];
+        }
+        float r2 = radius * radius;
+        int found = 0;
+
+        int x0 = Math.max(minCellX, cellX(x - radius) - 1);
+        int x1 = Math.min(maxCellX, cellX(x + radius) + 1);
+        int y0 = Math.max(minCellY, cellY(y - radius) - 1);
+        int y1 = Math.min(maxCellY, cellY(y + radius) + 1);
+        if (x0 > x1 || y0 > y1) return 0;
+
+        if ((long) (x1 - x0 + 1) * (y1 - y0 + 1) >= count) {
+            for (int e = 0; e < count; e++) {
+                found = offer(e, wanted, exclude, x, y, r2, k, found);
+            }
+            return found;
+        }
+        for (int cy = y0; cy <= y1; cy++) {
+            for (int cx = x0; cx <= x1; cx++) {
+                for (int e = buckets[bucket(cx, cy)]; e != NONE; e = next[e]) {
+                    if (cellXs[e] != cx || cellYs[e] != cy) continue;
+                    found = offer(e, wanted, exclude, x, y, r2, k, found);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 尝试把条目插入到有序的最近列表中
+     */
+    private int offer(int e, int wanted, GameObject exclude, float x, float y, float r2, int k, int found) {
+        if (!accepts(e, wanted, exclude)) return found;
+        float d2 = distanceSq(e, x, y);
+        if (d2 > r2) return found;
+        if (found == k && d2 >= bestDist[k - 1]) return found;
+
+        int pos = found < k ? found : k - 1;
+        while (pos > 0 && bestDist[pos - 1] > d2) {
+            bestDist[pos] = bestDist[pos - 1];
+            bestIndex[pos] = bestIndex[pos - 1];
+            pos--;
+        }
+        bestDist[pos] = d2;
+        bestIndex[pos] = e;
+        return found < k ? found + 1 : found;
+    }
+
+    private boolean accepts(int e, int wanted, GameObject exclude) {
+        GameObject obj = objects[e];
+        return teams[e] == wanted && obj != exclude && obj.isActive() && healths[e].isAlive();
+    }
+
+    private float distanceSq(int e, float x, float y) {
+        float dx = transforms[e].getX() - x;
+        float dy = transforms[e].getY() - y;
+        return dx * dx + dy * dy;
+    }
+
+    private int cellX(float x) {
+        return (int) Math.floor((x - originX) / cellWidth);
+    }
+
+    private int cellY(float y) {
+        return (int) Math.floor((y - originY) / cellHeight);
+    }
+
+    private int bucket(int cx, int cy) {
+        return ((cx * 73856093) ^ (cy * 19349663)) & bucketMask;
+    }
+
+    private void ensureCapacity(int n) {
+        if (n <= objects.length) return;
+        int cap = Math.max(n, objects.length * 2);
+        objects = Arrays.copyOf(objects, cap);
+        transforms = Arrays.copyOf(transforms, cap);
+        healths = Arrays.copyOf(healths, cap);
+        teams = Arrays.copyOf(teams, cap);
+        cellXs = Arrays.copyOf(cellXs, cap);
+        cellYs = Arrays.copyOf(cellYs, cap);
+        next = Arrays.copyOf(next, cap);
+    }
+}